@@ -0,0 +1,100 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+/**
+ * Immutable snapshot of statistics of a cache used by a {@link BundleFactory}.
+ * @since 1.3.1
+ * @see MultiplePropertyResourceBundleFactory#getCacheStatistics()
+ * @see PropertyResourceBundleFactory#getCacheStatistics()
+ */
+public final class BundleCacheStatistics {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final int size;
+    private final int maxSize;
+    private final long footprint;
+
+    BundleCacheStatistics(final long hitCount, final long missCount, final long evictionCount, final int size, final int maxSize,
+            final long footprint) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.size = size;
+        this.maxSize = maxSize;
+        this.footprint = footprint;
+    }
+
+    /**
+     * Returns the number of lookups which returned a cached value.
+     * @return the number of hits.
+     * @since 1.3.1
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of lookups which loaded a value.
+     * @return the number of misses.
+     * @since 1.3.1
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of values removed from the cache because its maximum size was exceeded.
+     * @return the number of evictions.
+     * @since 1.3.1
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of cached values.
+     * @return the size.
+     * @since 1.3.1
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the maximum number of cached values.
+     * @return the maximum size.
+     * @since 1.3.1
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the estimated number of bytes occupied by the cached values ({@code 0} if the cache does not estimate
+     * footprints).
+     * @return the estimated number of bytes.
+     * @since 1.3.1
+     */
+    public long getFootprint() {
+        return footprint;
+    }
+
+    @Override
+    public String toString() {
+        return "BundleCacheStatistics[hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount + ", size=" + size
+                + ", maxSize=" + maxSize + ", footprint=" + footprint + ']';
+    }
+}
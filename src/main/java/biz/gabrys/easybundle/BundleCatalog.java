@@ -0,0 +1,357 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle.Control;
+
+/**
+ * <p>
+ * Read-only view of a binary catalog compiled from a properties file by {@link BundleCatalogCompiler}. The catalog
+ * stores translations in the following format (all numbers are big-endian):
+ * </p>
+ * <ol>
+ * <li>header: the magic number {@link #MAGIC}</li>
+ * <li>the number of translations</li>
+ * <li>the hash index: the size of the open addressing table (a power of two) and the table of entry numbers (plus one,
+ * zero marks an empty bucket) placed in the buckets by the FNV-1a hash of the UTF-8 bytes of the keys</li>
+ * <li>the entries: pairs of the key offset and the value offset sorted by the UTF-8 bytes of the keys</li>
+ * <li>the data: length-prefixed (one {@code int}) UTF-8 keys and values</li>
+ * </ol>
+ * <p>
+ * The catalog does not parse anything up front - the hash index is searched directly in the buffer and only the found
+ * values are decoded, so the buffer can be a heap buffer as well as a {@link MappedByteBuffer mapped file} whose content
+ * stays off the heap.
+ * </p>
+ * @since 1.3.1
+ */
+final class BundleCatalog {
+
+    /**
+     * The magic number which starts each catalog ("EBC1").
+     * @since 1.3.1
+     */
+    static final int MAGIC = 0x45424331;
+
+    /**
+     * The extension of the catalog files.
+     * @since 1.3.1
+     */
+    static final String FILE_EXTENSION = "catalog";
+
+    private static final String ENCODING = "UTF-8";
+    private static final Control CONTROL = Control.getNoFallbackControl(Control.FORMAT_PROPERTIES);
+
+    private final ByteBuffer buffer;
+    private final int tableOffset;
+    private final int tableMask;
+    private final int entriesOffset;
+
+    private BundleCatalog(final ByteBuffer buffer, final int tableOffset, final int tableSize) {
+        this.buffer = buffer;
+        this.tableOffset = tableOffset;
+        tableMask = tableSize - 1;
+        entriesOffset = tableOffset + tableSize * 4;
+    }
+
+    /**
+     * Creates a catalog view of the buffer. The buffer content must not be modified later.
+     * @param buffer the buffer which contains the whole catalog (from its position to its limit).
+     * @return the catalog.
+     * @throws ReloadBundleException if the buffer does not contain a correct catalog.
+     * @since 1.3.1
+     */
+    static BundleCatalog read(final ByteBuffer buffer) {
+        final ByteBuffer data = buffer.slice();
+        try {
+            if (data.getInt() != MAGIC) {
+                throw new ReloadBundleException("The data is not a bundle catalog (incorrect magic number)");
+            }
+            final int count = data.getInt();
+            final int tableSize = data.getInt();
+            if (count < 0 || tableSize <= count || Integer.bitCount(tableSize) != 1) {
+                throw new ReloadBundleException("The bundle catalog is corrupted (incorrect index size)");
+            }
+            if (data.remaining() < tableSize * 4L + count * 8L) {
+                throw new ReloadBundleException("The bundle catalog is truncated");
+            }
+            return new BundleCatalog(data, data.position(), tableSize);
+        } catch (final RuntimeException e) {
+            if (e instanceof ReloadBundleException) {
+                throw e;
+            }
+            throw new ReloadBundleException("The bundle catalog is corrupted", e);
+        }
+    }
+
+    /**
+     * Loads the catalogs of the bundle interface which contain translations for the locale. The catalogs are stored in
+     * the same package as the interface and they are resolved in the same way as the properties files (e.g.
+     * {@code Messages_pl_PL.catalog}, {@code Messages_pl.catalog} and {@code Messages.catalog}).
+     * @param interfaceClass the bundle interface class.
+     * @param locale the locale.
+     * @param mapped whether the catalog files should be mapped into memory instead of being read.
+     * @return the existing catalogs, the more specific first.
+     * @throws ReloadBundleException if none of the catalogs exists or a catalog cannot be loaded.
+     * @since 1.3.1
+     */
+    static BundleCatalog[] loadAll(final Class<?> interfaceClass, final Locale locale, final boolean mapped) {
+        final ClassLoader classLoader = interfaceClass.getClassLoader();
+        final List<BundleCatalog> catalogs = new ArrayList<BundleCatalog>();
+        for (final Locale candidate : CONTROL.getCandidateLocales(interfaceClass.getName(), locale)) {
+            final String resourceName = CONTROL.toResourceName(CONTROL.toBundleName(interfaceClass.getName(), candidate), FILE_EXTENSION);
+            final URL url = classLoader != null ? classLoader.getResource(resourceName) : ClassLoader.getSystemResource(resourceName);
+            if (url == null) {
+                continue;
+            }
+            try {
+                catalogs.add(load(url, mapped));
+            } catch (final IOException e) {
+                throw new ReloadBundleException(String.format("Cannot read the catalog \"%s\"", url), e);
+            }
+        }
+        if (catalogs.isEmpty()) {
+            throw new ReloadBundleException(
+                    String.format("Cannot find catalogs for the bundle \"%s\" and locale \"%s\"", interfaceClass.getName(), locale));
+        }
+        return catalogs.toArray(new BundleCatalog[catalogs.size()]);
+    }
+
+    /**
+     * Loads the catalog from the resource. The file resources are read by one bulk read or mapped into memory, the
+     * other resources (e.g. stored in JAR files) are always read into a heap buffer.
+     * @param url the resource URL.
+     * @param mapped whether the file resources should be mapped into memory instead of being read.
+     * @return the catalog.
+     * @throws IOException if an I/O error occurred.
+     * @throws ReloadBundleException if the resource does not contain a correct catalog.
+     * @since 1.3.1
+     */
+    static BundleCatalog load(final URL url, final boolean mapped) throws IOException {
+        if ("file".equals(url.getProtocol())) {
+            return read(readFile(toFile(url), mapped));
+        }
+
+        final URLConnection connection = url.openConnection();
+        final int length = connection.getContentLength();
+        final InputStream stream = connection.getInputStream();
+        try {
+            final ReadableByteChannel channel = Channels.newChannel(stream);
+            // one additional byte, so the end of the stream is detected without growing the buffer
+            ByteBuffer buffer = ByteBuffer.allocate(length >= 0 ? length + 1 : 8192);
+            while (channel.read(buffer) >= 0) {
+                if (!buffer.hasRemaining()) {
+                    final ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                    buffer.flip();
+                    larger.put(buffer);
+                    buffer = larger;
+                }
+            }
+            buffer.flip();
+            return read(buffer);
+        } finally {
+            stream.close();
+        }
+    }
+
+    private static ByteBuffer readFile(final File file, final boolean mapped) throws IOException {
+        final FileInputStream stream = new FileInputStream(file);
+        try {
+            final FileChannel channel = stream.getChannel();
+            if (mapped) {
+                // the mapping stays valid after the channel is closed
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            final ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // reads the whole file
+            }
+            buffer.flip();
+            return buffer;
+        } finally {
+            stream.close();
+        }
+    }
+
+    private static File toFile(final URL url) {
+        try {
+            return new File(url.toURI());
+        } catch (final URISyntaxException e) {
+            return new File(url.getPath());
+        }
+    }
+
+    /**
+     * Returns the value associated with the key.
+     * @param key the key.
+     * @return the value or {@code null} if the catalog does not contain the key.
+     * @throws ReloadBundleException if the catalog is corrupted.
+     * @since 1.3.1
+     */
+    String get(final String key) {
+        final byte[] keyBytes = toBytes(key);
+        try {
+            int bucket = hash(keyBytes) & tableMask;
+            // linear probing, the correct table always contains an empty bucket
+            for (int probe = 0; probe <= tableMask; ++probe, bucket = (bucket + 1) & tableMask) {
+                final int entry = buffer.getInt(tableOffset + bucket * 4);
+                if (entry == 0) {
+                    return null;
+                }
+                final int entryOffset = entriesOffset + (entry - 1) * 8;
+                if (compare(buffer.getInt(entryOffset), keyBytes) == 0) {
+                    final int valueOffset = buffer.getInt(entryOffset + 4);
+                    final ByteBuffer data = buffer.duplicate();
+                    data.position(valueOffset + 4);
+                    return readString(data, buffer.getInt(valueOffset));
+                }
+            }
+        } catch (final RuntimeException e) {
+            throw new ReloadBundleException("The bundle catalog is corrupted", e);
+        }
+        return null;
+    }
+
+    private int compare(final int keyOffset, final byte[] keyBytes) {
+        final int length = buffer.getInt(keyOffset);
+        final int start = keyOffset + 4;
+        final int common = Math.min(length, keyBytes.length);
+        for (int i = 0; i < common; ++i) {
+            final int difference = (buffer.get(start + i) & 0xFF) - (keyBytes[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - keyBytes.length;
+    }
+
+    /**
+     * Writes the translations in the catalog format.
+     * @param translations the translations.
+     * @param stream the output stream (it is not closed by the method).
+     * @throws IOException if an I/O error occurred.
+     * @since 1.3.1
+     */
+    static void write(final Map<String, String> translations, final OutputStream stream) throws IOException {
+        final byte[][] keys = new byte[translations.size()][];
+        int index = 0;
+        for (final String key : translations.keySet()) {
+            keys[index++] = toBytes(key);
+        }
+        Arrays.sort(keys, new Comparator<byte[]>() {
+
+            public int compare(final byte[] key1, final byte[] key2) {
+                final int common = Math.min(key1.length, key2.length);
+                for (int i = 0; i < common; ++i) {
+                    final int difference = (key1[i] & 0xFF) - (key2[i] & 0xFF);
+                    if (difference != 0) {
+                        return difference;
+                    }
+                }
+                return key1.length - key2.length;
+            }
+        });
+        final byte[][] values = new byte[keys.length][];
+        for (int i = 0; i < keys.length; ++i) {
+            values[i] = toBytes(translations.get(new String(keys[i], ENCODING)));
+        }
+
+        final DataOutputStream output = new DataOutputStream(stream);
+        output.writeInt(MAGIC);
+        output.writeInt(keys.length);
+        final int[] table = createHashTable(keys);
+        output.writeInt(table.length);
+        for (final int entry : table) {
+            output.writeInt(entry);
+        }
+        int offset = 4 + 4 + 4 + table.length * 4 + keys.length * 8;
+        for (int i = 0; i < keys.length; ++i) {
+            output.writeInt(offset);
+            offset += 4 + keys[i].length;
+            output.writeInt(offset);
+            offset += 4 + values[i].length;
+        }
+        for (int i = 0; i < keys.length; ++i) {
+            output.writeInt(keys[i].length);
+            output.write(keys[i]);
+            output.writeInt(values[i].length);
+            output.write(values[i]);
+        }
+        output.flush();
+    }
+
+    private static int[] createHashTable(final byte[][] keys) {
+        // at most half of the buckets are used, so the probe sequences stay short
+        int size = 1;
+        while (size <= keys.length * 2) {
+            size <<= 1;
+        }
+        final int[] table = new int[size];
+        for (int i = 0; i < keys.length; ++i) {
+            int bucket = hash(keys[i]) & size - 1;
+            while (table[bucket] != 0) {
+                bucket = (bucket + 1) & size - 1;
+            }
+            table[bucket] = i + 1;
+        }
+        return table;
+    }
+
+    private static int hash(final byte[] bytes) {
+        // FNV-1a
+        int hash = 0x811C9DC5;
+        for (final byte value : bytes) {
+            hash ^= value & 0xFF;
+            hash *= 0x01000193;
+        }
+        return hash;
+    }
+
+    private static String readString(final ByteBuffer data, final int length) {
+        final byte[] bytes = new byte[length];
+        data.get(bytes);
+        try {
+            return new String(bytes, ENCODING);
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] toBytes(final String text) {
+        try {
+            return text.getBytes(ENCODING);
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * <p>
+ * Compiles properties files into binary catalogs read by {@link CatalogBundleFactory}. Each
+ * {@code name.properties} file is compiled into {@code name.catalog} file stored in the same relative path of the
+ * output directory, so the catalogs are resolved by the same names as the properties files.
+ * </p>
+ * <p>
+ * The compiler is intended to be run as a build step, e.g. by the {@code maven-antrun-plugin} after the resources are
+ * copied:
+ * </p>
+ *
+ * <pre>
+ * &lt;java classname="biz.gabrys.easybundle.BundleCatalogCompiler" classpathref="maven.compile.classpath" fork="true" failonerror="true"&gt;
+ *     &lt;arg value="${project.build.outputDirectory}" /&gt;
+ * &lt;/java&gt;
+ * </pre>
+ * @since 1.3.1
+ * @see CatalogBundleFactory
+ */
+public final class BundleCatalogCompiler {
+
+    private static final String PROPERTIES_EXTENSION = ".properties";
+
+    private BundleCatalogCompiler() {
+        // blocks the possibility of create a new instance
+    }
+
+    /**
+     * Compiles properties files stored in the directory (the first argument) into the output directory (the second
+     * argument or the source directory if it is not specified).
+     * @param args the arguments.
+     * @throws IOException if an I/O error occurred.
+     * @throws IllegalArgumentException if the number of arguments is incorrect.
+     * @since 1.3.1
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            throw new IllegalArgumentException("Usage: BundleCatalogCompiler sourceDirectory [outputDirectory]");
+        }
+        final File sourceDirectory = new File(args[0]);
+        compile(sourceDirectory, args.length == 2 ? new File(args[1]) : sourceDirectory);
+    }
+
+    /**
+     * Compiles all properties files stored in the directory and its subdirectories.
+     * @param sourceDirectory the directory which contains properties files.
+     * @param outputDirectory the directory in which catalogs will be stored.
+     * @return the number of compiled files.
+     * @throws IllegalArgumentException if the source directory is {@code null}.
+     * @throws IllegalArgumentException if the output directory is {@code null}.
+     * @throws IOException if an I/O error occurred.
+     * @since 1.3.1
+     */
+    public static int compile(final File sourceDirectory, final File outputDirectory) throws IOException {
+        if (sourceDirectory == null) {
+            throw new IllegalArgumentException("Source directory cannot be null");
+        }
+        if (outputDirectory == null) {
+            throw new IllegalArgumentException("Output directory cannot be null");
+        }
+
+        int compiled = 0;
+        final File[] files = sourceDirectory.listFiles();
+        if (files == null) {
+            return compiled;
+        }
+        for (final File file : files) {
+            if (file.isDirectory()) {
+                compiled += compile(file, new File(outputDirectory, file.getName()));
+            } else if (file.getName().endsWith(PROPERTIES_EXTENSION)) {
+                final String name = file.getName().substring(0, file.getName().length() - PROPERTIES_EXTENSION.length());
+                compileFile(file, new File(outputDirectory, name + '.' + BundleCatalog.FILE_EXTENSION));
+                ++compiled;
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * Compiles the properties file into the catalog.
+     * @param propertiesFile the properties file.
+     * @param catalogFile the catalog file.
+     * @throws IllegalArgumentException if the properties file is {@code null}.
+     * @throws IllegalArgumentException if the catalog file is {@code null}.
+     * @throws IOException if an I/O error occurred.
+     * @since 1.3.1
+     */
+    public static void compileFile(final File propertiesFile, final File catalogFile) throws IOException {
+        if (propertiesFile == null) {
+            throw new IllegalArgumentException("Properties file cannot be null");
+        }
+        if (catalogFile == null) {
+            throw new IllegalArgumentException("Catalog file cannot be null");
+        }
+
+        final Properties properties = new Properties();
+        final InputStream input = new FileInputStream(propertiesFile);
+        try {
+            properties.load(input);
+        } finally {
+            input.close();
+        }
+        final Map<String, String> translations = new HashMap<String, String>();
+        for (final String key : properties.stringPropertyNames()) {
+            translations.put(key, properties.getProperty(key));
+        }
+
+        final File directory = catalogFile.getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException(String.format("Cannot create the directory \"%s\"", directory));
+        }
+        final OutputStream output = new BufferedOutputStream(new FileOutputStream(catalogFile));
+        try {
+            BundleCatalog.write(translations, output);
+        } finally {
+            output.close();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Invocation handler of the bundle proxies created by the factories which resolve the translations of each
+ * (interface, locale) pair into an array indexed by the {@link InterfaceDescriptor#getSlot(Method) slots} of the
+ * getters. The handler publishes a new {@link BundleSnapshot} on each locale change, so a getter call is one array
+ * load. Subclasses only load the arrays.
+ * @since 1.3.1
+ */
+abstract class BundleInvocationHandler implements InvocationHandler {
+
+    private final Class<?> interfaceClass;
+    private final InterfaceDescriptor descriptor;
+    private final MissingTranslationCache missingTranslations;
+    private final AtomicReference<BundleSnapshot> snapshot;
+    private final AtomicReference<BundleSnapshot> prepared;
+
+    /**
+     * Constructs a new instance.
+     * @param descriptor the descriptor of the bundle interface.
+     * @param missingTranslations the cache of the values used instead of the undefined translations.
+     * @param locale the bundle locale.
+     * @since 1.3.1
+     */
+    BundleInvocationHandler(final InterfaceDescriptor descriptor, final MissingTranslationCache missingTranslations,
+            final Locale locale) {
+        interfaceClass = descriptor.getInterfaceClass();
+        this.descriptor = descriptor;
+        this.missingTranslations = missingTranslations;
+        snapshot = new AtomicReference<BundleSnapshot>(new BundleSnapshot(locale));
+        prepared = new AtomicReference<BundleSnapshot>();
+    }
+
+    /**
+     * Creates the bundle proxy which implements the bundle interface, {@link PreparableBundle}, {@link SnapshotBundle}
+     * and {@link EncodedBundle}.
+     * @return the bundle.
+     * @since 1.3.1
+     */
+    final Bundle createBundle() {
+        return (Bundle) Proxy.newProxyInstance(interfaceClass.getClassLoader(), new Class<?>[] { interfaceClass, PreparableBundle.class,
+                SnapshotBundle.class, EncodedBundle.class }, this);
+    }
+
+    /**
+     * Loads the values of the interface for the locale.
+     * @param locale the locale.
+     * @return the values indexed by slots ({@code null} elements mean undefined translations). The array is shared, so
+     *         it must not be modified by the handler.
+     * @throws ReloadBundleException if error occurred while loading values.
+     * @since 1.3.1
+     */
+    protected abstract String[] loadValues(Locale locale);
+
+    /**
+     * Finds the value which is not stored in the {@link #loadValues(Locale) loaded} array (e.g. because the values are
+     * decoded on demand). The default implementation returns {@code null}.
+     * @param locale the locale.
+     * @param slot the slot.
+     * @return the value or {@code null} if the translation is undefined.
+     * @since 1.3.1
+     */
+    protected String findValue(final Locale locale, final int slot) {
+        return null;
+    }
+
+    /**
+     * Returns the generation of the loaded values. When the generation changes (e.g. the translations were reloaded),
+     * then the handler loads the values again. The default implementation returns {@code 0}.
+     * @return the generation.
+     * @since 1.3.1
+     */
+    protected int getGeneration() {
+        return 0;
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws IOException {
+        final int slot = descriptor.getSlot(method);
+        if (slot >= 0) {
+            return getValue(slot, args);
+
+        } else if (Bundle.CHANGE_LANGUAGE_METHOD_NAME.equals(method.getName())) {
+            setLocale((Locale) args[0]);
+            return null;
+
+        } else if (SnapshotBundle.SNAPSHOT_METHOD_NAME.equals(method.getName())) {
+            return snapshot(getSnapshot());
+
+        } else if (EncodedBundle.WRITE_VALUE_METHOD_NAME.equals(method.getName())
+                || EncodedBundle.APPEND_VALUE_METHOD_NAME.equals(method.getName())) {
+            return encode(getSnapshot()).invoke(method, args);
+
+        } else if (PreparableBundle.PREPARE_LANGUAGE_METHOD_NAME.equals(method.getName())) {
+            prepared.set(load((Locale) args[0]));
+            return null;
+
+        } else if (PreparableBundle.DISCARD_PREPARED_LANGUAGE_METHOD_NAME.equals(method.getName())) {
+            prepared.set(null);
+            return null;
+        }
+
+        throw new InvalidInterfaceException(
+                String.format("Definition of the bundle interface \"%s\" is invalid (unsupported method: \"%s\")",
+                        interfaceClass.getName(), method.getName()));
+    }
+
+    private void setLocale(final Locale locale) {
+        final BundleSnapshot preparedSnapshot = prepared.getAndSet(null);
+        if (preparedSnapshot != null && preparedSnapshot.getLocale().equals(locale)) {
+            snapshot.set(preparedSnapshot);
+        } else {
+            snapshot.set(new BundleSnapshot(locale));
+        }
+    }
+
+    /**
+     * Returns the translation stored in the slot for the current locale.
+     * @param slot the slot of the getter.
+     * @param args the arguments of the getter or {@code null} if it has no parameters.
+     * @return the translation formatted with the arguments.
+     * @throws ReloadBundleException if error occurred while loading translations.
+     * @throws UndefinedTranslationException if the translation is undefined.
+     * @since 1.3.1
+     */
+    String getValue(final int slot, final Object[] args) {
+        final BundleSnapshot current = getSnapshot();
+        final Locale locale = current.getLocale();
+        String value = current.getValues()[slot];
+        if (value == null) {
+            value = findValue(locale, slot);
+            if (value == null) {
+                value = missingTranslations.get(interfaceClass, descriptor.getKey(slot), locale);
+            }
+        }
+        return args == null ? value : MessageTemplate.format(value, locale, args);
+    }
+
+    private Map<String, String> snapshot(final BundleSnapshot current) {
+        Map<String, String> map = current.getMap();
+        if (map == null) {
+            final String[] values = current.getValues().clone();
+            for (int slot = 0; slot < values.length; ++slot) {
+                if (values[slot] == null) {
+                    values[slot] = findValue(current.getLocale(), slot);
+                }
+            }
+            map = BundleValuesMap.create(descriptor, values, current.getLocale(), missingTranslations);
+            current.setMap(map);
+        }
+        return map;
+    }
+
+    private EncodedValues encode(final BundleSnapshot current) {
+        EncodedValues encoded = current.getEncoded();
+        if (encoded == null) {
+            encoded = new EncodedValues(descriptor, snapshot(current), current.getLocale(), missingTranslations);
+            current.setEncoded(encoded);
+        }
+        return encoded;
+    }
+
+    private BundleSnapshot getSnapshot() {
+        final BundleSnapshot current = snapshot.get();
+        if (current.getValues() != null && current.getGeneration() == getGeneration()) {
+            return current;
+        }
+        final BundleSnapshot resolved = load(current.getLocale());
+        // the locale could be changed in the meantime, then the newer snapshot wins
+        snapshot.compareAndSet(current, resolved);
+        return resolved;
+    }
+
+    private BundleSnapshot load(final Locale locale) {
+        // the generation is read first, so the values loaded concurrently with a reload are loaded again later
+        final int generation = getGeneration();
+        return new BundleSnapshot(locale, loadValues(locale), generation);
+    }
+}
@@ -12,24 +12,48 @@
  */
 package biz.gabrys.easybundle;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
+ * <p>
  * Default implementation of {@link BundleManager}.
+ * </p>
+ * <p>
+ * The manager changes the locale in two phases. Firstly it {@link PreparableBundle#prepareLocale(Locale) prepares}
+ * all bundles which implement {@link PreparableBundle} (in parallel, when the manager was created with an
+ * {@link Executor}). Secondly it sets the new locale in all bundles. If an error occurs while preparing, then none of
+ * the bundles is changed, the prepared translations are discarded and the manager keeps the previous locale. Concurrent
+ * locale changes are serialised, so they do not overwrite translations prepared by each other.
+ * </p>
  * @since 1.0
  */
-public class BundleManagerImpl implements BundleManager {
+public class BundleManagerImpl implements ExtendedBundleManager {
+
+    // the maximum number of cached bundles with fixed locales which return all translations
+    private static final int MAX_CACHED_SNAPSHOT_BUNDLES = 256;
 
     private final Object mutex = new Object();
+    // held while the locale is changed, so concurrent changes do not overwrite translations prepared by each other
+    private final Object changeMutex = new Object();
 
     private final BundleFactory factory;
-    private final Map<Class<?>, Bundle> bundles;
-    private final Set<BundleReloadListener> listeners;
-    private Locale currentLocale;
+    private final Executor executor;
+    private final ConcurrentMap<Class<?>, Bundle> bundles;
+    private final ConcurrentMap<Class<?>, FutureTask<Bundle>> creations;
+    private final BundleReloadListeners listeners;
+    private final LocaleCache<Class<?>, Bundle> snapshotBundles;
+    private volatile Locale currentLocale;
 
     /**
      * Constructs a new instance of {@link BundleManagerImpl} and sets current locale with value of default locale for
@@ -51,21 +75,50 @@ public class BundleManagerImpl implements BundleManager {
      * @since 1.0
      */
     public BundleManagerImpl(final BundleFactory factory, final Locale locale) {
+        this(factory, locale, new CallerThreadExecutor());
+    }
+
+    /**
+     * Constructs a new instance of {@link BundleManagerImpl} and sets current locale.
+     * @param factory bundle factory.
+     * @param locale the current locale.
+     * @param executor the executor used to prepare bundles in parallel while changing the locale (the bundles rejected
+     *            by the executor are prepared by the calling thread).
+     * @throws IllegalArgumentException if the factory is {@code null}.
+     * @throws IllegalArgumentException if the locale is {@code null}.
+     * @throws IllegalArgumentException if the executor is {@code null}.
+     * @since 1.3.1
+     * @see #setLocale(Locale)
+     */
+    public BundleManagerImpl(final BundleFactory factory, final Locale locale, final Executor executor) {
         if (factory == null) {
             throw new IllegalArgumentException("Factory cannot be null");
         }
         if (locale == null) {
             throw new IllegalArgumentException("Locale cannot be null");
         }
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
 
         bundles = new ConcurrentHashMap<Class<?>, Bundle>();
-        listeners = new HashSet<BundleReloadListener>();
+        creations = new ConcurrentHashMap<Class<?>, FutureTask<Bundle>>();
+        listeners = new BundleReloadListeners();
+        snapshotBundles = new LocaleCache<Class<?>, Bundle>(MAX_CACHED_SNAPSHOT_BUNDLES, false) {
+
+            @Override
+            protected Bundle load(final Class<?> interfaceClass, final Locale locale) {
+                return factory.create(interfaceClass, locale);
+            }
+        };
         this.factory = factory;
+        this.executor = executor;
         currentLocale = locale;
     }
 
     /**
-     * {@inheritDoc}
+     * {@inheritDoc} If an error occurs while preparing the bundles, then the bundles and the manager keep the previous
+     * locale.
      * @throws IllegalArgumentException if the locale is {@code null}.
      * @since 1.0
      * @see #getLocale()
@@ -77,15 +130,51 @@ public class BundleManagerImpl implements BundleManager {
             throw new IllegalArgumentException("Locale cannot be null");
         }
 
-        synchronized (mutex) {
-            for (final Bundle bundle : bundles.values()) {
-                bundle.setLocale(locale);
+        synchronized (changeMutex) {
+            prepareBundles(locale);
+            synchronized (mutex) {
+                for (final Bundle bundle : bundles.values()) {
+                    bundle.setLocale(locale);
+                }
+                currentLocale = locale;
+            }
+        }
+        listeners.notifyListeners();
+    }
+
+    private void prepareBundles(final Locale locale) {
+        final List<PreparableBundle> preparables = new ArrayList<PreparableBundle>();
+        final List<FutureTask<Object>> preparations = new ArrayList<FutureTask<Object>>();
+        for (final Bundle bundle : bundles.values()) {
+            if (bundle instanceof PreparableBundle) {
+                final FutureTask<Object> preparation = new FutureTask<Object>(new BundlePreparer((PreparableBundle) bundle, locale));
+                preparables.add((PreparableBundle) bundle);
+                preparations.add(preparation);
+                try {
+                    executor.execute(preparation);
+                } catch (final RejectedExecutionException e) {
+                    // the executor is saturated or shut down, so the bundle is prepared by the calling thread
+                    preparation.run();
+                }
             }
-            currentLocale = locale;
-            for (final BundleReloadListener listener : listeners) {
-                listener.onBundleReload();
+        }
+
+        RuntimeException exception = null;
+        for (final FutureTask<Object> preparation : preparations) {
+            try {
+                Futures.getResult(preparation);
+            } catch (final RuntimeException e) {
+                if (exception == null) {
+                    exception = e;
+                }
             }
         }
+        if (exception != null) {
+            for (final PreparableBundle bundle : preparables) {
+                bundle.discardPreparedLocale();
+            }
+            throw exception;
+        }
     }
 
     /**
@@ -95,9 +184,7 @@ public class BundleManagerImpl implements BundleManager {
      */
     @Override
     public Locale getLocale() {
-        synchronized (mutex) {
-            return currentLocale;
-        }
+        return currentLocale;
     }
 
     /**
@@ -113,15 +200,73 @@ public class BundleManagerImpl implements BundleManager {
             throw new IllegalArgumentException("Interface class cannot be null");
         }
 
-        synchronized (mutex) {
-            if (bundles.containsKey(interfaceClass)) {
-                return (E) bundles.get(interfaceClass);
-            }
-
-            final Bundle bundle = factory.create(interfaceClass, currentLocale);
-            bundles.put(interfaceClass, bundle);
+        final Bundle bundle = bundles.get(interfaceClass);
+        if (bundle != null) {
             return (E) bundle;
         }
+        return (E) createBundle(interfaceClass);
+    }
+
+    private Bundle createBundle(final Class<?> interfaceClass) {
+        final FutureTask<Bundle> task = new FutureTask<Bundle>(new BundleCreator(interfaceClass));
+        FutureTask<Bundle> creation = creations.putIfAbsent(interfaceClass, task);
+        if (creation == null) {
+            creation = task;
+            task.run();
+        }
+        try {
+            return Futures.getResult(creation);
+        } finally {
+            creations.remove(interfaceClass, creation);
+        }
+    }
+
+    /**
+     * {@inheritDoc} The translations are returned by bundles created for the locale (the bundles are cached and their
+     * locale is never changed).
+     * @since 1.3.1
+     */
+    @Override
+    public Map<String, String> getValues(final Class<?> interfaceClass, final Locale locale) {
+        if (interfaceClass == null) {
+            throw new IllegalArgumentException("Interface class cannot be null");
+        }
+        if (locale == null) {
+            throw new IllegalArgumentException("Locale cannot be null");
+        }
+
+        return BundleValuesMap.snapshot(interfaceClass, snapshotBundles.get(interfaceClass, locale));
+    }
+
+    /**
+     * {@inheritDoc} The locales are resolved by the executor passed to the constructor (by the calling thread when the
+     * manager was created without an executor).
+     * @since 1.3.1
+     */
+    @Override
+    public Map<Locale, Map<String, String>> getValues(final Class<?> interfaceClass, final Collection<String> keys,
+            final Collection<Locale> locales) {
+        return BundleValuesBatch.getValues(this, interfaceClass, keys, locales, executor);
+    }
+
+    /**
+     * {@inheritDoc} The locales are loaded by the executor passed to the constructor (by the calling thread when the
+     * manager was created without an executor). The translations are loaded by temporary bundles, so the bundles
+     * managed by the manager are not changed.
+     * @since 1.3.1
+     */
+    @Override
+    public Future<BundlePreloadReport> preload(final Collection<Class<?>> interfaceClasses, final Collection<Locale> locales) {
+        return BundlePreloader.preload(interfaceClasses, locales, executor, new BundlePreloader.BundleLoader() {
+
+            public void load(final Class<?> interfaceClass, final Locale locale) {
+                final Bundle bundle = factory.create(interfaceClass, locale);
+                if (bundle instanceof PreparableBundle) {
+                    // the factories cache loaded translations, so the bundles created later do not read files
+                    ((PreparableBundle) bundle).prepareLocale(locale);
+                }
+            }
+        });
     }
 
     /**
@@ -135,9 +280,25 @@ public class BundleManagerImpl implements BundleManager {
             throw new IllegalArgumentException("Listener cannot be null");
         }
 
-        synchronized (mutex) {
-            listeners.add(listener);
+        listeners.register(listener, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws IllegalArgumentException if the listener is {@code null}.
+     * @throws IllegalArgumentException if the executor is {@code null}.
+     * @since 1.3.1
+     */
+    @Override
+    public void register(final BundleReloadListener listener, final Executor executor) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
         }
+
+        listeners.register(listener, executor);
     }
 
     /**
@@ -146,9 +307,7 @@ public class BundleManagerImpl implements BundleManager {
      */
     @Override
     public void unregister(final BundleReloadListener listener) {
-        synchronized (mutex) {
-            listeners.remove(listener);
-        }
+        listeners.unregister(listener);
     }
 
     /**
@@ -157,8 +316,50 @@ public class BundleManagerImpl implements BundleManager {
      */
     @Override
     public void unregisterAll() {
-        synchronized (mutex) {
-            listeners.clear();
+        listeners.unregisterAll();
+    }
+
+    private final class BundleCreator implements Callable<Bundle> {
+
+        private final Class<?> interfaceClass;
+
+        private BundleCreator(final Class<?> interfaceClass) {
+            this.interfaceClass = interfaceClass;
+        }
+
+        public Bundle call() {
+            // the bundle could be created by other thread between the cache check and the creation registration
+            final Bundle cached = bundles.get(interfaceClass);
+            if (cached != null) {
+                return cached;
+            }
+
+            final Locale locale = currentLocale;
+            final Bundle bundle = factory.create(interfaceClass, locale);
+            synchronized (mutex) {
+                // the locale could be changed while the bundle was created
+                if (!locale.equals(currentLocale)) {
+                    bundle.setLocale(currentLocale);
+                }
+                bundles.put(interfaceClass, bundle);
+            }
+            return bundle;
+        }
+    }
+
+    private static final class BundlePreparer implements Callable<Object> {
+
+        private final PreparableBundle bundle;
+        private final Locale locale;
+
+        private BundlePreparer(final PreparableBundle bundle, final Locale locale) {
+            this.bundle = bundle;
+            this.locale = locale;
+        }
+
+        public Object call() {
+            bundle.prepareLocale(locale);
+            return null;
         }
     }
 }
@@ -0,0 +1,93 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The result of {@link ExtendedBundleManager#preload(Collection, Collection) preloading} bundles. Contains load times of the
+ * preloaded locales.
+ * @since 1.3.1
+ */
+public final class BundlePreloadReport {
+
+    private final List<Class<?>> interfaceClasses;
+    private final Map<Locale, Long> loadTimes;
+
+    /**
+     * Constructs a new instance of {@link BundlePreloadReport}.
+     * @param interfaceClasses the preloaded bundle interface classes.
+     * @param loadTimes the load times of the locales in nanoseconds.
+     * @since 1.3.1
+     */
+    BundlePreloadReport(final Collection<Class<?>> interfaceClasses, final Map<Locale, Long> loadTimes) {
+        this.interfaceClasses = Collections.unmodifiableList(new ArrayList<Class<?>>(interfaceClasses));
+        this.loadTimes = Collections.unmodifiableMap(new LinkedHashMap<Locale, Long>(loadTimes));
+    }
+
+    /**
+     * Returns the preloaded bundle interface classes.
+     * @return the unmodifiable list of the interface classes.
+     * @since 1.3.1
+     */
+    public List<Class<?>> getInterfaceClasses() {
+        return interfaceClasses;
+    }
+
+    /**
+     * Returns the preloaded locales.
+     * @return the unmodifiable set of the locales.
+     * @since 1.3.1
+     */
+    public Set<Locale> getLocales() {
+        return loadTimes.keySet();
+    }
+
+    /**
+     * Returns the time of loading all bundles for the locale.
+     * @param locale the preloaded locale.
+     * @param unit the time unit of the returned value.
+     * @return the load time.
+     * @throws IllegalArgumentException if the locale was not preloaded.
+     * @throws IllegalArgumentException if the unit is {@code null}.
+     * @since 1.3.1
+     */
+    public long getLoadTime(final Locale locale, final TimeUnit unit) {
+        final Long time = loadTimes.get(locale);
+        if (time == null) {
+            throw new IllegalArgumentException(String.format("Locale \"%s\" was not preloaded", locale));
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("Unit cannot be null");
+        }
+        return unit.convert(time, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("BundlePreloadReport[interfaces=").append(interfaceClasses.size());
+        for (final Map.Entry<Locale, Long> entry : loadTimes.entrySet()) {
+            builder.append(", ").append(entry.getKey()).append('=')
+                    .append(TimeUnit.NANOSECONDS.toMillis(entry.getValue())).append("ms");
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Preloads bundles for the {@link BundleManager} implementations. Each locale is loaded by a separate task executed by
+ * the executor. The returned {@link Future} is completed by the task which finishes as the last one, so the caller is
+ * never blocked by the executor. A locale whose task is rejected by the executor is recorded as failed, so the future
+ * is completed with the {@link RejectedExecutionException}.
+ * @since 1.3.1
+ */
+final class BundlePreloader {
+
+    private BundlePreloader() {
+        // blocks the possibility of create a new instance
+    }
+
+    /**
+     * Validates the interfaces and starts loading the bundles.
+     * @param interfaceClasses the bundle interface classes.
+     * @param locales the locales.
+     * @param executor the executor which loads the locales.
+     * @param loader the loader which loads a bundle for an interface and a locale.
+     * @return the future report.
+     * @throws IllegalArgumentException if the collections are {@code null} or contain {@code null}.
+     * @throws InvalidInterfaceException if an interface declaration is incorrect.
+     * @since 1.3.1
+     */
+    static Future<BundlePreloadReport> preload(final Collection<Class<?>> interfaceClasses, final Collection<Locale> locales,
+            final Executor executor, final BundleLoader loader) {
+        if (interfaceClasses == null) {
+            throw new IllegalArgumentException("Interface classes cannot be null");
+        }
+        if (locales == null) {
+            throw new IllegalArgumentException("Locales cannot be null");
+        }
+        for (final Class<?> interfaceClass : interfaceClasses) {
+            BundleValidator.validateInterface(interfaceClass);
+        }
+
+        final List<Class<?>> classes = new ArrayList<Class<?>>(interfaceClasses);
+        final Map<Locale, LoadTask> loads = new LinkedHashMap<Locale, LoadTask>();
+        for (final Locale locale : new LinkedHashSet<Locale>(locales)) {
+            if (locale == null) {
+                throw new IllegalArgumentException("Locale cannot be null");
+            }
+            loads.put(locale, new LoadTask(new LocaleLoader(classes, locale, loader)));
+        }
+
+        final FutureTask<BundlePreloadReport> report = new FutureTask<BundlePreloadReport>(new ReportCreator(classes, loads));
+        if (loads.isEmpty()) {
+            report.run();
+            return report;
+        }
+        final AtomicInteger remaining = new AtomicInteger(loads.size());
+        for (final LoadTask load : loads.values()) {
+            try {
+                executor.execute(new Runnable() {
+
+                    public void run() {
+                        load.run();
+                        if (remaining.decrementAndGet() == 0) {
+                            report.run();
+                        }
+                    }
+                });
+            } catch (final RejectedExecutionException e) {
+                load.reject(e);
+                if (remaining.decrementAndGet() == 0) {
+                    report.run();
+                }
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Loads a bundle for an interface and a locale.
+     * @since 1.3.1
+     */
+    interface BundleLoader {
+
+        /**
+         * Loads the bundle, so its next use does not read any files.
+         * @param interfaceClass the bundle interface class.
+         * @param locale the locale.
+         * @throws ReloadBundleException if error occurred while loading the bundle.
+         * @since 1.3.1
+         */
+        void load(Class<?> interfaceClass, Locale locale);
+    }
+
+    private static final class LocaleLoader implements Callable<Long> {
+
+        private final List<Class<?>> interfaceClasses;
+        private final Locale locale;
+        private final BundleLoader loader;
+
+        private LocaleLoader(final List<Class<?>> interfaceClasses, final Locale locale, final BundleLoader loader) {
+            this.interfaceClasses = interfaceClasses;
+            this.locale = locale;
+            this.loader = loader;
+        }
+
+        public Long call() {
+            final long start = System.nanoTime();
+            for (final Class<?> interfaceClass : interfaceClasses) {
+                loader.load(interfaceClass, locale);
+            }
+            return System.nanoTime() - start;
+        }
+    }
+
+    private static final class LoadTask extends FutureTask<Long> {
+
+        private LoadTask(final Callable<Long> loader) {
+            super(loader);
+        }
+
+        private void reject(final RejectedExecutionException exception) {
+            setException(exception);
+        }
+    }
+
+    private static final class ReportCreator implements Callable<BundlePreloadReport> {
+
+        private final List<Class<?>> interfaceClasses;
+        private final Map<Locale, LoadTask> loads;
+
+        private ReportCreator(final List<Class<?>> interfaceClasses, final Map<Locale, LoadTask> loads) {
+            this.interfaceClasses = interfaceClasses;
+            this.loads = loads;
+        }
+
+        public BundlePreloadReport call() throws Exception {
+            final Map<Locale, Long> loadTimes = new LinkedHashMap<Locale, Long>();
+            for (final Map.Entry<Locale, LoadTask> load : loads.entrySet()) {
+                try {
+                    // all loads are finished, so the call does not block
+                    loadTimes.put(load.getKey(), load.getValue().get());
+                } catch (final ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    if (cause instanceof Exception) {
+                        throw (Exception) cause;
+                    }
+                    throw (Error) cause;
+                }
+            }
+            return new BundlePreloadReport(interfaceClasses, loadTimes);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Thread-safe list of {@link BundleReloadListener listeners} shared by the {@link BundleManager} implementations. The
+ * list is copied on write, so the listeners are notified without locking.
+ * @since 1.3.1
+ */
+final class BundleReloadListeners {
+
+    private final List<Registration> registrations = new CopyOnWriteArrayList<Registration>();
+
+    /**
+     * Adds the listener to the list. If the listener is already registered, then its previous registration is replaced.
+     * @param listener the listener.
+     * @param executor the executor which notifies the listener or {@code null} if the listener should be notified by the
+     *            calling thread.
+     * @since 1.3.1
+     */
+    void register(final BundleReloadListener listener, final Executor executor) {
+        final Registration registration = new Registration(listener, executor);
+        synchronized (registrations) {
+            registrations.remove(registration);
+            registrations.add(registration);
+        }
+    }
+
+    void unregister(final BundleReloadListener listener) {
+        synchronized (registrations) {
+            registrations.remove(new Registration(listener, null));
+        }
+    }
+
+    void unregisterAll() {
+        synchronized (registrations) {
+            registrations.clear();
+        }
+    }
+
+    /**
+     * Notifies all registered listeners.
+     * @throws UndefinedTranslationException if a bundle cannot find a translation for specified key while reloading the
+     *             listener.
+     * @since 1.3.1
+     */
+    void notifyListeners() {
+        for (final Registration registration : registrations) {
+            registration.notifyListener();
+        }
+    }
+
+    private static final class Registration implements Runnable {
+
+        private final BundleReloadListener listener;
+        private final Executor executor;
+
+        private Registration(final BundleReloadListener listener, final Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+
+        private void notifyListener() {
+            if (executor == null) {
+                listener.onBundleReload();
+            } else {
+                executor.execute(this);
+            }
+        }
+
+        public void run() {
+            listener.onBundleReload();
+        }
+
+        @Override
+        public int hashCode() {
+            return listener == null ? 0 : listener.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            final Registration other = (Registration) obj;
+            return listener == null ? other.listener == null : listener.equals(other.listener);
+        }
+    }
+}
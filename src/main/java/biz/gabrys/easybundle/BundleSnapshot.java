@@ -0,0 +1,120 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable pair of the bundle locale and the translations resolved for it, stored in the
+ * {@link InterfaceDescriptor#getSlot(java.lang.reflect.Method) slots} of the interface getters. Bundles publish a new
+ * snapshot on each locale change, so readers never have to lock. The snapshot also caches the
+ * {@link SnapshotBundle#snapshot() map} of all translations created from the resolved values and their
+ * {@link EncodedBundle encoded} form.
+ * @since 1.3.1
+ */
+final class BundleSnapshot {
+
+    private final Locale locale;
+    private final String[] values;
+    private final int generation;
+    private volatile Map<String, String> map;
+    private volatile EncodedValues encoded;
+
+    /**
+     * Constructs a new instance of {@link BundleSnapshot} with not yet resolved translations.
+     * @param locale the locale.
+     * @since 1.3.1
+     */
+    BundleSnapshot(final Locale locale) {
+        this(locale, null, 0);
+    }
+
+    /**
+     * Constructs a new instance of {@link BundleSnapshot}.
+     * @param locale the locale.
+     * @param values the translations indexed by slots ({@code null} if not yet resolved). The array must not be
+     *            modified.
+     * @param generation the {@link BundleInvocationHandler#getGeneration() generation} of the translations.
+     * @since 1.3.1
+     */
+    BundleSnapshot(final Locale locale, final String[] values, final int generation) {
+        this.locale = locale;
+        this.values = values;
+        this.generation = generation;
+    }
+
+    /**
+     * Returns the locale.
+     * @return the locale.
+     * @since 1.3.1
+     */
+    Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * Returns the translations resolved for the locale indexed by slots ({@code null} elements mean undefined
+     * translations).
+     * @return the translations or {@code null} if they have not been resolved yet.
+     * @since 1.3.1
+     */
+    String[] getValues() {
+        return values;
+    }
+
+    /**
+     * Returns the generation of the translations.
+     * @return the generation.
+     * @since 1.3.1
+     */
+    int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns the cached map of all translations.
+     * @return the map or {@code null} if it has not been created yet.
+     * @since 1.3.1
+     */
+    Map<String, String> getMap() {
+        return map;
+    }
+
+    /**
+     * Caches the map of all translations.
+     * @param map the map.
+     * @since 1.3.1
+     */
+    void setMap(final Map<String, String> map) {
+        this.map = map;
+    }
+
+    /**
+     * Returns the cached translations encoded in UTF-8.
+     * @return the translations or {@code null} if they have not been encoded yet.
+     * @since 1.3.1
+     */
+    EncodedValues getEncoded() {
+        return encoded;
+    }
+
+    /**
+     * Caches the translations encoded in UTF-8.
+     * @param encoded the translations.
+     * @since 1.3.1
+     */
+    void setEncoded(final EncodedValues encoded) {
+        this.encoded = encoded;
+    }
+}
@@ -13,13 +13,12 @@
 package biz.gabrys.easybundle;
 
 import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 
 /**
  * Contains method to checks whether interfaces are correct. Interface is correct when it meets following conditions:
  * <ul>
  * <li>is public</li>
- * <li>contains only getters method (methods without any parameters whose names start with word {@code get})</li>
+ * <li>contains only getters method (methods whose names start with word {@code get})</li>
  * <li>all methods return a {@link String} value</li>
  * </ul>
  * Example:
@@ -32,8 +31,14 @@ import java.lang.reflect.Modifier;
  *     String getTopic();
  * 
  *     String getCopyrightInformation();
+ * 
+ *     String getGreeting(String name, int count);
  * }
  * </pre>
+ * <p>
+ * Getters with parameters (since 1.3.1) return messages formatted with the arguments. The translations of such getters
+ * are {@link java.text.MessageFormat} patterns (e.g. {@code Hello {0}, you have {1} new messages}).
+ * </p>
  * 
  * @since 1.0
  */
@@ -61,29 +66,7 @@ public final class BundleValidator {
             throw new IllegalArgumentException("Interface class cannot be null");
         }
 
-        validateType(interfaceClass);
-        validateMethods(interfaceClass.getName(), interfaceClass.getMethods());
-    }
-
-    private static void validateType(final Class<?> interfaceClass) {
-        if (!interfaceClass.isInterface()) {
-            throw new InvalidInterfaceException(String.format("Given class \"%s\" is not an interface", interfaceClass.getName()));
-        }
-        if (!Modifier.isPublic(interfaceClass.getModifiers())) {
-            throw new InvalidInterfaceException(String.format("Given interface \"%s\" must be public", interfaceClass.getName()));
-        }
-    }
-
-    private static void validateMethods(final String interfaceName, final Method[] methods) {
-        if (methods.length == 0) {
-            throw new InvalidInterfaceException(String.format("Given interface \"%s\" has not specify any methods", interfaceName));
-        }
-        for (final Method method : methods) {
-            if (!isMethodCorrect(method)) {
-                throw new InvalidInterfaceException(String.format(
-                        "Given interface \"%s\" must contain only public getters method that return simple string value", interfaceName));
-            }
-        }
+        InterfaceDescriptor.get(interfaceClass).validate();
     }
 
     /**
@@ -99,6 +82,6 @@ public final class BundleValidator {
         }
 
         return method.getName().startsWith(METHOD_NAME_PREFIX) && method.getName().length() > METHOD_NAME_PREFIX.length()
-                && String.class.equals(method.getReturnType()) && method.getParameterTypes().length == 0;
+                && String.class.equals(method.getReturnType());
     }
 }
@@ -0,0 +1,147 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Shared pool of translation values loaded by the factories. Many keys have identical values in the files of related
+ * locales (e.g. {@code _en}, {@code _en_GB} and the base file) and in the files of different interfaces, so the
+ * factories replace the loaded values by their pooled copies and keep only one instance of each value.
+ * </p>
+ * <p>
+ * The pool references the values weakly, so a value is removed from the pool when no bundle uses it anymore. The pool
+ * counts the replaced copies and estimates how many bytes the replacement saved. The pool does not use a global lock,
+ * so the factories can load files concurrently.
+ * </p>
+ * @since 1.3.1
+ */
+public final class BundleValuePool {
+
+    // the approximate size of a string object plus the header of its character array
+    private static final int STRING_OVERHEAD = 40;
+
+    private static final ConcurrentMap<ValueReference, ValueReference> VALUES = new ConcurrentHashMap<ValueReference, ValueReference>();
+    private static final ReferenceQueue<String> QUEUE = new ReferenceQueue<String>();
+    private static final AtomicLong DEDUPLICATED_COUNT = new AtomicLong();
+    private static final AtomicLong SAVED_BYTES = new AtomicLong();
+
+    private BundleValuePool() {
+        // blocks the possibility of create a new instance
+    }
+
+    /**
+     * Returns the pooled copy of the value. If the pool does not contain an equal value, then the value is added to the
+     * pool.
+     * @param value the value.
+     * @return the pooled value or {@code null} if the value is {@code null}.
+     * @since 1.3.1
+     */
+    static String intern(final String value) {
+        if (value == null) {
+            return null;
+        }
+        removeCollectedValues();
+        final ValueReference reference = new ValueReference(value);
+        while (true) {
+            final ValueReference existing = VALUES.putIfAbsent(reference, reference);
+            if (existing == null) {
+                return value;
+            }
+            final String pooled = existing.get();
+            if (pooled != null) {
+                if (pooled != value) {
+                    DEDUPLICATED_COUNT.incrementAndGet();
+                    SAVED_BYTES.addAndGet(STRING_OVERHEAD + 2L * value.length());
+                }
+                return pooled;
+            }
+            // the pooled value has just been collected
+            VALUES.remove(existing, existing);
+        }
+    }
+
+    /**
+     * Returns the number of values stored in the pool.
+     * @return the number of values.
+     * @since 1.3.1
+     */
+    public static int size() {
+        removeCollectedValues();
+        return VALUES.size();
+    }
+
+    /**
+     * Returns the number of loaded values which have been replaced by their pooled copies since the application start.
+     * @return the number of replaced values.
+     * @since 1.3.1
+     */
+    public static long getDeduplicatedCount() {
+        return DEDUPLICATED_COUNT.get();
+    }
+
+    /**
+     * Returns the estimated number of bytes saved by replacing loaded values by their pooled copies since the
+     * application start. The estimation assumes that each character occupies two bytes.
+     * @return the estimated number of bytes.
+     * @since 1.3.1
+     */
+    public static long getSavedBytes() {
+        return SAVED_BYTES.get();
+    }
+
+    private static void removeCollectedValues() {
+        Reference<? extends String> reference;
+        while ((reference = QUEUE.poll()) != null) {
+            VALUES.remove(reference, reference);
+        }
+    }
+
+    /**
+     * Weak reference to a pooled value. Two references are equal if they refer to equal values, while a reference to a
+     * collected value is equal only to itself.
+     * @since 1.3.1
+     */
+    private static final class ValueReference extends WeakReference<String> {
+
+        private final int hash;
+
+        private ValueReference(final String value) {
+            super(value, QUEUE);
+            hash = value.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ValueReference)) {
+                return false;
+            }
+            final String value = get();
+            return value != null && value.equals(((ValueReference) obj).get());
+        }
+    }
+}
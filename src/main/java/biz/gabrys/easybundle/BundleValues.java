@@ -0,0 +1,111 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable values of a {@link GeneratedBundle} for one locale. The values are stored in slots assigned to the
+ * getters by the {@link GeneratedBundleType}.
+ * @since 1.3.1
+ */
+final class BundleValues {
+
+    private final GeneratedBundleType type;
+    private final Locale locale;
+    private final String[] values;
+    private volatile Map<String, String> map;
+    private volatile EncodedValues encoded;
+
+    /**
+     * Constructs a new instance of {@link BundleValues} with not yet resolved values.
+     * @param type the bundle type.
+     * @param locale the locale.
+     * @since 1.3.1
+     */
+    BundleValues(final GeneratedBundleType type, final Locale locale) {
+        this(type, locale, null);
+    }
+
+    private BundleValues(final GeneratedBundleType type, final Locale locale, final String[] values) {
+        this.type = type;
+        this.locale = locale;
+        this.values = values;
+    }
+
+    GeneratedBundleType getType() {
+        return type;
+    }
+
+    Locale getLocale() {
+        return locale;
+    }
+
+    boolean isResolved() {
+        return values != null;
+    }
+
+    /**
+     * Loads values for the locale.
+     * @return the resolved values.
+     * @throws ReloadBundleException if error occurred while loading values.
+     * @since 1.3.1
+     */
+    BundleValues resolve() {
+        return new BundleValues(type, locale, type.getValues(locale));
+    }
+
+    /**
+     * Returns a value stored in the slot.
+     * @param slot the slot index.
+     * @return the value.
+     * @throws UndefinedTranslationException if the value is undefined and the {@link MissingTranslationPolicy} throws
+     *             the exception.
+     * @since 1.3.1
+     */
+    String get(final int slot) {
+        final String value = values[slot];
+        return value != null ? value : type.getMissingValue(slot, locale);
+    }
+
+    /**
+     * Returns all values mapped by the keys of the getters. The map is created on the first call.
+     * @return the immutable map.
+     * @since 1.3.1
+     * @see SnapshotBundle#snapshot()
+     */
+    Map<String, String> toMap() {
+        Map<String, String> current = map;
+        if (current == null) {
+            current = type.createValuesMap(values, locale);
+            map = current;
+        }
+        return current;
+    }
+
+    /**
+     * Returns all values encoded in UTF-8. The values are encoded on the first call.
+     * @return the encoded values.
+     * @since 1.3.1
+     * @see EncodedBundle
+     */
+    EncodedValues toEncoded() {
+        EncodedValues current = encoded;
+        if (current == null) {
+            current = type.createEncodedValues(toMap(), locale);
+            encoded = current;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Resolves translations of many locales for the {@link ExtendedBundleManager} implementations. Each locale is resolved
+ * by a separate task executed by the executor, the calling thread waits until all tasks are finished. The tasks
+ * rejected by the executor are executed by the calling thread.
+ * @since 1.3.1
+ */
+final class BundleValuesBatch {
+
+    private BundleValuesBatch() {
+        // blocks the possibility of create a new instance
+    }
+
+    /**
+     * Resolves the translations of the keys for each locale.
+     * @param manager the manager which returns {@link ExtendedBundleManager#getValues(Class, Locale) all translations}
+     *            of a locale.
+     * @param interfaceClass the bundle interface class.
+     * @param keys the keys of the translations.
+     * @param locales the locales.
+     * @param executor the executor which resolves the locales.
+     * @return the immutable map of the locales (in the order of the collection) to the immutable maps of the keys (in
+     *         the order of the collection) to the translations.
+     * @throws IllegalArgumentException if the interface class is {@code null}.
+     * @throws IllegalArgumentException if the collections are {@code null} or contain {@code null}.
+     * @throws IllegalArgumentException if the interface does not contain a getter of a key.
+     * @throws InvalidInterfaceException if the interface declaration is incorrect.
+     * @throws ReloadBundleException if error occurred while loading translations.
+     * @since 1.3.1
+     */
+    static Map<Locale, Map<String, String>> getValues(final ExtendedBundleManager manager, final Class<?> interfaceClass,
+            final Collection<String> keys, final Collection<Locale> locales, final Executor executor) {
+        if (interfaceClass == null) {
+            throw new IllegalArgumentException("Interface class cannot be null");
+        }
+        if (keys == null) {
+            throw new IllegalArgumentException("Keys cannot be null");
+        }
+        if (locales == null) {
+            throw new IllegalArgumentException("Locales cannot be null");
+        }
+        final InterfaceDescriptor descriptor = InterfaceDescriptor.get(interfaceClass);
+        descriptor.validate();
+        final List<String> uniqueKeys = new ArrayList<String>(new LinkedHashSet<String>(keys));
+        for (final String key : uniqueKeys) {
+            if (key == null) {
+                throw new IllegalArgumentException("Key cannot be null");
+            }
+            if (descriptor.getSlot(key) < 0) {
+                throw new IllegalArgumentException(String.format("Bundle interface \"%s\" does not contain a getter of the key \"%s\"",
+                        interfaceClass.getName(), key));
+            }
+        }
+
+        final Map<Locale, FutureTask<Map<String, String>>> resolutions = new LinkedHashMap<Locale, FutureTask<Map<String, String>>>();
+        for (final Locale locale : new LinkedHashSet<Locale>(locales)) {
+            if (locale == null) {
+                throw new IllegalArgumentException("Locale cannot be null");
+            }
+            resolutions.put(locale, new FutureTask<Map<String, String>>(new LocaleResolver(manager, interfaceClass, uniqueKeys, locale)));
+        }
+        for (final FutureTask<Map<String, String>> resolution : resolutions.values()) {
+            try {
+                executor.execute(resolution);
+            } catch (final RejectedExecutionException e) {
+                // the executor is saturated or shut down, so the locale is resolved by the calling thread
+                resolution.run();
+            }
+        }
+
+        final Map<Locale, Map<String, String>> values = new LinkedHashMap<Locale, Map<String, String>>();
+        RuntimeException exception = null;
+        for (final Map.Entry<Locale, FutureTask<Map<String, String>>> resolution : resolutions.entrySet()) {
+            try {
+                values.put(resolution.getKey(), Futures.getResult(resolution.getValue()));
+            } catch (final RuntimeException e) {
+                if (exception == null) {
+                    exception = e;
+                }
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+        return Collections.unmodifiableMap(values);
+    }
+
+    private static final class LocaleResolver implements Callable<Map<String, String>> {
+
+        private final ExtendedBundleManager manager;
+        private final Class<?> interfaceClass;
+        private final List<String> keys;
+        private final Locale locale;
+
+        private LocaleResolver(final ExtendedBundleManager manager, final Class<?> interfaceClass, final List<String> keys,
+                final Locale locale) {
+            this.manager = manager;
+            this.interfaceClass = interfaceClass;
+            this.keys = keys;
+            this.locale = locale;
+        }
+
+        public Map<String, String> call() {
+            // all translations of the locale are resolved in one pass and cached by the manager
+            final Map<String, String> all = manager.getValues(interfaceClass, locale);
+            final Map<String, String> values = new LinkedHashMap<String, String>(keys.size() * 4 / 3 + 1);
+            for (final String key : keys) {
+                final String value = all.get(key);
+                if (value != null) {
+                    values.put(key, value);
+                }
+            }
+            return Collections.unmodifiableMap(values);
+        }
+    }
+}
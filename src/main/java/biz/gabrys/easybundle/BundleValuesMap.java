@@ -0,0 +1,119 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Creates the maps of translations returned by {@link SnapshotBundle#snapshot()}.
+ * @since 1.3.1
+ */
+final class BundleValuesMap {
+
+    private BundleValuesMap() {
+        // blocks the possibility of create a new instance
+    }
+
+    /**
+     * Creates the map of translations.
+     * @param descriptor the descriptor of the bundle interface.
+     * @param values the translations in the order of slots ({@code null} if a translation is undefined).
+     * @param locale the locale of the translations.
+     * @param missingTranslations the cache of the values used instead of the undefined translations.
+     * @return the immutable map.
+     * @since 1.3.1
+     */
+    static Map<String, String> create(final InterfaceDescriptor descriptor, final String[] values, final Locale locale,
+            final MissingTranslationCache missingTranslations) {
+        final Map<String, String> map = new LinkedHashMap<String, String>(values.length * 4 / 3 + 1);
+        for (int slot = 0; slot < values.length; ++slot) {
+            final String key = descriptor.getKey(slot);
+            String value = values[slot];
+            if (value == null) {
+                value = missingTranslations.find(descriptor.getInterfaceClass(), key, locale);
+            }
+            if (value != null) {
+                map.put(key, value);
+            }
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Returns all translations of the bundle. If the bundle does not implement {@link SnapshotBundle} (e.g. it was
+     * created by a custom factory), then the getters without parameters are called one by one.
+     * @param interfaceClass the bundle interface class.
+     * @param bundle the bundle.
+     * @return the immutable map.
+     * @since 1.3.1
+     */
+    static Map<String, String> snapshot(final Class<?> interfaceClass, final Bundle bundle) {
+        if (bundle instanceof SnapshotBundle) {
+            return ((SnapshotBundle) bundle).snapshot();
+        }
+        return snapshot(InterfaceDescriptor.get(interfaceClass), bundle);
+    }
+
+    /**
+     * Returns all translations of the bundle. If the bundle does not implement {@link SnapshotBundle} (e.g. it was
+     * created by a custom factory), then the getters without parameters are called one by one.
+     * @param descriptor the descriptor of the bundle interface.
+     * @param bundle the bundle.
+     * @return the immutable map.
+     * @since 1.3.1
+     */
+    static Map<String, String> snapshot(final InterfaceDescriptor descriptor, final Bundle bundle) {
+        if (bundle instanceof SnapshotBundle) {
+            return ((SnapshotBundle) bundle).snapshot();
+        }
+
+        final Class<?> interfaceClass = descriptor.getInterfaceClass();
+        final Map<String, String> map = new TreeMap<String, String>();
+        for (final Method method : interfaceClass.getMethods()) {
+            final String key = descriptor.getKey(method);
+            if (key != null && method.getParameterTypes().length == 0 && !map.containsKey(key)) {
+                final String value = invoke(method, bundle);
+                if (value != null) {
+                    map.put(key, value);
+                }
+            }
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    private static String invoke(final Method method, final Bundle bundle) {
+        if (!method.isAccessible()) {
+            // allows to call methods of not public interfaces
+            method.setAccessible(true);
+        }
+        try {
+            return (String) method.invoke(bundle);
+        } catch (final IllegalAccessException e) {
+            throw new InvalidInterfaceException(e);
+        } catch (final InvocationTargetException e) {
+            if (e.getCause() instanceof UndefinedTranslationException) {
+                return null;
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ReloadBundleException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.util.concurrent.Executor;
+
+/**
+ * {@link Executor} which runs tasks in the calling thread.
+ * @since 1.3.1
+ */
+final class CallerThreadExecutor implements Executor {
+
+    public void execute(final Runnable command) {
+        command.run();
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.util.Locale;
+
+/**
+ * <p>
+ * Implementation of {@link BundleFactory} which reads translations from binary catalogs compiled from properties files
+ * by {@link BundleCatalogCompiler}. The catalogs are named and localized as the properties files read by
+ * {@link MultiplePropertyResourceBundleFactory}, but with the {@code catalog} extension (e.g.
+ * {@code org/example/Messages_pl.catalog}), and they use the same hierarchy of locales.
+ * </p>
+ * <p>
+ * Each catalog file is read into memory by one bulk read and the translations are looked up in its hash index, so
+ * loading a locale does not parse any text. The values of the (interface, locale) pairs are cached in the same way as by
+ * {@link MultiplePropertyResourceBundleFactory}.
+ * </p>
+ * <p>
+ * How to use the factory:
+ * </p>
+ *
+ * <pre>
+ * final {@link BundleFactory} factory = new {@link CatalogBundleFactory}();
+ * final Messages bundle = (Messages) factory.{@link #create(Class, Locale) create}(Messages.class, {@link Locale}.{@link Locale#getDefault() getDefault()});
+ * </pre>
+ * @since 1.3.1
+ * @see BundleCatalogCompiler
+ * @see MappedCatalogBundleFactory
+ */
+public class CatalogBundleFactory implements BundleFactory {
+
+    /**
+     * The default maximum number of cached (interface, locale) values.
+     * @since 1.3.1
+     */
+    public static final int DEFAULT_MAX_CACHED_BUNDLES = 256;
+
+    private final LocaleCache<Class<?>, String[]> values;
+    private final MissingTranslationCache missingTranslations;
+
+    /**
+     * Constructs a new instance.
+     * @since 1.3.1
+     */
+    public CatalogBundleFactory() {
+        this(DEFAULT_MAX_CACHED_BUNDLES);
+    }
+
+    /**
+     * Constructs a new instance.
+     * @param maxCachedBundles the maximum number of cached (interface, locale) values.
+     * @throws IllegalArgumentException if the maximum number of cached values is less than 1.
+     * @since 1.3.1
+     */
+    public CatalogBundleFactory(final int maxCachedBundles) {
+        if (maxCachedBundles < 1) {
+            throw new IllegalArgumentException("Maximum number of cached bundles cannot be less than 1");
+        }
+
+        values = new LocaleCache<Class<?>, String[]>(maxCachedBundles, true) {
+
+            @Override
+            protected String[] load(final Class<?> interfaceClass, final Locale locale) {
+                return loadValues(InterfaceDescriptor.get(interfaceClass), locale);
+            }
+
+            @Override
+            protected long estimateFootprint(final String[] localeValues) {
+                long footprint = 16 + 4L * localeValues.length;
+                for (final String value : localeValues) {
+                    if (value != null) {
+                        footprint += 40 + 2L * value.length();
+                    }
+                }
+                return footprint;
+            }
+        };
+        missingTranslations = new MissingTranslationCache(new MissingTranslationCache.Lookup() {
+
+            public String find(final Class<?> interfaceClass, final String key, final Locale locale) {
+                final int slot = InterfaceDescriptor.get(interfaceClass).getSlot(key);
+                return slot >= 0 ? values.get(interfaceClass, locale)[slot] : null;
+            }
+        });
+    }
+
+    /**
+     * Returns a snapshot of statistics of the cache which stores loaded values.
+     * @return the statistics.
+     * @since 1.3.1
+     */
+    public BundleCacheStatistics getCacheStatistics() {
+        return values.getStatistics();
+    }
+
+    /**
+     * Sets the policy which decides what the bundles return when a translation is undefined. The policy should be set
+     * before the bundles are used. By default the bundles throw {@link UndefinedTranslationException}.
+     * @param policy the policy.
+     * @throws IllegalArgumentException if the policy is {@code null}.
+     * @since 1.3.1
+     * @see MissingTranslationPolicies
+     */
+    public void setMissingTranslationPolicy(final MissingTranslationPolicy policy) {
+        missingTranslations.setPolicy(policy);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws IllegalArgumentException if the interface class is {@code null}.
+     * @throws IllegalArgumentException if the locale is {@code null}.
+     * @since 1.3.1
+     * @see BundleValidator#validateInterface(Class)
+     */
+    @Override
+    public Bundle create(final Class<?> interfaceClass, final Locale locale) {
+        if (interfaceClass == null) {
+            throw new IllegalArgumentException("Interface class cannot be null");
+        }
+        if (locale == null) {
+            throw new IllegalArgumentException("Locale cannot be null");
+        }
+
+        return new BundleInvocationHandler(InterfaceDescriptor.get(interfaceClass), missingTranslations, locale) {
+
+            @Override
+            protected String[] loadValues(final Locale locale) {
+                return values.get(interfaceClass, locale);
+            }
+        }.createBundle();
+    }
+
+    private static String[] loadValues(final InterfaceDescriptor descriptor, final Locale locale) {
+        final String[] keys = descriptor.getKeys(false);
+        final String[] localeValues = new String[keys.length];
+        for (final BundleCatalog catalog : BundleCatalog.loadAll(descriptor.getInterfaceClass(), locale, false)) {
+            for (int i = 0; i < keys.length; ++i) {
+                if (localeValues[i] == null) {
+                    localeValues[i] = BundleValuePool.intern(catalog.get(keys[i]));
+                }
+            }
+        }
+        return localeValues;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * The interface implemented by bundles which can write their translations encoded in UTF-8 (e.g. to the body of an HTTP
+ * response). The translations are encoded once per locale, so writing them does not encode the strings again.
+ * @since 1.3.1
+ */
+public interface EncodedBundle extends Bundle {
+
+    /**
+     * Name of the methods which are responsible for writing the encoded translations.
+     * @since 1.3.1
+     */
+    String WRITE_VALUE_METHOD_NAME = "writeValue";
+
+    /**
+     * Name of the method which is responsible for appending the translations.
+     * @since 1.3.1
+     */
+    String APPEND_VALUE_METHOD_NAME = "appendValue";
+
+    /**
+     * Writes the translation encoded in UTF-8 to the stream. The translations of the getters with parameters are the
+     * message patterns. The translations are encoded once per locale and cached until the locale is changed or the
+     * translations are reloaded. The cached bytes are passed directly to {@link OutputStream#write(byte[], int, int)}
+     * without copying, so the stream must not modify the array or keep a reference to it after the call (the JDK streams
+     * fulfil the contract).
+     * @param key the key of the translation (the name of the getter without the "get" prefix and with the lower case
+     *            first letter).
+     * @param output the stream.
+     * @throws IOException if an I/O error occurred while writing.
+     * @throws IllegalArgumentException if the key or the stream is {@code null}.
+     * @throws IllegalArgumentException if the interface does not contain a getter of the key.
+     * @throws UndefinedTranslationException if the translation is undefined and the {@link MissingTranslationPolicy}
+     *             throws the exception.
+     * @throws ReloadBundleException if error occurred while loading translations.
+     * @since 1.3.1
+     */
+    void writeValue(String key, OutputStream output) throws IOException;
+
+    /**
+     * Puts the translation encoded in UTF-8 into the buffer at its current position. The translations are encoded once
+     * per locale and cached until the locale is changed or the translations are reloaded.
+     * @param key the key of the translation.
+     * @param buffer the buffer.
+     * @throws IllegalArgumentException if the key or the buffer is {@code null}.
+     * @throws IllegalArgumentException if the interface does not contain a getter of the key.
+     * @throws java.nio.BufferOverflowException if there is insufficient space in the buffer (the buffer is not
+     *             modified).
+     * @throws UndefinedTranslationException if the translation is undefined and the {@link MissingTranslationPolicy}
+     *             throws the exception.
+     * @throws ReloadBundleException if error occurred while loading translations.
+     * @since 1.3.1
+     * @see #writeValue(String, OutputStream)
+     */
+    void writeValue(String key, ByteBuffer buffer);
+
+    /**
+     * Appends the translation to the character sequence (e.g. a {@link java.io.Writer} which encodes the characters
+     * itself).
+     * @param key the key of the translation.
+     * @param output the character sequence.
+     * @throws IOException if an I/O error occurred while appending.
+     * @throws IllegalArgumentException if the key or the character sequence is {@code null}.
+     * @throws IllegalArgumentException if the interface does not contain a getter of the key.
+     * @throws UndefinedTranslationException if the translation is undefined and the {@link MissingTranslationPolicy}
+     *             throws the exception.
+     * @throws ReloadBundleException if error occurred while loading translations.
+     * @since 1.3.1
+     * @see #writeValue(String, OutputStream)
+     */
+    void appendValue(String key, Appendable output) throws IOException;
+}
@@ -0,0 +1,146 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable translations of a bundle for one locale encoded in UTF-8, written by the {@link EncodedBundle} methods. The
+ * translations are encoded once, when the instance is created.
+ * @since 1.3.1
+ */
+final class EncodedValues {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final InterfaceDescriptor descriptor;
+    private final Map<String, String> values;
+    private final Map<String, byte[]> bytes;
+    private final Locale locale;
+    private final MissingTranslationCache missingTranslations;
+
+    /**
+     * Constructs a new instance of {@link EncodedValues}.
+     * @param descriptor the descriptor of the bundle interface.
+     * @param values the {@link SnapshotBundle#snapshot() map} of all translations for the locale.
+     * @param locale the locale of the translations.
+     * @param missingTranslations the cache of the values used instead of the undefined translations.
+     * @since 1.3.1
+     */
+    EncodedValues(final InterfaceDescriptor descriptor, final Map<String, String> values, final Locale locale,
+            final MissingTranslationCache missingTranslations) {
+        this.descriptor = descriptor;
+        this.values = values;
+        this.locale = locale;
+        this.missingTranslations = missingTranslations;
+        bytes = new HashMap<String, byte[]>(values.size() * 4 / 3 + 1);
+        for (final Map.Entry<String, String> entry : values.entrySet()) {
+            bytes.put(entry.getKey(), entry.getValue().getBytes(UTF_8));
+        }
+    }
+
+    /**
+     * Calls the {@link EncodedBundle} method.
+     * @param method the invoked method.
+     * @param args the arguments of the method.
+     * @return {@code null}.
+     * @throws IOException if an I/O error occurred while writing.
+     * @since 1.3.1
+     */
+    Object invoke(final Method method, final Object[] args) throws IOException {
+        final String key = (String) args[0];
+        if (EncodedBundle.APPEND_VALUE_METHOD_NAME.equals(method.getName())) {
+            append(key, (Appendable) args[1]);
+        } else if (method.getParameterTypes()[1] == ByteBuffer.class) {
+            write(key, (ByteBuffer) args[1]);
+        } else {
+            write(key, (OutputStream) args[1]);
+        }
+        return null;
+    }
+
+    /**
+     * Writes the encoded translation to the stream.
+     * @param key the key of the translation.
+     * @param output the stream.
+     * @throws IOException if an I/O error occurred while writing.
+     * @since 1.3.1
+     * @see EncodedBundle#writeValue(String, OutputStream)
+     */
+    void write(final String key, final OutputStream output) throws IOException {
+        if (output == null) {
+            throw new IllegalArgumentException("Output stream cannot be null");
+        }
+        final byte[] value = getBytes(key);
+        output.write(value, 0, value.length);
+    }
+
+    /**
+     * Puts the encoded translation into the buffer.
+     * @param key the key of the translation.
+     * @param buffer the buffer.
+     * @since 1.3.1
+     * @see EncodedBundle#writeValue(String, ByteBuffer)
+     */
+    void write(final String key, final ByteBuffer buffer) {
+        if (buffer == null) {
+            throw new IllegalArgumentException("Buffer cannot be null");
+        }
+        buffer.put(getBytes(key));
+    }
+
+    /**
+     * Appends the translation to the character sequence.
+     * @param key the key of the translation.
+     * @param output the character sequence.
+     * @throws IOException if an I/O error occurred while appending.
+     * @since 1.3.1
+     * @see EncodedBundle#appendValue(String, Appendable)
+     */
+    void append(final String key, final Appendable output) throws IOException {
+        if (output == null) {
+            throw new IllegalArgumentException("Appendable cannot be null");
+        }
+        final String value = values.get(checkKey(key));
+        output.append(value != null ? value : getMissingValue(key));
+    }
+
+    private byte[] getBytes(final String key) {
+        final byte[] value = bytes.get(checkKey(key));
+        // the undefined translations are rare, so they are not cached
+        return value != null ? value : getMissingValue(key).getBytes(UTF_8);
+    }
+
+    private String checkKey(final String key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        return key;
+    }
+
+    private String getMissingValue(final String key) {
+        if (descriptor.getSlot(key) < 0) {
+            throw new IllegalArgumentException(String.format("Bundle interface \"%s\" does not contain a getter of the key \"%s\"",
+                    descriptor.getInterfaceClass().getName(), key));
+        }
+        // the map omits only the translations for which the policy throws the exception
+        return missingTranslations.get(descriptor.getInterfaceClass(), key, locale);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+/**
+ * <p>
+ * The {@link BundleManager} which additionally returns translations for other locales than the manager locale, loads
+ * bundles in advance and notifies listeners by executors. The methods are declared by the separate interface, so the
+ * implementations of {@link BundleManager} created for the previous versions of the library remain correct.
+ * </p>
+ * <p>
+ * The interface is implemented by {@link BundleManagerImpl} and {@link ThreadLocaleBundleManager}.
+ * </p>
+ * @since 1.3.1
+ */
+public interface ExtendedBundleManager extends BundleManager {
+
+    /**
+     * Returns all translations of the interface for the locale, e.g. to send a dictionary to a client. The map contains
+     * the keys of the getters mapped to the translations (the getters with parameters are mapped to the message
+     * patterns). The translations are read in one pass without calling the getters when the bundles created by the
+     * factory implement {@link SnapshotBundle}. The map is cached until the translations are reloaded.
+     * @param interfaceClass the bundle interface class which defines getters methods.
+     * @param locale the locale of the translations.
+     * @return the immutable map sorted by the names of the getters.
+     * @throws IllegalArgumentException if the interface class is {@code null}.
+     * @throws IllegalArgumentException if the locale is {@code null}.
+     * @throws InvalidInterfaceException if the interface declaration is incorrect.
+     * @throws ReloadBundleException if error occurred while loading translations.
+     * @since 1.3.1
+     * @see SnapshotBundle#snapshot()
+     */
+    Map<String, String> getValues(Class<?> interfaceClass, Locale locale);
+
+    /**
+     * Returns the translations of specified keys for many locales in one call, e.g. to render the same notification
+     * for users who use different locales. The manager locale is not changed and the listeners are not notified. Each
+     * locale is resolved by a separate task, the tasks may run in parallel. The translations of a locale are read from
+     * the {@link #getValues(Class, Locale) map of all translations}.
+     * @param interfaceClass the bundle interface class which defines getters methods.
+     * @param keys the keys of the translations (the names of the getters without the "get" prefix and with the lower
+     *            case first letter).
+     * @param locales the locales of the translations.
+     * @return the immutable map of the locales to the immutable maps of the keys to the translations. The maps keep the
+     *         order of the collections, the undefined translations are omitted.
+     * @throws IllegalArgumentException if the interface class is {@code null}.
+     * @throws IllegalArgumentException if the collections are {@code null} or contain {@code null}.
+     * @throws IllegalArgumentException if the interface does not contain a getter of a key.
+     * @throws InvalidInterfaceException if the interface declaration is incorrect.
+     * @throws ReloadBundleException if error occurred while loading translations.
+     * @since 1.3.1
+     */
+    Map<Locale, Map<String, String>> getValues(Class<?> interfaceClass, Collection<String> keys, Collection<Locale> locales);
+
+    /**
+     * Loads the bundles for specified interfaces and locales, so the first use of the bundles does not read any files.
+     * Each locale is loaded by a separate task, the tasks may run in parallel. The returned {@link Future} is completed
+     * when all locales are loaded (e.g. it can be used to gate the application readiness) and fails with the first
+     * error which occurred while loading.
+     * @param interfaceClasses the bundle interface classes.
+     * @param locales the locales to load.
+     * @return the future {@link BundlePreloadReport report} with load times of the locales.
+     * @throws IllegalArgumentException if the collections are {@code null} or contain {@code null}.
+     * @throws InvalidInterfaceException if an interface declaration is incorrect.
+     * @since 1.3.1
+     * @see BundleValidator#validateInterface(Class)
+     */
+    Future<BundlePreloadReport> preload(Collection<Class<?>> interfaceClasses, Collection<Locale> locales);
+
+    /**
+     * Adds a {@link BundleReloadListener} to the listener list. The listener will be notified by the executor (e.g. the
+     * UI thread) after the locale change, so slow listeners do not delay the {@link #setLocale(Locale)} caller.
+     * @param listener the {@link BundleReloadListener} to be added.
+     * @param executor the executor which notifies the listener.
+     * @since 1.3.1
+     */
+    void register(BundleReloadListener listener, Executor executor);
+}
@@ -0,0 +1,224 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>
+ * Parent class for all bundles created by {@link GeneratedBundleFactory}. Subclasses implement the bundle interface
+ * and each getter returns {@link #slotValue(int) value} stored in the slot assigned to the method by the factory (or the
+ * {@link #formatSlotValue(int, Object[]) formatted message} if the getter has parameters). The names of the methods
+ * called by the getters do not start with {@link BundleValidator#METHOD_NAME_PREFIX}, so they never collide with the
+ * getters of the interface.
+ * </p>
+ * <p>
+ * The class is not intended to be extended directly by the users. Its subclasses are generated at runtime by
+ * {@link GeneratedBundleFactory} or at compile time by {@link biz.gabrys.easybundle.processor.BundleProcessor}.
+ * </p>
+ * @since 1.3.1
+ * @see GeneratedBundleFactory
+ */
+public abstract class GeneratedBundle implements PreparableBundle, SnapshotBundle, EncodedBundle {
+
+    /**
+     * Suffix added to the binary name of the bundle interface to create the name of the generated class.
+     * @since 1.3.1
+     */
+    public static final String CLASS_NAME_SUFFIX = "$$EasyBundle";
+
+    private final AtomicReference<BundleValues> values = new AtomicReference<BundleValues>();
+    private final AtomicReference<BundleValues> prepared = new AtomicReference<BundleValues>();
+
+    /**
+     * Constructs a new instance.
+     * @since 1.3.1
+     */
+    protected GeneratedBundle() {
+        // do nothing
+    }
+
+    final void init(final GeneratedBundleType type, final Locale locale) {
+        values.set(new BundleValues(type, locale));
+    }
+
+    /**
+     * Creates the instance of the generated class used to {@link #newBundle() create} the bundles. It is the only
+     * instance of the class created by reflection.
+     * @param bundleClass the generated class.
+     * @return the not initialized instance.
+     * @throws InvalidInterfaceException if the class cannot be instantiated.
+     * @since 1.3.1
+     */
+    static GeneratedBundle newPrototype(final Class<? extends GeneratedBundle> bundleClass) {
+        try {
+            return bundleClass.newInstance();
+        } catch (final InstantiationException e) {
+            throw new InvalidInterfaceException(e);
+        } catch (final IllegalAccessException e) {
+            throw new InvalidInterfaceException(e);
+        }
+    }
+
+    /**
+     * Creates a new instance of the class, so the factories do not use reflection to create the bundles.
+     * @return the new (not initialized) bundle.
+     * @since 1.3.1
+     */
+    protected abstract GeneratedBundle newBundle();
+
+    /**
+     * Returns the keys of the translations in the order of slots. The classes generated at compile time return the
+     * table computed by {@link biz.gabrys.easybundle.processor.BundleProcessor}, so the metadata of the interface is
+     * created without inspecting its methods.
+     * @return the keys or {@code null} if the class was generated at runtime.
+     * @since 1.3.1
+     */
+    protected String[] keyTable() {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 1.3.1
+     */
+    @Override
+    public final void setLocale(final Locale locale) {
+        final BundleValues preparedValues = prepared.getAndSet(null);
+        if (preparedValues != null && preparedValues.getLocale().equals(locale)) {
+            values.set(preparedValues);
+        } else {
+            values.set(new BundleValues(values.get().getType(), locale));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 1.3.1
+     */
+    @Override
+    public final void prepareLocale(final Locale locale) {
+        prepared.set(new BundleValues(values.get().getType(), locale).resolve());
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 1.3.1
+     */
+    @Override
+    public final void discardPreparedLocale() {
+        prepared.set(null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 1.3.1
+     */
+    @Override
+    public final Map<String, String> snapshot() {
+        return getResolvedValues().toMap();
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 1.3.1
+     */
+    @Override
+    public final void writeValue(final String key, final OutputStream output) throws IOException {
+        getResolvedValues().toEncoded().write(key, output);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 1.3.1
+     */
+    @Override
+    public final void writeValue(final String key, final ByteBuffer buffer) {
+        getResolvedValues().toEncoded().write(key, buffer);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 1.3.1
+     */
+    @Override
+    public final void appendValue(final String key, final Appendable output) throws IOException {
+        getResolvedValues().toEncoded().append(key, output);
+    }
+
+    /**
+     * Returns a value stored in the slot.
+     * @param slot the slot index.
+     * @return the value.
+     * @throws ReloadBundleException if error occurred while loading values for the current locale.
+     * @throws UndefinedTranslationException if the value is undefined for the current locale.
+     * @since 1.3.1
+     */
+    protected final String slotValue(final int slot) {
+        return getResolvedValues().get(slot);
+    }
+
+    /**
+     * Returns a message stored in the slot formatted with the arguments.
+     * @param slot the slot index.
+     * @param arguments the arguments of the getter.
+     * @return the formatted message.
+     * @throws ReloadBundleException if error occurred while loading values for the current locale or the message
+     *             pattern is incorrect.
+     * @throws UndefinedTranslationException if the value is undefined for the current locale.
+     * @since 1.3.1
+     * @see java.text.MessageFormat
+     */
+    protected final String formatSlotValue(final int slot, final Object[] arguments) {
+        final BundleValues current = getResolvedValues();
+        return MessageTemplate.format(current.get(slot), current.getLocale(), arguments);
+    }
+
+    /**
+     * Returns a value stored in the slot, formatted with the arguments if the getter has parameters.
+     * @param slot the slot index.
+     * @param arguments the arguments of the getter or {@code null} if it has no parameters.
+     * @return the value.
+     * @since 1.3.1
+     */
+    final String resolveSlotValue(final int slot, final Object[] arguments) {
+        return arguments == null ? slotValue(slot) : formatSlotValue(slot, arguments);
+    }
+
+    private BundleValues getResolvedValues() {
+        final BundleValues current = values.get();
+        if (current.isResolved()) {
+            return current;
+        }
+        final BundleValues resolved = current.resolve();
+        // the locale could be changed in the meantime, then the newer values win
+        values.compareAndSet(current, resolved);
+        return resolved;
+    }
+
+    /**
+     * Creates an exception thrown by methods which are not correct getters.
+     * @param methodName the name of the invoked method.
+     * @return the exception.
+     * @since 1.3.1
+     */
+    protected final InvalidInterfaceException createUnsupportedMethodException(final String methodName) {
+        return new InvalidInterfaceException(String.format("Definition of the bundle interface \"%s\" is invalid (unsupported method: \"%s\")",
+                values.get().getType().getInterfaceClass().getName(), methodName));
+    }
+}
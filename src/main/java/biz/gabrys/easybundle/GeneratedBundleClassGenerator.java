@@ -0,0 +1,469 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Generates at runtime a subclass of {@link GeneratedBundle} which implements a bundle interface. Each getter of the
+ * generated class calls {@link GeneratedBundle#slotValue(int)} with a constant slot index (getters with parameters call
+ * {@link GeneratedBundle#formatSlotValue(int, Object[])} with boxed arguments), all other methods throw
+ * {@link InvalidInterfaceException}. The class also implements {@link GeneratedBundle#newBundle()}, so the bundles are
+ * created without reflection.
+ * @since 1.3.1
+ */
+final class GeneratedBundleClassGenerator {
+
+    private static final int CLASS_FILE_MAGIC = 0xCAFEBABE;
+    private static final int CLASS_FILE_VERSION = 50;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+    private static final int ACC_SYNTHETIC = 0x1000;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private static final int ICONST_0 = 0x03;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC_W = 0x13;
+    private static final int ILOAD = 0x15;
+    private static final int LLOAD = 0x16;
+    private static final int FLOAD = 0x17;
+    private static final int DLOAD = 0x18;
+    private static final int ALOAD = 0x19;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int AASTORE = 0x53;
+    private static final int DUP = 0x59;
+    private static final int ARETURN = 0xb0;
+    private static final int RETURN = 0xb1;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int NEW = 0xbb;
+    private static final int ANEWARRAY = 0xbd;
+    private static final int ATHROW = 0xbf;
+
+    // this, slot, array, array, index, value (two entries for long and double)
+    private static final int FORMAT_MAX_STACK = 7;
+
+    private final Class<?> interfaceClass;
+    private final InterfaceDescriptor descriptor;
+    private final Map<String, Method> implementedMethods;
+
+    private final ByteArrayOutputStream constantsBytes = new ByteArrayOutputStream();
+    private final DataOutputStream constants = new DataOutputStream(constantsBytes);
+    private final Map<String, Integer> constantIndexes = new HashMap<String, Integer>();
+    private int constantsCount = 1;
+
+    /**
+     * Constructs a new instance of {@link GeneratedBundleClassGenerator}.
+     * @param descriptor the descriptor of the bundle interface.
+     * @since 1.3.1
+     */
+    GeneratedBundleClassGenerator(final InterfaceDescriptor descriptor) {
+        interfaceClass = descriptor.getInterfaceClass();
+        this.descriptor = descriptor;
+        implementedMethods = getImplementedMethods(interfaceClass);
+    }
+
+    /**
+     * Generates and defines the class. Can be called only once.
+     * @return the generated class.
+     * @throws InvalidInterfaceException if the class cannot be defined (e.g. the interface is not public).
+     * @since 1.3.1
+     */
+    Class<? extends GeneratedBundle> generate() {
+        final String className = interfaceClass.getName() + GeneratedBundle.CLASS_NAME_SUFFIX;
+        final byte[] bytes;
+        try {
+            bytes = createClassFile(className.replace('.', '/'));
+        } catch (final IOException e) {
+            throw new InvalidInterfaceException(e);
+        }
+        try {
+            return new GeneratedBundleClassLoader(interfaceClass.getClassLoader()).define(className, bytes);
+        } catch (final LinkageError e) {
+            throw new InvalidInterfaceException(
+                    String.format("Cannot generate bundle class for the interface \"%s\"", interfaceClass.getName()), e);
+        }
+    }
+
+    private byte[] createClassFile(final String internalName) throws IOException {
+        final int thisClass = addClass(internalName);
+        final int superClass = addClass(internalName(GeneratedBundle.class));
+        final int implementedInterface = addClass(internalName(interfaceClass));
+        final int codeName = addUtf8("Code");
+        final int superConstructor = addMethodref(superClass, "<init>", "()V");
+        final int thisConstructor = addMethodref(thisClass, "<init>", "()V");
+        final int getValue = addMethodref(superClass, "slotValue", "(I)Ljava/lang/String;");
+        final int formatValue = addMethodref(superClass, "formatSlotValue", "(I[Ljava/lang/Object;)Ljava/lang/String;");
+        final int createException = addMethodref(superClass, "createUnsupportedMethodException",
+                "(Ljava/lang/String;)" + getDescriptor(InvalidInterfaceException.class));
+
+        final ByteArrayOutputStream methodsBytes = new ByteArrayOutputStream();
+        final DataOutputStream methodsOutput = new DataOutputStream(methodsBytes);
+        writeConstructor(methodsOutput, codeName, superConstructor);
+        writeNewBundle(methodsOutput, codeName, thisClass, thisConstructor);
+        for (final Map.Entry<String, Method> entry : implementedMethods.entrySet()) {
+            writeMethod(methodsOutput, codeName, entry.getKey(), entry.getValue(), getValue, formatValue, createException);
+        }
+
+        final ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(classBytes);
+        output.writeInt(CLASS_FILE_MAGIC);
+        output.writeShort(0);
+        output.writeShort(CLASS_FILE_VERSION);
+        output.writeShort(constantsCount);
+        constants.flush();
+        constantsBytes.writeTo(output);
+        output.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC);
+        output.writeShort(thisClass);
+        output.writeShort(superClass);
+        output.writeShort(1);
+        output.writeShort(implementedInterface);
+        // fields
+        output.writeShort(0);
+        output.writeShort(implementedMethods.size() + 2);
+        methodsOutput.flush();
+        methodsBytes.writeTo(output);
+        // attributes
+        output.writeShort(0);
+        output.flush();
+        return classBytes.toByteArray();
+    }
+
+    private static Map<String, Method> getImplementedMethods(final Class<?> interfaceClass) {
+        final String setLocaleSignature = Bundle.CHANGE_LANGUAGE_METHOD_NAME + "(" + getDescriptor(Locale.class) + ")V";
+        final Map<String, Method> implementedMethods = new TreeMap<String, Method>();
+        for (final Method method : interfaceClass.getMethods()) {
+            final String signature = method.getName() + getDescriptor(method);
+            // setLocale is implemented by the parent class
+            if (!setLocaleSignature.equals(signature)) {
+                implementedMethods.put(signature, method);
+            }
+        }
+        return implementedMethods;
+    }
+
+    private void writeConstructor(final DataOutputStream output, final int codeName, final int superConstructor) throws IOException {
+        final ByteArrayOutputStream code = new ByteArrayOutputStream();
+        code.write(ALOAD_0);
+        code.write(INVOKESPECIAL);
+        writeShort(code, superConstructor);
+        code.write(RETURN);
+        writeMethodHeader(output, ACC_PUBLIC, addUtf8("<init>"), addUtf8("()V"));
+        writeCode(output, codeName, 1, 1, code.toByteArray());
+    }
+
+    private void writeNewBundle(final DataOutputStream output, final int codeName, final int thisClass, final int thisConstructor)
+            throws IOException {
+        final ByteArrayOutputStream code = new ByteArrayOutputStream();
+        code.write(NEW);
+        writeShort(code, thisClass);
+        code.write(DUP);
+        code.write(INVOKESPECIAL);
+        writeShort(code, thisConstructor);
+        code.write(ARETURN);
+        writeMethodHeader(output, ACC_PUBLIC | ACC_FINAL, addUtf8("newBundle"), addUtf8("()" + getDescriptor(GeneratedBundle.class)));
+        writeCode(output, codeName, 2, 1, code.toByteArray());
+    }
+
+    private void writeMethod(final DataOutputStream output, final int codeName, final String signature, final Method method,
+            final int getValue, final int formatValue, final int createException) throws IOException {
+        final ByteArrayOutputStream code = new ByteArrayOutputStream();
+        code.write(ALOAD_0);
+        final int slot = descriptor.getSlot(method);
+        int maxStack = 2;
+        if (slot >= 0 && method.getParameterTypes().length == 0) {
+            writeInt(code, slot);
+            code.write(INVOKEVIRTUAL);
+            writeShort(code, getValue);
+            code.write(ARETURN);
+        } else if (slot >= 0) {
+            writeInt(code, slot);
+            writeArguments(code, method.getParameterTypes());
+            code.write(INVOKEVIRTUAL);
+            writeShort(code, formatValue);
+            code.write(ARETURN);
+            maxStack = FORMAT_MAX_STACK;
+        } else {
+            code.write(LDC_W);
+            writeShort(code, addString(method.getName()));
+            code.write(INVOKEVIRTUAL);
+            writeShort(code, createException);
+            code.write(ATHROW);
+        }
+        final String descriptor = signature.substring(method.getName().length());
+        writeMethodHeader(output, ACC_PUBLIC | ACC_FINAL, addUtf8(method.getName()), addUtf8(descriptor));
+        writeCode(output, codeName, maxStack, getLocalsSize(method), code.toByteArray());
+    }
+
+    private void writeArguments(final ByteArrayOutputStream code, final Class<?>[] types) throws IOException {
+        writeInt(code, types.length);
+        code.write(ANEWARRAY);
+        writeShort(code, addClass(internalName(Object.class)));
+        int local = 1;
+        for (int i = 0; i < types.length; ++i) {
+            code.write(DUP);
+            writeInt(code, i);
+            final Class<?> type = types[i];
+            if (!type.isPrimitive()) {
+                code.write(ALOAD);
+                code.write(local);
+            } else {
+                code.write(getLoadInstruction(type));
+                code.write(local);
+                final Class<?> wrapper = getWrapper(type);
+                code.write(INVOKESTATIC);
+                writeShort(code, addMethodref(addClass(internalName(wrapper)), "valueOf",
+                        "(" + getDescriptor(type) + ")" + getDescriptor(wrapper)));
+            }
+            code.write(AASTORE);
+            local += long.class.equals(type) || double.class.equals(type) ? 2 : 1;
+        }
+    }
+
+    private static int getLoadInstruction(final Class<?> type) {
+        if (long.class.equals(type)) {
+            return LLOAD;
+        } else if (float.class.equals(type)) {
+            return FLOAD;
+        } else if (double.class.equals(type)) {
+            return DLOAD;
+        }
+        return ILOAD;
+    }
+
+    private static Class<?> getWrapper(final Class<?> type) {
+        if (boolean.class.equals(type)) {
+            return Boolean.class;
+        } else if (byte.class.equals(type)) {
+            return Byte.class;
+        } else if (char.class.equals(type)) {
+            return Character.class;
+        } else if (short.class.equals(type)) {
+            return Short.class;
+        } else if (int.class.equals(type)) {
+            return Integer.class;
+        } else if (long.class.equals(type)) {
+            return Long.class;
+        } else if (float.class.equals(type)) {
+            return Float.class;
+        }
+        return Double.class;
+    }
+
+    private static int getLocalsSize(final Method method) {
+        int size = 1;
+        for (final Class<?> type : method.getParameterTypes()) {
+            size += long.class.equals(type) || double.class.equals(type) ? 2 : 1;
+        }
+        return size;
+    }
+
+    private static void writeMethodHeader(final DataOutputStream output, final int access, final int name, final int descriptor)
+            throws IOException {
+        output.writeShort(access);
+        output.writeShort(name);
+        output.writeShort(descriptor);
+        // attributes: Code
+        output.writeShort(1);
+    }
+
+    private static void writeCode(final DataOutputStream output, final int codeName, final int maxStack, final int maxLocals,
+            final byte[] code) throws IOException {
+        output.writeShort(codeName);
+        output.writeInt(12 + code.length);
+        output.writeShort(maxStack);
+        output.writeShort(maxLocals);
+        output.writeInt(code.length);
+        output.write(code);
+        // exception table
+        output.writeShort(0);
+        // attributes
+        output.writeShort(0);
+    }
+
+    private void writeInt(final ByteArrayOutputStream code, final int value) throws IOException {
+        if (value <= 5) {
+            code.write(ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            code.write(BIPUSH);
+            code.write(value);
+        } else if (value <= Short.MAX_VALUE) {
+            code.write(SIPUSH);
+            writeShort(code, value);
+        } else {
+            code.write(LDC_W);
+            writeShort(code, addInteger(value));
+        }
+    }
+
+    private static void writeShort(final ByteArrayOutputStream code, final int value) {
+        code.write(value >>> 8 & 0xff);
+        code.write(value & 0xff);
+    }
+
+    private int addUtf8(final String value) throws IOException {
+        final String id = "U" + value;
+        Integer index = constantIndexes.get(id);
+        if (index == null) {
+            constants.writeByte(CONSTANT_UTF8);
+            constants.writeUTF(value);
+            index = registerConstant(id);
+        }
+        return index;
+    }
+
+    private int addInteger(final int value) throws IOException {
+        final String id = "I" + value;
+        Integer index = constantIndexes.get(id);
+        if (index == null) {
+            constants.writeByte(CONSTANT_INTEGER);
+            constants.writeInt(value);
+            index = registerConstant(id);
+        }
+        return index;
+    }
+
+    private int addClass(final String internalName) throws IOException {
+        final String id = "C" + internalName;
+        Integer index = constantIndexes.get(id);
+        if (index == null) {
+            final int name = addUtf8(internalName);
+            constants.writeByte(CONSTANT_CLASS);
+            constants.writeShort(name);
+            index = registerConstant(id);
+        }
+        return index;
+    }
+
+    private int addString(final String value) throws IOException {
+        final String id = "S" + value;
+        Integer index = constantIndexes.get(id);
+        if (index == null) {
+            final int utf8 = addUtf8(value);
+            constants.writeByte(CONSTANT_STRING);
+            constants.writeShort(utf8);
+            index = registerConstant(id);
+        }
+        return index;
+    }
+
+    private int addNameAndType(final String name, final String descriptor) throws IOException {
+        final String id = "N" + name + descriptor;
+        Integer index = constantIndexes.get(id);
+        if (index == null) {
+            final int nameIndex = addUtf8(name);
+            final int descriptorIndex = addUtf8(descriptor);
+            constants.writeByte(CONSTANT_NAME_AND_TYPE);
+            constants.writeShort(nameIndex);
+            constants.writeShort(descriptorIndex);
+            index = registerConstant(id);
+        }
+        return index;
+    }
+
+    private int addMethodref(final int owner, final String name, final String descriptor) throws IOException {
+        final String id = "M" + owner + name + descriptor;
+        Integer index = constantIndexes.get(id);
+        if (index == null) {
+            final int nameAndType = addNameAndType(name, descriptor);
+            constants.writeByte(CONSTANT_METHODREF);
+            constants.writeShort(owner);
+            constants.writeShort(nameAndType);
+            index = registerConstant(id);
+        }
+        return index;
+    }
+
+    private int registerConstant(final String id) {
+        final int index = constantsCount;
+        ++constantsCount;
+        constantIndexes.put(id, index);
+        return index;
+    }
+
+    private static String internalName(final Class<?> type) {
+        return type.getName().replace('.', '/');
+    }
+
+    private static String getDescriptor(final Method method) {
+        final StringBuilder descriptor = new StringBuilder("(");
+        for (final Class<?> type : method.getParameterTypes()) {
+            descriptor.append(getDescriptor(type));
+        }
+        return descriptor.append(')').append(getDescriptor(method.getReturnType())).toString();
+    }
+
+    private static String getDescriptor(final Class<?> type) {
+        if (type.isArray()) {
+            return internalName(type);
+        } else if (!type.isPrimitive()) {
+            return 'L' + internalName(type) + ';';
+        } else if (void.class.equals(type)) {
+            return "V";
+        } else if (boolean.class.equals(type)) {
+            return "Z";
+        } else if (byte.class.equals(type)) {
+            return "B";
+        } else if (char.class.equals(type)) {
+            return "C";
+        } else if (short.class.equals(type)) {
+            return "S";
+        } else if (int.class.equals(type)) {
+            return "I";
+        } else if (long.class.equals(type)) {
+            return "J";
+        } else if (float.class.equals(type)) {
+            return "F";
+        }
+        return "D";
+    }
+
+    private static final class GeneratedBundleClassLoader extends ClassLoader {
+
+        private GeneratedBundleClassLoader(final ClassLoader parent) {
+            super(parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(final String name, final boolean resolve) throws ClassNotFoundException {
+            // the library classes must be visible even if the interface class loader does not see them
+            if (GeneratedBundle.class.getName().equals(name)) {
+                return GeneratedBundle.class;
+            } else if (InvalidInterfaceException.class.getName().equals(name)) {
+                return InvalidInterfaceException.class;
+            }
+            return super.loadClass(name, resolve);
+        }
+
+        private Class<? extends GeneratedBundle> define(final String name, final byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length).asSubclass(GeneratedBundle.class);
+        }
+    }
+}
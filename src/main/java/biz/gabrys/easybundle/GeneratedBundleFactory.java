@@ -0,0 +1,249 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * Implementation of {@link BundleFactory} which does not use {@link java.lang.reflect.Proxy proxies}. For each bundle
+ * interface the factory generates at runtime a class which extends {@link GeneratedBundle}. Each getter of the class
+ * reads a value from an array loaded once per locale, so it costs almost as much as a plain field access.
+ * {@link Bundle#setLocale(Locale)} only swaps the array.
+ * </p>
+ * <p>
+ * The factory reads translations from the same files as:
+ * </p>
+ * <ul>
+ * <li>{@link MultiplePropertyResourceBundleFactory} - when created by {@link #GeneratedBundleFactory()}</li>
+ * <li>{@link PropertyResourceBundleFactory} - when created by {@link #GeneratedBundleFactory(String)}</li>
+ * </ul>
+ * <p>
+ * How to use the factory:
+ * </p>
+ *
+ * <pre>
+ * final {@link BundleFactory} factory = new {@link GeneratedBundleFactory}();
+ * final Messages bundle = (Messages) factory.{@link #create(Class, Locale) create}(Messages.class, {@link Locale}.{@link Locale#getDefault() getDefault()});
+ * System.out.println(bundle.getTitle());
+ * </pre>
+ * <p>
+ * The bundle interface must be public. If the interface is marked with {@link PrecompiledBundle} and its class was
+ * generated at compile time, then the factory uses the generated class.
+ * </p>
+ * <p>
+ * The factory caches values loaded for the (interface, locale) pairs. The cache evicts the least recently used values
+ * when its size exceeds the limit passed to the constructor (by default {@link #DEFAULT_MAX_CACHED_BUNDLES}).
+ * </p>
+ * @since 1.3.1
+ * @see BundleValidator
+ * @see MultiplePropertyResourceBundleFactory
+ * @see PropertyResourceBundleFactory
+ */
+public class GeneratedBundleFactory implements BundleFactory {
+
+    /**
+     * The default maximum number of cached (interface, locale) values.
+     * @since 1.3.1
+     */
+    public static final int DEFAULT_MAX_CACHED_BUNDLES = 256;
+
+    private final Map<Class<?>, GeneratedBundleType> types;
+    private final LocaleCache<Class<?>, String[]> values;
+    private final String filePathPrefix;
+    private final int fallbackDepth;
+    private final MissingTranslationCache missingTranslations;
+
+    /**
+     * Constructs a new instance of {@link GeneratedBundleFactory} which stores translations in multiple properties
+     * files (one per bundle).
+     * @since 1.3.1
+     * @see MultiplePropertyResourceBundleFactory
+     */
+    public GeneratedBundleFactory() {
+        this(DEFAULT_MAX_CACHED_BUNDLES);
+    }
+
+    /**
+     * Constructs a new instance of {@link GeneratedBundleFactory} which stores translations in multiple properties
+     * files (one per bundle).
+     * @param maxCachedBundles the maximum number of cached (interface, locale) values.
+     * @throws IllegalArgumentException if the maximum number of cached values is less than 1.
+     * @since 1.3.1
+     * @see MultiplePropertyResourceBundleFactory
+     */
+    public GeneratedBundleFactory(final int maxCachedBundles) {
+        this(null, maxCachedBundles, ResourceBundleCache.CHAINED);
+    }
+
+    /**
+     * Constructs a new instance of {@link GeneratedBundleFactory} which stores translations in "one" property file (one
+     * for all bundles).
+     * @param filePathPrefix the file path prefix.
+     * @throws IllegalArgumentException if the file path prefix is {@code null}.
+     * @since 1.3.1
+     * @see PropertyResourceBundleFactory
+     */
+    public GeneratedBundleFactory(final String filePathPrefix) {
+        this(filePathPrefix, DEFAULT_MAX_CACHED_BUNDLES);
+    }
+
+    /**
+     * Constructs a new instance of {@link GeneratedBundleFactory} which stores translations in "one" property file (one
+     * for all bundles).
+     * @param filePathPrefix the file path prefix.
+     * @param maxCachedBundles the maximum number of cached (interface, locale) values.
+     * @throws IllegalArgumentException if the file path prefix is {@code null}.
+     * @throws IllegalArgumentException if the maximum number of cached values is less than 1.
+     * @since 1.3.1
+     * @see PropertyResourceBundleFactory
+     */
+    public GeneratedBundleFactory(final String filePathPrefix, final int maxCachedBundles) {
+        this(filePathPrefix, maxCachedBundles, ResourceBundleCache.CHAINED);
+        if (filePathPrefix == null) {
+            throw new IllegalArgumentException("File path prefix cannot be null");
+        }
+    }
+
+    /**
+     * Constructs a new instance of {@link GeneratedBundleFactory} used by the proxy factories for the precompiled
+     * interfaces.
+     * @param filePathPrefix the file path prefix or {@code null} if the translations are stored in multiple properties
+     *            files.
+     * @param maxCachedBundles the maximum number of cached (interface, locale) values.
+     * @param fallbackDepth the maximum number of less specific files whose translations are used or
+     *            {@link ResourceBundleCache#CHAINED} if all of them are used.
+     * @throws IllegalArgumentException if the maximum number of cached values is less than 1.
+     * @since 1.3.1
+     */
+    GeneratedBundleFactory(final String filePathPrefix, final int maxCachedBundles, final int fallbackDepth) {
+        if (maxCachedBundles < 1) {
+            throw new IllegalArgumentException("Maximum number of cached bundles cannot be less than 1");
+        }
+
+        types = new ConcurrentHashMap<Class<?>, GeneratedBundleType>();
+        values = new LocaleCache<Class<?>, String[]>(maxCachedBundles, false) {
+
+            @Override
+            protected String[] load(final Class<?> interfaceClass, final Locale locale) {
+                return loadValues(interfaceClass, locale);
+            }
+        };
+        this.filePathPrefix = filePathPrefix;
+        this.fallbackDepth = fallbackDepth;
+        missingTranslations = new MissingTranslationCache(new MissingTranslationCache.Lookup() {
+
+            public String find(final Class<?> interfaceClass, final String key, final Locale locale) {
+                final int slot = InterfaceDescriptor.get(interfaceClass).getSlot(key);
+                return slot >= 0 ? values.get(interfaceClass, locale)[slot] : null;
+            }
+        });
+    }
+
+    /**
+     * Sets the policy which decides what the bundles return when a translation is undefined. The policy should be set
+     * before the bundles are used. By default the bundles throw {@link UndefinedTranslationException}.
+     * @param policy the policy.
+     * @throws IllegalArgumentException if the policy is {@code null}.
+     * @since 1.3.1
+     * @see MissingTranslationPolicies
+     */
+    public void setMissingTranslationPolicy(final MissingTranslationPolicy policy) {
+        missingTranslations.setPolicy(policy);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws IllegalArgumentException if the interface class is {@code null}.
+     * @throws IllegalArgumentException if the locale is {@code null}.
+     * @throws InvalidInterfaceException if the bundle class cannot be generated (e.g. the interface is not public).
+     * @since 1.3.1
+     * @see BundleValidator#validateInterface(Class)
+     */
+    @Override
+    public Bundle create(final Class<?> interfaceClass, final Locale locale) {
+        if (interfaceClass == null) {
+            throw new IllegalArgumentException("Interface class cannot be null");
+        }
+        if (locale == null) {
+            throw new IllegalArgumentException("Locale cannot be null");
+        }
+
+        return getType(interfaceClass).newInstance(locale);
+    }
+
+    private GeneratedBundleType getType(final Class<?> interfaceClass) {
+        GeneratedBundleType type = types.get(interfaceClass);
+        if (type == null) {
+            synchronized (types) {
+                type = types.get(interfaceClass);
+                if (type == null) {
+                    type = createType(interfaceClass);
+                    types.put(interfaceClass, type);
+                }
+            }
+        }
+        return type;
+    }
+
+    private GeneratedBundleType createType(final Class<?> interfaceClass) {
+        final InterfaceDescriptor descriptor = InterfaceDescriptor.get(interfaceClass);
+        GeneratedBundle prototype = descriptor.getPrecompiledBundle();
+        if (prototype == null) {
+            prototype = GeneratedBundle.newPrototype(new GeneratedBundleClassGenerator(descriptor).generate());
+        }
+        return new GeneratedBundleType(this, descriptor, prototype);
+    }
+
+    String getMissingValue(final InterfaceDescriptor descriptor, final int slot, final Locale locale) {
+        return missingTranslations.get(descriptor.getInterfaceClass(), descriptor.getKey(slot), locale);
+    }
+
+    Map<String, String> createValuesMap(final InterfaceDescriptor descriptor, final String[] values, final Locale locale) {
+        return BundleValuesMap.create(descriptor, values, locale, missingTranslations);
+    }
+
+    EncodedValues createEncodedValues(final InterfaceDescriptor descriptor, final Map<String, String> values, final Locale locale) {
+        return new EncodedValues(descriptor, values, locale, missingTranslations);
+    }
+
+    /**
+     * Returns values for the interface and locale in the order of slots. Loads the values if they are not cached.
+     * @param interfaceClass the bundle interface class.
+     * @param locale the locale.
+     * @return the values ({@code null} elements mean undefined translations).
+     * @throws ReloadBundleException if error occurred while loading values.
+     * @since 1.3.1
+     */
+    String[] getValues(final Class<?> interfaceClass, final Locale locale) {
+        return values.get(interfaceClass, locale);
+    }
+
+    private String[] loadValues(final Class<?> interfaceClass, final Locale locale) {
+        final String[] keys = InterfaceDescriptor.get(interfaceClass).getKeys(filePathPrefix != null);
+        MapResourceBundle bundle = loadBundle(interfaceClass, locale);
+        if (fallbackDepth != ResourceBundleCache.CHAINED) {
+            bundle = MapResourceBundle.flatten(bundle, fallbackDepth);
+        }
+        return ResourceBundleCache.getValues(bundle, keys);
+    }
+
+    private MapResourceBundle loadBundle(final Class<?> interfaceClass, final Locale locale) {
+        if (filePathPrefix == null) {
+            return PooledPropertiesControl.getBundle(interfaceClass.getName(), locale, interfaceClass.getClassLoader());
+        }
+        return PooledPropertiesControl.getBundle(filePathPrefix, locale, GeneratedBundleFactory.class.getClassLoader());
+    }
+}
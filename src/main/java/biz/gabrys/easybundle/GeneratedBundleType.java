@@ -0,0 +1,103 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Stores the class generated for a bundle interface. The values loaded for the locales are cached by the factory.
+ * @since 1.3.1
+ * @see GeneratedBundleFactory
+ */
+final class GeneratedBundleType {
+
+    private final GeneratedBundleFactory factory;
+    private final InterfaceDescriptor descriptor;
+    private final GeneratedBundle prototype;
+
+    /**
+     * Constructs a new instance of {@link GeneratedBundleType}.
+     * @param factory the factory which loads values.
+     * @param descriptor the descriptor of the bundle interface.
+     * @param prototype the not initialized instance of the class which implements the interface (used only to
+     *            {@link GeneratedBundle#newBundle() create} the bundles).
+     * @since 1.3.1
+     */
+    GeneratedBundleType(final GeneratedBundleFactory factory, final InterfaceDescriptor descriptor, final GeneratedBundle prototype) {
+        this.factory = factory;
+        this.descriptor = descriptor;
+        this.prototype = prototype;
+    }
+
+    Class<?> getInterfaceClass() {
+        return descriptor.getInterfaceClass();
+    }
+
+    /**
+     * Returns the value used instead of the translation which is undefined for the locale.
+     * @param slot the slot index.
+     * @param locale the locale.
+     * @return the value returned by the {@link MissingTranslationPolicy}.
+     * @throws UndefinedTranslationException if the policy throws the exception.
+     * @since 1.3.1
+     */
+    String getMissingValue(final int slot, final Locale locale) {
+        return factory.getMissingValue(descriptor, slot, locale);
+    }
+
+    /**
+     * Creates the map of all translations.
+     * @param localeValues the values in the order of slots.
+     * @param locale the locale of the values.
+     * @return the immutable map.
+     * @since 1.3.1
+     */
+    Map<String, String> createValuesMap(final String[] localeValues, final Locale locale) {
+        return factory.createValuesMap(descriptor, localeValues, locale);
+    }
+
+    /**
+     * Encodes all translations in UTF-8.
+     * @param values the map of all translations.
+     * @param locale the locale of the translations.
+     * @return the encoded translations.
+     * @since 1.3.1
+     */
+    EncodedValues createEncodedValues(final Map<String, String> values, final Locale locale) {
+        return factory.createEncodedValues(descriptor, values, locale);
+    }
+
+    /**
+     * Creates a new instance of the bundle.
+     * @param locale the bundle locale.
+     * @return the bundle.
+     * @since 1.3.1
+     */
+    GeneratedBundle newInstance(final Locale locale) {
+        final GeneratedBundle bundle = prototype.newBundle();
+        bundle.init(this, locale);
+        return bundle;
+    }
+
+    /**
+     * Returns values for the locale in the order of slots. Missing translations are stored as {@code null}.
+     * @param locale the locale.
+     * @return the values.
+     * @throws ReloadBundleException if error occurred while loading values.
+     * @since 1.3.1
+     */
+    String[] getValues(final Locale locale) {
+        return factory.getValues(descriptor.getInterfaceClass(), locale);
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>
+ * Metadata of a bundle interface: validity, getters, keys of the translations and slots of the getters. The metadata
+ * is computed once per interface and shared by the {@link BundleValidator validator}, the factories and the managers,
+ * so the reflection is used only on the first use of the interface. The metadata of the interfaces marked with
+ * {@link PrecompiledBundle} is read from the key table of the class generated at compile time, their methods are
+ * inspected only when a {@link Method} is dispatched (by a proxy or {@link ThreadLocaleBundleManager}).
+ * </p>
+ * <p>
+ * The descriptors are cached by a concurrent map with weakly referenced classes and softly referenced values, so the
+ * cache does not prevent unloading of the interface classes and the cached descriptors are read without locking.
+ * </p>
+ * @since 1.3.1
+ */
+final class InterfaceDescriptor {
+
+    private static final ConcurrentMap<InterfaceKey, Reference<InterfaceDescriptor>> DESCRIPTORS = new ConcurrentHashMap<InterfaceKey, Reference<InterfaceDescriptor>>();
+    private static final ReferenceQueue<Class<?>> UNLOADED_CLASSES = new ReferenceQueue<Class<?>>();
+
+    private final Class<?> interfaceClass;
+    private final String error;
+    private volatile Map<Method, Integer> slots;
+    private final String[] keys;
+    private final String[] qualifiedKeys;
+    private final GeneratedBundle precompiledBundle;
+
+    private InterfaceDescriptor(final Class<?> interfaceClass) {
+        this.interfaceClass = interfaceClass;
+        precompiledBundle = findPrecompiledBundle(interfaceClass);
+        final String[] keyTable = precompiledBundle != null ? precompiledBundle.keyTable() : null;
+        if (keyTable != null) {
+            // the interface was validated and its slots were assigned by the annotation processor
+            error = null;
+            keys = keyTable;
+        } else {
+            error = findError(interfaceClass);
+            final List<String> slotKeys = new ArrayList<String>();
+            slots = createSlots(interfaceClass, slotKeys);
+            keys = slotKeys.toArray(new String[slotKeys.size()]);
+        }
+        qualifiedKeys = new String[keys.length];
+        for (int i = 0; i < keys.length; ++i) {
+            qualifiedKeys[i] = interfaceClass.getName() + '.' + keys[i];
+        }
+    }
+
+    private static Map<Method, Integer> createSlots(final Class<?> interfaceClass, final List<String> slotKeys) {
+        // slots are assigned in the order of the getters names, so classes generated at compile time use the same slots
+        // (overloaded getters have the same key, so they share the slot)
+        final Map<String, Method> getters = new TreeMap<String, Method>();
+        for (final Method method : interfaceClass.getMethods()) {
+            if (BundleValidator.isMethodCorrect(method)) {
+                getters.put(method.getName(), method);
+            }
+        }
+        final Map<Method, Integer> methodSlots = new HashMap<Method, Integer>();
+        for (final Method getter : getters.values()) {
+            final String key = createKey(getter.getName());
+            int slot = slotKeys.indexOf(key);
+            if (slot < 0) {
+                slot = slotKeys.size();
+                slotKeys.add(key);
+            }
+            methodSlots.put(getter, slot);
+        }
+        // getters inherited from many interfaces are represented by many methods
+        for (final Method method : interfaceClass.getMethods()) {
+            if (!methodSlots.containsKey(method) && BundleValidator.isMethodCorrect(method)) {
+                methodSlots.put(method, methodSlots.get(getters.get(method.getName())));
+            }
+        }
+        return methodSlots;
+    }
+
+    private Map<Method, Integer> getSlots() {
+        Map<Method, Integer> current = slots;
+        if (current == null) {
+            // the slots of the precompiled interface are the slots of the key table
+            current = createSlots(interfaceClass, new ArrayList<String>(Arrays.asList(keys)));
+            slots = current;
+        }
+        return current;
+    }
+
+    /**
+     * Returns the descriptor of the interface. Creates the descriptor if it is not cached.
+     * @param interfaceClass the bundle interface class.
+     * @return the descriptor.
+     * @since 1.3.1
+     */
+    static InterfaceDescriptor get(final Class<?> interfaceClass) {
+        // the lookup key is not a reference, so it is cheap to create (the JIT usually eliminates the allocation)
+        final Reference<InterfaceDescriptor> reference = DESCRIPTORS.get(new LookupKey(interfaceClass));
+        final InterfaceDescriptor cached = reference != null ? reference.get() : null;
+        if (cached != null) {
+            return cached;
+        }
+
+        removeUnloadedClasses();
+        // the descriptors are immutable, so two threads can create them at the same time, but one of them is cached
+        final InterfaceDescriptor descriptor = new InterfaceDescriptor(interfaceClass);
+        final Reference<InterfaceDescriptor> created = new SoftReference<InterfaceDescriptor>(descriptor);
+        final ClassKey key = new ClassKey(interfaceClass, UNLOADED_CLASSES);
+        while (true) {
+            final Reference<InterfaceDescriptor> previous = DESCRIPTORS.putIfAbsent(key, created);
+            if (previous == null) {
+                return descriptor;
+            }
+            final InterfaceDescriptor existing = previous.get();
+            if (existing != null) {
+                return existing;
+            }
+            if (DESCRIPTORS.replace(key, previous, created)) {
+                return descriptor;
+            }
+        }
+    }
+
+    private static void removeUnloadedClasses() {
+        Reference<? extends Class<?>> reference;
+        while ((reference = UNLOADED_CLASSES.poll()) != null) {
+            DESCRIPTORS.remove(reference);
+        }
+    }
+
+    private static String findError(final Class<?> interfaceClass) {
+        if (!interfaceClass.isInterface()) {
+            return String.format("Given class \"%s\" is not an interface", interfaceClass.getName());
+        }
+        if (!Modifier.isPublic(interfaceClass.getModifiers())) {
+            return String.format("Given interface \"%s\" must be public", interfaceClass.getName());
+        }
+        final Method[] methods = interfaceClass.getMethods();
+        if (methods.length == 0) {
+            return String.format("Given interface \"%s\" has not specify any methods", interfaceClass.getName());
+        }
+        for (final Method method : methods) {
+            if (!BundleValidator.isMethodCorrect(method)) {
+                return String.format("Given interface \"%s\" must contain only public getters method that return simple string value",
+                        interfaceClass.getName());
+            }
+        }
+        return null;
+    }
+
+    private static GeneratedBundle findPrecompiledBundle(final Class<?> interfaceClass) {
+        if (!interfaceClass.isAnnotationPresent(PrecompiledBundle.class)) {
+            return null;
+        }
+        final Class<?> bundleClass;
+        try {
+            // the interface cannot refer to the class generated from it, so the class is looked up once by the name
+            bundleClass = Class.forName(interfaceClass.getName() + GeneratedBundle.CLASS_NAME_SUFFIX, true, interfaceClass.getClassLoader());
+        } catch (final ClassNotFoundException e) {
+            // the annotation processor was not enabled
+            return null;
+        }
+        if (GeneratedBundle.class.isAssignableFrom(bundleClass) && interfaceClass.isAssignableFrom(bundleClass)) {
+            return GeneratedBundle.newPrototype(bundleClass.asSubclass(GeneratedBundle.class));
+        }
+        return null;
+    }
+
+    private static String createKey(final String methodName) {
+        final String key = methodName.substring(BundleValidator.METHOD_NAME_PREFIX.length());
+        return key.substring(0, 1).toLowerCase(Locale.ENGLISH) + key.substring(1);
+    }
+
+    Class<?> getInterfaceClass() {
+        return interfaceClass;
+    }
+
+    boolean isValid() {
+        return error == null;
+    }
+
+    /**
+     * Checks whether the interface is correct.
+     * @throws InvalidInterfaceException if the interface declaration is incorrect.
+     * @since 1.3.1
+     * @see BundleValidator#validateInterface(Class)
+     */
+    void validate() {
+        if (error != null) {
+            throw new InvalidInterfaceException(error);
+        }
+    }
+
+    /**
+     * Returns a class generated at compile time for the bundle interface marked with {@link PrecompiledBundle}.
+     * @return the generated class or {@code null} if it does not exist.
+     * @since 1.3.1
+     */
+    Class<? extends GeneratedBundle> getPrecompiledClass() {
+        return precompiledBundle != null ? precompiledBundle.getClass() : null;
+    }
+
+    /**
+     * Returns the not initialized instance of the class generated at compile time, used only to
+     * {@link GeneratedBundle#newBundle() create} the bundles.
+     * @return the instance or {@code null} if the class does not exist.
+     * @since 1.3.1
+     */
+    GeneratedBundle getPrecompiledBundle() {
+        return precompiledBundle;
+    }
+
+    /**
+     * Returns a slot of the getter. Getters with the same key share the slot.
+     * @param method the method.
+     * @return the slot or {@code -1} if the method is not a correct getter.
+     * @since 1.3.1
+     */
+    int getSlot(final Method method) {
+        final Integer slot = getSlots().get(method);
+        return slot != null ? slot : -1;
+    }
+
+    /**
+     * Returns a slot of the translation key.
+     * @param key the key of the translation (without the interface name).
+     * @return the slot or {@code -1} if the interface does not contain a getter of the key.
+     * @since 1.3.1
+     */
+    int getSlot(final String key) {
+        for (int i = 0; i < keys.length; ++i) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a key of the translation associated with the method.
+     * @param method the invoked method.
+     * @return the key of the translation or {@code null} if the method is not a correct getter.
+     * @since 1.3.1
+     */
+    String getKey(final Method method) {
+        final Integer slot = getSlots().get(method);
+        return slot != null ? keys[slot] : null;
+    }
+
+    /**
+     * Returns the number of slots (unique keys of the getters).
+     * @return the number of slots.
+     * @since 1.3.1
+     */
+    int getSlotCount() {
+        return keys.length;
+    }
+
+    /**
+     * Returns a key of the translation stored in the slot.
+     * @param slot the slot.
+     * @return the key of the translation.
+     * @since 1.3.1
+     */
+    String getKey(final int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Returns a key of the translation associated with the method prefixed with the interface name and a dot (used by
+     * the "one" property file).
+     * @param method the invoked method.
+     * @return the key of the translation or {@code null} if the method is not a correct getter.
+     * @since 1.3.1
+     */
+    String getQualifiedKey(final Method method) {
+        final Integer slot = getSlots().get(method);
+        return slot != null ? qualifiedKeys[slot] : null;
+    }
+
+    /**
+     * Returns keys of the translations in the order of slots.
+     * @param qualified whether the keys should be prefixed with the interface name and a dot.
+     * @return the keys.
+     * @since 1.3.1
+     */
+    String[] getKeys(final boolean qualified) {
+        return (qualified ? qualifiedKeys : keys).clone();
+    }
+
+    /**
+     * Key of the cache which refers to an interface class. Two keys are equal if they refer to the same class, while a
+     * key of an unloaded class is equal only to itself.
+     * @since 1.3.1
+     */
+    private interface InterfaceKey {
+
+        Class<?> getInterfaceClass();
+    }
+
+    /**
+     * Weak reference to an interface class used as a key stored in the cache, so the cache does not prevent unloading
+     * of the class.
+     * @since 1.3.1
+     */
+    private static final class ClassKey extends WeakReference<Class<?>> implements InterfaceKey {
+
+        private final int hash;
+
+        private ClassKey(final Class<?> interfaceClass, final ReferenceQueue<Class<?>> queue) {
+            super(interfaceClass, queue);
+            hash = System.identityHashCode(interfaceClass);
+        }
+
+        public Class<?> getInterfaceClass() {
+            return get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof InterfaceKey)) {
+                return false;
+            }
+            final Class<?> interfaceClass = get();
+            return interfaceClass != null && interfaceClass == ((InterfaceKey) obj).getInterfaceClass();
+        }
+    }
+
+    /**
+     * Strong reference to an interface class used only to find a descriptor in the cache.
+     * @since 1.3.1
+     */
+    private static final class LookupKey implements InterfaceKey {
+
+        private final Class<?> interfaceClass;
+
+        private LookupKey(final Class<?> interfaceClass) {
+            this.interfaceClass = interfaceClass;
+        }
+
+        public Class<?> getInterfaceClass() {
+            return interfaceClass;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(interfaceClass);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof InterfaceKey && interfaceClass == ((InterfaceKey) obj).getInterfaceClass();
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of values loaded for (key, locale) pairs, where the key is e.g. a bundle interface class. The cached values
+ * must be immutable, so they can be shared by all threads. The lookup does not lock and does not allocate objects. When
+ * the number of values exceeds the maximum size, then the least recently used values are evicted. The recency is
+ * approximated: values used since the last load are treated as used at the same time.
+ * <p>
+ * Each (key, locale) pair is loaded once at a time: concurrent requests for the same pair wait for the load in progress,
+ * while different pairs are loaded concurrently.
+ * </p>
+ * @param <K> the type of the keys.
+ * @param <V> the type of the cached values.
+ * @since 1.3.1
+ */
+abstract class LocaleCache<K, V> {
+
+    private final int maxSize;
+    private final boolean countHits;
+    private final ConcurrentMap<K, ConcurrentMap<Locale, Entry<V>>> entries;
+    private final ConcurrentMap<LoadKey, FutureTask<V>> loads;
+    private final AtomicInteger size;
+    private final AtomicLong footprint;
+    private final AtomicLong clock;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+
+    /**
+     * Constructs a new instance of {@link LocaleCache}.
+     * @param maxSize the maximum number of cached values.
+     * @param countHits whether the hits should be counted (the counter is shared by all threads, so it should be
+     *            disabled for caches used on each call of a getter).
+     * @since 1.3.1
+     */
+    LocaleCache(final int maxSize, final boolean countHits) {
+        this.maxSize = maxSize;
+        this.countHits = countHits;
+        entries = new ConcurrentHashMap<K, ConcurrentMap<Locale, Entry<V>>>();
+        loads = new ConcurrentHashMap<LoadKey, FutureTask<V>>();
+        size = new AtomicInteger();
+        footprint = new AtomicLong();
+        clock = new AtomicLong();
+        hits = new AtomicLong();
+        misses = new AtomicLong();
+        evictions = new AtomicLong();
+    }
+
+    /**
+     * Returns the value for the key and locale. Loads the value if it is not cached.
+     * @param key the key.
+     * @param locale the locale.
+     * @return the value.
+     * @since 1.3.1
+     */
+    V get(final K key, final Locale locale) {
+        final ConcurrentMap<Locale, Entry<V>> keyEntries = getEntries(key);
+        final Entry<V> entry = keyEntries.get(locale);
+        if (entry != null) {
+            if (countHits) {
+                hits.incrementAndGet();
+            }
+            // the odd time means "after the load of the last value"
+            entry.touch(clock.get() + 1);
+            return entry.value;
+        }
+        misses.incrementAndGet();
+        return load(key, locale, keyEntries);
+    }
+
+    /**
+     * Loads the value for the key and locale.
+     * @param key the key.
+     * @param locale the locale.
+     * @return the value.
+     * @since 1.3.1
+     */
+    protected abstract V load(K key, Locale locale);
+
+    /**
+     * Estimates the number of bytes occupied by the value. The default implementation returns {@code 0}.
+     * @param value the value.
+     * @return the estimated number of bytes.
+     * @since 1.3.1
+     */
+    protected long estimateFootprint(final V value) {
+        return 0;
+    }
+
+    /**
+     * Called after the value has been evicted from the cache. The default implementation does nothing.
+     * @param key the key.
+     * @param locale the locale.
+     * @param value the evicted value.
+     * @since 1.3.1
+     */
+    protected void evicted(final K key, final Locale locale, final V value) {
+        // do nothing
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * Returns all cached values.
+     * @return the snapshot of the cached values.
+     * @since 1.3.1
+     */
+    List<V> getValues() {
+        final List<V> values = new ArrayList<V>();
+        for (final Map<Locale, Entry<V>> keyEntries : entries.values()) {
+            for (final Entry<V> entry : keyEntries.values()) {
+                values.add(entry.value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Returns the estimated number of bytes occupied by the cached value.
+     * @param key the key.
+     * @param locale the locale.
+     * @return the estimated number of bytes or {@code 0} if the value is not cached.
+     * @since 1.3.1
+     */
+    long getFootprint(final K key, final Locale locale) {
+        final Map<Locale, Entry<V>> keyEntries = entries.get(key);
+        final Entry<V> entry = keyEntries != null ? keyEntries.get(locale) : null;
+        return entry != null ? entry.footprint : 0;
+    }
+
+    /**
+     * Returns a snapshot of the cache statistics.
+     * @return the statistics.
+     * @since 1.3.1
+     */
+    BundleCacheStatistics getStatistics() {
+        return new BundleCacheStatistics(hits.get(), misses.get(), evictions.get(), size.get(), maxSize, footprint.get());
+    }
+
+    private ConcurrentMap<Locale, Entry<V>> getEntries(final K key) {
+        ConcurrentMap<Locale, Entry<V>> keyEntries = entries.get(key);
+        if (keyEntries == null) {
+            keyEntries = new ConcurrentHashMap<Locale, Entry<V>>();
+            final ConcurrentMap<Locale, Entry<V>> previous = entries.putIfAbsent(key, keyEntries);
+            if (previous != null) {
+                keyEntries = previous;
+            }
+        }
+        return keyEntries;
+    }
+
+    private V load(final K key, final Locale locale, final ConcurrentMap<Locale, Entry<V>> keyEntries) {
+        final LoadKey loadKey = new LoadKey(key, locale);
+        final FutureTask<V> task = new FutureTask<V>(new Loader(key, locale, keyEntries));
+        FutureTask<V> load = loads.putIfAbsent(loadKey, task);
+        if (load == null) {
+            load = task;
+            task.run();
+        }
+        try {
+            return Futures.getResult(load);
+        } finally {
+            loads.remove(loadKey, load);
+        }
+    }
+
+    private V loadEntry(final K key, final Locale locale, final ConcurrentMap<Locale, Entry<V>> keyEntries) {
+        // the value could be loaded by other thread between the cache check and the load registration
+        final Entry<V> cached = keyEntries.get(locale);
+        if (cached != null) {
+            return cached.value;
+        }
+
+        final V value = load(key, locale);
+        final Entry<V> entry = new Entry<V>(value, estimateFootprint(value), clock.addAndGet(2));
+        keyEntries.put(locale, entry);
+        footprint.addAndGet(entry.footprint);
+        if (size.incrementAndGet() > maxSize) {
+            evict();
+        }
+        return entry.value;
+    }
+
+    private synchronized void evict() {
+        while (size.get() > maxSize) {
+            K eldestKey = null;
+            ConcurrentMap<Locale, Entry<V>> eldestEntries = null;
+            Locale eldestLocale = null;
+            Entry<V> eldest = null;
+            for (final Map.Entry<K, ConcurrentMap<Locale, Entry<V>>> keyEntries : entries.entrySet()) {
+                for (final Map.Entry<Locale, Entry<V>> localeEntry : keyEntries.getValue().entrySet()) {
+                    final Entry<V> entry = localeEntry.getValue();
+                    if (eldest == null || entry.accessed < eldest.accessed) {
+                        eldestKey = keyEntries.getKey();
+                        eldestEntries = keyEntries.getValue();
+                        eldestLocale = localeEntry.getKey();
+                        eldest = entry;
+                    }
+                }
+            }
+            if (eldest == null) {
+                return;
+            }
+            if (eldestEntries.remove(eldestLocale, eldest)) {
+                size.decrementAndGet();
+                footprint.addAndGet(-eldest.footprint);
+                evictions.incrementAndGet();
+                evicted(eldestKey, eldestLocale, eldest.value);
+            }
+        }
+    }
+
+    private final class Loader implements Callable<V> {
+
+        private final K key;
+        private final Locale locale;
+        private final ConcurrentMap<Locale, Entry<V>> keyEntries;
+
+        private Loader(final K key, final Locale locale, final ConcurrentMap<Locale, Entry<V>> keyEntries) {
+            this.key = key;
+            this.locale = locale;
+            this.keyEntries = keyEntries;
+        }
+
+        public V call() {
+            return loadEntry(key, locale, keyEntries);
+        }
+    }
+
+    private static final class LoadKey {
+
+        private final Object key;
+        private final Locale locale;
+
+        private LoadKey(final Object key, final Locale locale) {
+            this.key = key;
+            this.locale = locale;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * key.hashCode() + locale.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            final LoadKey other = (LoadKey) obj;
+            return key.equals(other.key) && locale.equals(other.locale);
+        }
+    }
+
+    private static final class Entry<V> {
+
+        private final V value;
+        private final long footprint;
+        private volatile long accessed;
+
+        private Entry(final V value, final long footprint, final long accessed) {
+            this.value = value;
+            this.footprint = footprint;
+            this.accessed = accessed;
+        }
+
+        private void touch(final long time) {
+            // avoids writing the shared memory when the entry is used many times between creations
+            if (accessed != time) {
+                accessed = time;
+            }
+        }
+    }
+}
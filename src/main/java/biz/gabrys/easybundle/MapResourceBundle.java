@@ -0,0 +1,109 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.Set;
+
+/**
+ * {@link ResourceBundle} which stores translations in a map. The bundles are created by
+ * {@link PooledPropertiesControl} and by {@link #flatten(MapResourceBundle, int)}.
+ * @since 1.3.1
+ */
+final class MapResourceBundle extends ResourceBundle {
+
+    private final Map<String, String> values;
+
+    /**
+     * Constructs a new instance of {@link MapResourceBundle}.
+     * @param values the translations (the map is not copied).
+     * @since 1.3.1
+     */
+    MapResourceBundle(final Map<String, String> values) {
+        this.values = values;
+    }
+
+    /**
+     * Merges translations of the bundle and its parents into one bundle without parents, so a translation is found by
+     * one lookup instead of walking the parent chain. Translations of the more specific bundles override the parents
+     * translations.
+     * @param bundle the bundle returned by {@link PooledPropertiesControl#getBundle(String, java.util.Locale, ClassLoader)}.
+     * @param fallbackDepth the maximum number of merged parents.
+     * @return the flat bundle.
+     * @since 1.3.1
+     */
+    static MapResourceBundle flatten(final MapResourceBundle bundle, final int fallbackDepth) {
+        final Map<String, String> values = new HashMap<String, String>();
+        MapResourceBundle current = bundle;
+        for (int depth = 0; current != null && depth <= fallbackDepth; ++depth) {
+            for (final Map.Entry<String, String> entry : current.values.entrySet()) {
+                if (!values.containsKey(entry.getKey())) {
+                    values.put(entry.getKey(), entry.getValue());
+                }
+            }
+            current = (MapResourceBundle) current.parent;
+        }
+        return new MapResourceBundle(values);
+    }
+
+    /**
+     * Checks whether the bundle and all its parents are instances of {@link MapResourceBundle}.
+     * @param bundle the bundle.
+     * @return {@code true} whether the bundle chain contains only instances of {@link MapResourceBundle}, otherwise
+     *         {@code false}.
+     * @since 1.3.1
+     */
+    static boolean isChain(final ResourceBundle bundle) {
+        ResourceBundle current = bundle;
+        while (current instanceof MapResourceBundle) {
+            current = ((MapResourceBundle) current).parent;
+        }
+        return current == null;
+    }
+
+    /**
+     * Sets the parent bundle.
+     * @param parent the parent bundle (can be {@code null}).
+     * @since 1.3.1
+     */
+    void setParentBundle(final ResourceBundle parent) {
+        setParent(parent);
+    }
+
+    @Override
+    protected Object handleGetObject(final String key) {
+        if (key == null) {
+            throw new NullPointerException();
+        }
+        return values.get(key);
+    }
+
+    @Override
+    protected Set<String> handleKeySet() {
+        return values.keySet();
+    }
+
+    @Override
+    public Enumeration<String> getKeys() {
+        final Set<String> keys = new LinkedHashSet<String>(values.keySet());
+        if (parent != null) {
+            keys.addAll(Collections.list(parent.getKeys()));
+        }
+        return Collections.enumeration(keys);
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.util.Locale;
+
+/**
+ * <p>
+ * Implementation of {@link BundleFactory} which reads translations from binary catalogs (see
+ * {@link CatalogBundleFactory}) mapped into memory. The content of the catalogs (including their hash indexes) stays off
+ * the heap and the values are decoded only when the getters are called, so the heap usage does not grow with the size
+ * of the catalogs. Catalogs which are not stored as files (e.g. are packed into JAR files) cannot be mapped, so they are
+ * read into heap buffers.
+ * </p>
+ * <p>
+ * The factory can keep decoded values of the cached (interface, locale) pairs, so the hot getters do not decode the same
+ * value again. The values are decoded on the first call, so only the used translations are stored on the heap, and they
+ * are shared with other bundles by the {@link BundleValuePool}.
+ * </p>
+ * <p>
+ * How to use the factory:
+ * </p>
+ *
+ * <pre>
+ * final {@link BundleFactory} factory = new {@link MappedCatalogBundleFactory}();
+ * final Messages bundle = (Messages) factory.{@link #create(Class, Locale) create}(Messages.class, {@link Locale}.{@link Locale#getDefault() getDefault()});
+ * </pre>
+ * @since 1.3.1
+ * @see BundleCatalogCompiler
+ * @see CatalogBundleFactory
+ */
+public class MappedCatalogBundleFactory implements BundleFactory {
+
+    /**
+     * The default maximum number of cached (interface, locale) catalogs.
+     * @since 1.3.1
+     */
+    public static final int DEFAULT_MAX_CACHED_BUNDLES = 256;
+
+    private final LocaleCache<Class<?>, MappedValues> values;
+    private final MissingTranslationCache missingTranslations;
+
+    /**
+     * Constructs a new instance which keeps decoded values.
+     * @since 1.3.1
+     */
+    public MappedCatalogBundleFactory() {
+        this(DEFAULT_MAX_CACHED_BUNDLES, true);
+    }
+
+    /**
+     * Constructs a new instance.
+     * @param maxCachedBundles the maximum number of cached (interface, locale) catalogs.
+     * @param keepDecodedValues whether the decoded values should be kept on the heap.
+     * @throws IllegalArgumentException if the maximum number of cached catalogs is less than 1.
+     * @since 1.3.1
+     */
+    public MappedCatalogBundleFactory(final int maxCachedBundles, final boolean keepDecodedValues) {
+        if (maxCachedBundles < 1) {
+            throw new IllegalArgumentException("Maximum number of cached bundles cannot be less than 1");
+        }
+
+        values = new LocaleCache<Class<?>, MappedValues>(maxCachedBundles, true) {
+
+            @Override
+            protected MappedValues load(final Class<?> interfaceClass, final Locale locale) {
+                final InterfaceDescriptor descriptor = InterfaceDescriptor.get(interfaceClass);
+                return new MappedValues(locale, descriptor.getKeys(false), BundleCatalog.loadAll(interfaceClass, locale, true),
+                        keepDecodedValues);
+            }
+        };
+        missingTranslations = new MissingTranslationCache(new MissingTranslationCache.Lookup() {
+
+            public String find(final Class<?> interfaceClass, final String key, final Locale locale) {
+                final int slot = InterfaceDescriptor.get(interfaceClass).getSlot(key);
+                return slot >= 0 ? values.get(interfaceClass, locale).get(slot) : null;
+            }
+        });
+    }
+
+    /**
+     * Returns a snapshot of statistics of the cache which stores mapped catalogs.
+     * @return the statistics.
+     * @since 1.3.1
+     */
+    public BundleCacheStatistics getCacheStatistics() {
+        return values.getStatistics();
+    }
+
+    /**
+     * Sets the policy which decides what the bundles return when a translation is undefined. The policy should be set
+     * before the bundles are used. By default the bundles throw {@link UndefinedTranslationException}.
+     * @param policy the policy.
+     * @throws IllegalArgumentException if the policy is {@code null}.
+     * @since 1.3.1
+     * @see MissingTranslationPolicies
+     */
+    public void setMissingTranslationPolicy(final MissingTranslationPolicy policy) {
+        missingTranslations.setPolicy(policy);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws IllegalArgumentException if the interface class is {@code null}.
+     * @throws IllegalArgumentException if the locale is {@code null}.
+     * @since 1.3.1
+     * @see BundleValidator#validateInterface(Class)
+     */
+    @Override
+    public Bundle create(final Class<?> interfaceClass, final Locale locale) {
+        if (interfaceClass == null) {
+            throw new IllegalArgumentException("Interface class cannot be null");
+        }
+        if (locale == null) {
+            throw new IllegalArgumentException("Locale cannot be null");
+        }
+
+        return new MappedCatalogInvocationHandler(InterfaceDescriptor.get(interfaceClass), values, missingTranslations, locale)
+                .createBundle();
+    }
+
+    private static final class MappedValues {
+
+        private final Locale locale;
+        private final String[] keys;
+        private final BundleCatalog[] catalogs;
+        private final String[] decoded;
+        private final boolean[] missing;
+        private final boolean keepDecodedValues;
+
+        private MappedValues(final Locale locale, final String[] keys, final BundleCatalog[] catalogs, final boolean keepDecodedValues) {
+            this.locale = locale;
+            this.keys = keys;
+            this.catalogs = catalogs;
+            decoded = new String[keys.length];
+            missing = new boolean[keys.length];
+            this.keepDecodedValues = keepDecodedValues;
+        }
+
+        private String get(final int slot) {
+            String value = decoded[slot];
+            if (value != null || missing[slot]) {
+                return value;
+            }
+            for (int i = 0; i < catalogs.length && value == null; ++i) {
+                value = catalogs[i].get(keys[slot]);
+            }
+            if (value == null) {
+                // the catalogs never change, so the next calls go straight to the missing translation policy (the racy
+                // write is safe, at worst the catalogs are searched twice)
+                missing[slot] = true;
+            } else if (keepDecodedValues) {
+                value = BundleValuePool.intern(value);
+                // strings are immutable, so the racy write publishes the value safely (at worst it is decoded twice)
+                decoded[slot] = value;
+            }
+            return value;
+        }
+    }
+
+    private static final class MappedCatalogInvocationHandler extends BundleInvocationHandler {
+
+        private final Class<?> interfaceClass;
+        private final LocaleCache<Class<?>, MappedValues> values;
+        private volatile MappedValues loaded;
+
+        private MappedCatalogInvocationHandler(final InterfaceDescriptor descriptor, final LocaleCache<Class<?>, MappedValues> values,
+                final MissingTranslationCache missingTranslations, final Locale locale) {
+            super(descriptor, missingTranslations, locale);
+            interfaceClass = descriptor.getInterfaceClass();
+            this.values = values;
+        }
+
+        @Override
+        protected String[] loadValues(final Locale locale) {
+            final MappedValues localeValues = values.get(interfaceClass, locale);
+            loaded = localeValues;
+            // the values which are not decoded yet are decoded by findValue
+            return localeValues.decoded;
+        }
+
+        @Override
+        protected String findValue(final Locale locale, final int slot) {
+            MappedValues localeValues = loaded;
+            if (localeValues == null || !localeValues.locale.equals(locale)) {
+                localeValues = values.get(interfaceClass, locale);
+            }
+            return localeValues.get(slot);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.text.DateFormat;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * <p>
+ * Parsed pattern of a message returned by a getter with arguments. The patterns use the {@link MessageFormat} syntax
+ * and they are parsed once per (pattern, locale), the parsed templates are shared by all bundles.
+ * </p>
+ * <p>
+ * Patterns which contain only simple arguments (e.g. {@code Hello {0}}) are formatted without any intermediate objects
+ * - the arguments are appended to a builder with the exact capacity for the string arguments. The numbers and dates
+ * are formatted as by {@link MessageFormat}. Patterns which contain formats of the arguments (e.g.
+ * {@code {0,number,#.##}}) are formatted by {@link MessageFormat}.
+ * </p>
+ * <p>
+ * The formats are not thread-safe, so each thread uses its own copies created once per template (the
+ * {@link MessageFormat} is cloned from the parsed one), which are reused by next calls without locking.
+ * </p>
+ * @since 1.3.1
+ */
+final class MessageTemplate {
+
+    private static final int MAX_CACHED_TEMPLATES = 1024;
+    // the maximum number of digits in the argument index which cannot overflow
+    private static final int MAX_INDEX_LENGTH = 9;
+    // the capacity reserved for an argument which is not a string
+    private static final int ARGUMENT_CAPACITY = 16;
+
+    private static final LocaleCache<String, MessageTemplate> TEMPLATES = new LocaleCache<String, MessageTemplate>(MAX_CACHED_TEMPLATES,
+            false) {
+
+        @Override
+        protected MessageTemplate load(final String pattern, final Locale locale) {
+            return parse(pattern, locale);
+        }
+    };
+
+    private final Locale locale;
+    private final String[] literals;
+    private final int[] arguments;
+    private final int literalsLength;
+    private final MessageFormat format;
+    private final ThreadLocal<Formats> formats;
+
+    private MessageTemplate(final Locale locale, final String[] literals, final int[] arguments, final MessageFormat format) {
+        this.locale = locale;
+        this.literals = literals;
+        this.arguments = arguments;
+        int length = 0;
+        if (literals != null) {
+            for (final String literal : literals) {
+                length += literal.length();
+            }
+        }
+        literalsLength = length;
+        this.format = format;
+        formats = new ThreadLocal<Formats>() {
+
+            @Override
+            protected Formats initialValue() {
+                return new Formats(locale, format);
+            }
+        };
+    }
+
+    /**
+     * Formats the message. The template of the pattern is parsed on the first use and cached.
+     * @param pattern the pattern of the message.
+     * @param locale the locale of the message.
+     * @param args the arguments.
+     * @return the formatted message.
+     * @throws ReloadBundleException if the pattern is incorrect.
+     * @since 1.3.1
+     */
+    static String format(final String pattern, final Locale locale, final Object[] args) {
+        return TEMPLATES.get(pattern, locale).format(args);
+    }
+
+    /**
+     * Parses the pattern.
+     * @param pattern the pattern of the message.
+     * @param locale the locale of the message.
+     * @return the template.
+     * @throws ReloadBundleException if the pattern is incorrect.
+     * @since 1.3.1
+     */
+    static MessageTemplate parse(final String pattern, final Locale locale) {
+        final List<String> literals = new ArrayList<String>();
+        final List<Integer> arguments = new ArrayList<Integer>();
+        final StringBuilder literal = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < pattern.length(); ++i) {
+            final char character = pattern.charAt(i);
+            if (character == '\'') {
+                if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '\'') {
+                    literal.append(character);
+                    ++i;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (character == '{' && !quoted) {
+                final int end = pattern.indexOf('}', i + 1);
+                final int argument = end < 0 ? -1 : parseIndex(pattern.substring(i + 1, end));
+                if (argument < 0) {
+                    // formats of the arguments and incorrect patterns are handled by MessageFormat
+                    return new MessageTemplate(locale, null, null, createFormat(pattern, locale));
+                }
+                literals.add(literal.toString());
+                literal.setLength(0);
+                arguments.add(argument);
+                i = end;
+            } else {
+                literal.append(character);
+            }
+        }
+        literals.add(literal.toString());
+
+        final int[] indexes = new int[arguments.size()];
+        for (int i = 0; i < indexes.length; ++i) {
+            indexes[i] = arguments.get(i);
+        }
+        return new MessageTemplate(locale, literals.toArray(new String[literals.size()]), indexes, null);
+    }
+
+    private static int parseIndex(final String text) {
+        if (text.length() == 0 || text.length() > MAX_INDEX_LENGTH) {
+            return -1;
+        }
+        for (int i = 0; i < text.length(); ++i) {
+            if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+                return -1;
+            }
+        }
+        return Integer.parseInt(text);
+    }
+
+    private static MessageFormat createFormat(final String pattern, final Locale locale) {
+        try {
+            return new MessageFormat(pattern, locale);
+        } catch (final IllegalArgumentException e) {
+            throw new ReloadBundleException(String.format("Cannot parse the message \"%s\" for locale \"%s\"", pattern, locale), e);
+        }
+    }
+
+    /**
+     * Formats the message.
+     * @param args the arguments.
+     * @return the formatted message.
+     * @since 1.3.1
+     */
+    String format(final Object[] args) {
+        if (format != null) {
+            return formats.get().getMessageFormat().format(args);
+        }
+
+        int capacity = literalsLength;
+        for (final int argument : arguments) {
+            final Object value = args != null && argument < args.length ? args[argument] : null;
+            capacity += value instanceof String ? ((String) value).length() : ARGUMENT_CAPACITY;
+        }
+        final StringBuilder message = new StringBuilder(capacity);
+        for (int i = 0; i < arguments.length; ++i) {
+            message.append(literals[i]);
+            appendArgument(message, arguments[i], args);
+        }
+        return message.append(literals[arguments.length]).toString();
+    }
+
+    private void appendArgument(final StringBuilder message, final int argument, final Object[] args) {
+        if (args == null || argument >= args.length) {
+            // the same as MessageFormat does
+            message.append('{').append(argument).append('}');
+            return;
+        }
+        final Object value = args[argument];
+        if (value instanceof String) {
+            message.append((String) value);
+        } else if (value instanceof Number) {
+            message.append(formats.get().getNumberFormat().format(value));
+        } else if (value instanceof Date) {
+            message.append(formats.get().getDateFormat().format(value));
+        } else {
+            message.append(value);
+        }
+    }
+
+    /**
+     * The formats of the template used by one thread. The formats are created on the first use. The class is static, so
+     * the values stored in the threads do not reference the template (and its {@link ThreadLocal}), which allows to
+     * collect the evicted templates.
+     * @since 1.3.1
+     */
+    private static final class Formats {
+
+        private final Locale locale;
+        private final MessageFormat format;
+        private MessageFormat messageFormat;
+        private NumberFormat numberFormat;
+        private DateFormat dateFormat;
+
+        private Formats(final Locale locale, final MessageFormat format) {
+            this.locale = locale;
+            this.format = format;
+        }
+
+        private MessageFormat getMessageFormat() {
+            if (messageFormat == null) {
+                messageFormat = (MessageFormat) format.clone();
+            }
+            return messageFormat;
+        }
+
+        private NumberFormat getNumberFormat() {
+            if (numberFormat == null) {
+                numberFormat = NumberFormat.getInstance(locale);
+            }
+            return numberFormat;
+        }
+
+        private DateFormat getDateFormat() {
+            if (dateFormat == null) {
+                dateFormat = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, locale);
+            }
+            return dateFormat;
+        }
+    }
+}
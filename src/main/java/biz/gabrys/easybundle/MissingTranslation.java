@@ -0,0 +1,85 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.util.Locale;
+
+/**
+ * Describes a translation which is undefined for the bundle locale. Passed to the {@link MissingTranslationPolicy}.
+ * @since 1.3.1
+ */
+public final class MissingTranslation {
+
+    private final Class<?> interfaceClass;
+    private final String key;
+    private final Locale locale;
+    private final MissingTranslationCache.Lookup lookup;
+
+    MissingTranslation(final Class<?> interfaceClass, final String key, final Locale locale, final MissingTranslationCache.Lookup lookup) {
+        this.interfaceClass = interfaceClass;
+        this.key = key;
+        this.locale = locale;
+        this.lookup = lookup;
+    }
+
+    /**
+     * Returns the bundle interface class.
+     * @return the bundle interface class.
+     * @since 1.3.1
+     */
+    public Class<?> getInterfaceClass() {
+        return interfaceClass;
+    }
+
+    /**
+     * Returns the key of the translation (without the interface name).
+     * @return the key.
+     * @since 1.3.1
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the locale for which the translation is undefined.
+     * @return the locale.
+     * @since 1.3.1
+     */
+    public Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * Returns the translation defined for another locale.
+     * @param otherLocale the other locale.
+     * @return the translation or {@code null} if it is also undefined for the other locale.
+     * @throws IllegalArgumentException if the other locale is {@code null}.
+     * @throws ReloadBundleException if error occurred while loading translations for the other locale.
+     * @since 1.3.1
+     */
+    public String getValue(final Locale otherLocale) {
+        if (otherLocale == null) {
+            throw new IllegalArgumentException("Locale cannot be null");
+        }
+        return lookup.find(interfaceClass, key, otherLocale);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 1.3.1
+     */
+    @Override
+    public String toString() {
+        return interfaceClass.getName() + '.' + key + " [" + locale + ']';
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Stores results of the {@link MissingTranslationPolicy} per (interface, locale) pair, so the policy is invoked once per
+ * missing translation and the subsequent misses cost one lookup. The number of stored results is limited by the number
+ * of getters and used locales.
+ * @since 1.3.1
+ */
+final class MissingTranslationCache {
+
+    private final Lookup lookup;
+    private final ConcurrentMap<Class<?>, ConcurrentMap<Locale, ConcurrentMap<String, Object>>> values;
+    private volatile MissingTranslationPolicy policy;
+
+    /**
+     * Constructs a new instance with the {@link MissingTranslationPolicies#throwException() default} policy.
+     * @param lookup the lookup of the translations used by the policies.
+     * @since 1.3.1
+     */
+    MissingTranslationCache(final Lookup lookup) {
+        this.lookup = lookup;
+        values = new ConcurrentHashMap<Class<?>, ConcurrentMap<Locale, ConcurrentMap<String, Object>>>();
+        policy = MissingTranslationPolicies.throwException();
+    }
+
+    /**
+     * Sets the policy and removes results of the previous policy.
+     * @param policy the policy.
+     * @throws IllegalArgumentException if the policy is {@code null}.
+     * @since 1.3.1
+     */
+    void setPolicy(final MissingTranslationPolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("Policy cannot be null");
+        }
+        this.policy = policy;
+        values.clear();
+    }
+
+    /**
+     * Returns the value used instead of the missing translation.
+     * @param interfaceClass the bundle interface class.
+     * @param key the key of the translation (without the interface name).
+     * @param locale the bundle locale.
+     * @return the value.
+     * @throws UndefinedTranslationException if the policy throws the exception.
+     * @since 1.3.1
+     */
+    String get(final Class<?> interfaceClass, final String key, final Locale locale) {
+        final Object value = getResult(interfaceClass, key, locale);
+        if (value instanceof Undefined) {
+            throw new UndefinedTranslationException(((Undefined) value).message);
+        }
+        return (String) value;
+    }
+
+    /**
+     * Returns the value used instead of the missing translation or {@code null} if the policy throws
+     * {@link UndefinedTranslationException}.
+     * @param interfaceClass the bundle interface class.
+     * @param key the key of the translation (without the interface name).
+     * @param locale the bundle locale.
+     * @return the value or {@code null}.
+     * @since 1.3.1
+     */
+    String find(final Class<?> interfaceClass, final String key, final Locale locale) {
+        final Object value = getResult(interfaceClass, key, locale);
+        return value instanceof Undefined ? null : (String) value;
+    }
+
+    private Object getResult(final Class<?> interfaceClass, final String key, final Locale locale) {
+        final ConcurrentMap<String, Object> localeValues = getLocaleValues(interfaceClass, locale);
+        Object value = localeValues.get(key);
+        if (value == null) {
+            // the policy can report the missing translations, so it is invoked once per key
+            synchronized (localeValues) {
+                value = localeValues.get(key);
+                if (value == null) {
+                    value = resolve(interfaceClass, key, locale);
+                    localeValues.put(key, value);
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Removes the stored results for the interface (e.g. when its translations have been reloaded).
+     * @param interfaceClass the bundle interface class.
+     * @since 1.3.1
+     */
+    void clear(final Class<?> interfaceClass) {
+        values.remove(interfaceClass);
+    }
+
+    private ConcurrentMap<String, Object> getLocaleValues(final Class<?> interfaceClass, final Locale locale) {
+        ConcurrentMap<Locale, ConcurrentMap<String, Object>> interfaceValues = values.get(interfaceClass);
+        if (interfaceValues == null) {
+            interfaceValues = new ConcurrentHashMap<Locale, ConcurrentMap<String, Object>>();
+            final ConcurrentMap<Locale, ConcurrentMap<String, Object>> previous = values.putIfAbsent(interfaceClass, interfaceValues);
+            if (previous != null) {
+                interfaceValues = previous;
+            }
+        }
+        ConcurrentMap<String, Object> localeValues = interfaceValues.get(locale);
+        if (localeValues == null) {
+            localeValues = new ConcurrentHashMap<String, Object>();
+            final ConcurrentMap<String, Object> previous = interfaceValues.putIfAbsent(locale, localeValues);
+            if (previous != null) {
+                localeValues = previous;
+            }
+        }
+        return localeValues;
+    }
+
+    private Object resolve(final Class<?> interfaceClass, final String key, final Locale locale) {
+        final MissingTranslation translation = new MissingTranslation(interfaceClass, key, locale, lookup);
+        try {
+            final String value = policy.getValue(translation);
+            if (value != null) {
+                return value;
+            }
+        } catch (final UndefinedTranslationException e) {
+            return new Undefined(e.getMessage());
+        }
+        return new Undefined(String.format("Cannot find the message associated with the key \"%s\" for locale \"%s\"", key, locale));
+    }
+
+    /**
+     * Finds translations for the {@link MissingTranslation#getValue(Locale) policies}.
+     * @since 1.3.1
+     */
+    interface Lookup {
+
+        /**
+         * Finds the translation.
+         * @param interfaceClass the bundle interface class.
+         * @param key the key of the translation (without the interface name).
+         * @param locale the locale.
+         * @return the translation or {@code null} if it is undefined.
+         * @throws ReloadBundleException if error occurred while loading translations.
+         * @since 1.3.1
+         */
+        String find(Class<?> interfaceClass, String key, Locale locale);
+    }
+
+    private static final class Undefined {
+
+        private final String message;
+
+        private Undefined(final String message) {
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.util.Locale;
+
+/**
+ * Standard implementations of {@link MissingTranslationPolicy}.
+ * @since 1.3.1
+ */
+public final class MissingTranslationPolicies {
+
+    private static final MissingTranslationPolicy THROW_EXCEPTION = new MissingTranslationPolicy() {
+
+        public String getValue(final MissingTranslation translation) {
+            throw new UndefinedTranslationException(String.format("Cannot find the message associated with the key \"%s\" for locale \"%s\"",
+                    translation.getKey(), translation.getLocale()));
+        }
+    };
+
+    private static final MissingTranslationPolicy RETURN_KEY = new MissingTranslationPolicy() {
+
+        public String getValue(final MissingTranslation translation) {
+            return translation.getKey();
+        }
+    };
+
+    private MissingTranslationPolicies() {
+        // blocks the possibility of create a new instance
+    }
+
+    /**
+     * Returns the policy which throws {@link UndefinedTranslationException} (the default policy of the factories).
+     * @return the policy.
+     * @since 1.3.1
+     */
+    public static MissingTranslationPolicy throwException() {
+        return THROW_EXCEPTION;
+    }
+
+    /**
+     * Returns the policy which returns the key of the missing translation.
+     * @return the policy.
+     * @since 1.3.1
+     */
+    public static MissingTranslationPolicy returnKey() {
+        return RETURN_KEY;
+    }
+
+    /**
+     * Returns the policy which returns the default value.
+     * @param value the default value.
+     * @return the policy.
+     * @throws IllegalArgumentException if the value is {@code null}.
+     * @since 1.3.1
+     */
+    public static MissingTranslationPolicy returnDefault(final String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Value cannot be null");
+        }
+        return new MissingTranslationPolicy() {
+
+            public String getValue(final MissingTranslation translation) {
+                return value;
+            }
+        };
+    }
+
+    /**
+     * Returns the policy which returns the translation defined for the fallback locale. If the translation is also
+     * undefined for the fallback locale, then the other policy is used.
+     * @param locale the fallback locale.
+     * @param otherwise the policy used when the translation is undefined for the fallback locale.
+     * @return the policy.
+     * @throws IllegalArgumentException if the locale is {@code null}.
+     * @throws IllegalArgumentException if the other policy is {@code null}.
+     * @since 1.3.1
+     */
+    public static MissingTranslationPolicy fallbackLocale(final Locale locale, final MissingTranslationPolicy otherwise) {
+        if (locale == null) {
+            throw new IllegalArgumentException("Locale cannot be null");
+        }
+        if (otherwise == null) {
+            throw new IllegalArgumentException("Policy cannot be null");
+        }
+        return new MissingTranslationPolicy() {
+
+            public String getValue(final MissingTranslation translation) {
+                final String value = locale.equals(translation.getLocale()) ? null : translation.getValue(locale);
+                return value != null ? value : otherwise.getValue(translation);
+            }
+        };
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+/**
+ * <p>
+ * Decides what a bundle returns when the translation of a getter is undefined for the bundle locale. The policy is
+ * invoked once per missing (interface, locale, key) translation and its result is cached by the factory, so the
+ * subsequent calls of the getter cost one lookup and the policy can be used to report the missing translations.
+ * </p>
+ * <p>
+ * The policy can throw {@link UndefinedTranslationException} - then each call of the getter throws an exception with the
+ * same message.
+ * </p>
+ * @since 1.3.1
+ * @see MissingTranslationPolicies
+ */
+public interface MissingTranslationPolicy {
+
+    /**
+     * Returns the value used instead of the missing translation.
+     * @param translation the missing translation.
+     * @return the value (not {@code null}).
+     * @throws UndefinedTranslationException if the getter should throw the exception.
+     * @since 1.3.1
+     */
+    String getValue(MissingTranslation translation);
+}
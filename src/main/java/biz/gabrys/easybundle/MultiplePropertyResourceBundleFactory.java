@@ -12,13 +12,8 @@
  */
 package biz.gabrys.easybundle;
 
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
 import java.util.Locale;
-import java.util.MissingResourceException;
 import java.util.ResourceBundle;
-import java.util.ResourceBundle.Control;
 
 /**
  * <p>
@@ -147,18 +142,119 @@ import java.util.ResourceBundle.Control;
  * default
  * </pre>
  * 
+ * <p>
+ * The factory caches loaded files of the (interface, locale) pairs, so switching back to a recently used locale does
+ * not read any files. The cache evicts the least recently used files when its size exceeds the limit passed to
+ * {@link #MultiplePropertyResourceBundleFactory(int)} (by default {@link #DEFAULT_MAX_CACHED_BUNDLES}). The factory does
+ * not keep the evicted files: a pair used again is requested from
+ * {@link ResourceBundle#getBundle(String, Locale, ClassLoader, ResourceBundle.Control)}, which returns the files from the
+ * JDK cache if they are still there, otherwise it parses them again. The cache statistics are available by
+ * {@link #getCacheStatistics()}.
+ * </p>
+ * <p>
+ * By default a missing translation is searched in the less specific files by walking the parent bundles. The factory
+ * created by {@link #MultiplePropertyResourceBundleFactory(int, int)} merges the files into one flat table per
+ * (interface, locale) when they are loaded, and it limits the number of merged files.
+ * </p>
+ * <p>
+ * If the interface is marked with {@link PrecompiledBundle} and its class was generated at compile time, then the
+ * factory creates an instance of the generated class instead of a proxy.
+ * </p>
  * @since 1.0
  * @see BundleValidator
  * @see PropertyResourceBundleFactory
  */
 public class MultiplePropertyResourceBundleFactory implements BundleFactory {
 
+    /**
+     * The default maximum number of cached (interface, locale) files.
+     * @since 1.3.1
+     */
+    public static final int DEFAULT_MAX_CACHED_BUNDLES = 256;
+
+    private final ResourceBundleCache<Class<?>> bundles;
+    private final GeneratedBundleFactory precompiledFactory;
+    private final MissingTranslationCache missingTranslations;
+
     /**
      * Constructs a new instance.
      * @since 1.0
      */
     public MultiplePropertyResourceBundleFactory() {
-        // do nothing
+        this(DEFAULT_MAX_CACHED_BUNDLES);
+    }
+
+    /**
+     * Constructs a new instance.
+     * @param maxCachedBundles the maximum number of cached (interface, locale) files.
+     * @throws IllegalArgumentException if the maximum number of cached files is less than 1.
+     * @since 1.3.1
+     */
+    public MultiplePropertyResourceBundleFactory(final int maxCachedBundles) {
+        this(maxCachedBundles, ResourceBundleCache.CHAINED, false);
+    }
+
+    /**
+     * Constructs a new instance which merges translations of the less specific files into one flat table per
+     * (interface, locale) when the files are loaded, so a translation is found by one lookup instead of walking the
+     * parent files.
+     * @param maxCachedBundles the maximum number of cached (interface, locale) files.
+     * @param fallbackDepth the maximum number of less specific existing files merged into the table (e.g. {@code 2}
+     *            for {@code de_AT}: {@code de} and the base file, {@code 0} disables the fallback).
+     * @throws IllegalArgumentException if the maximum number of cached files is less than 1.
+     * @throws IllegalArgumentException if the fallback depth is less than 0.
+     * @since 1.3.1
+     */
+    public MultiplePropertyResourceBundleFactory(final int maxCachedBundles, final int fallbackDepth) {
+        this(maxCachedBundles, fallbackDepth, true);
+    }
+
+    private MultiplePropertyResourceBundleFactory(final int maxCachedBundles, final int fallbackDepth, final boolean flat) {
+        if (maxCachedBundles < 1) {
+            throw new IllegalArgumentException("Maximum number of cached bundles cannot be less than 1");
+        }
+        if (flat && fallbackDepth < 0) {
+            throw new IllegalArgumentException("Fallback depth cannot be less than 0");
+        }
+
+        bundles = new ResourceBundleCache<Class<?>>(maxCachedBundles, fallbackDepth) {
+
+            @Override
+            protected MapResourceBundle loadBundle(final Class<?> interfaceClass, final Locale locale) {
+                return PooledPropertiesControl.getBundle(interfaceClass.getName(), locale, interfaceClass.getClassLoader());
+            }
+        };
+        precompiledFactory = new GeneratedBundleFactory(null, maxCachedBundles, fallbackDepth);
+        missingTranslations = new MissingTranslationCache(new MissingTranslationCache.Lookup() {
+
+            public String find(final Class<?> interfaceClass, final String key, final Locale locale) {
+                final InterfaceDescriptor descriptor = InterfaceDescriptor.get(interfaceClass);
+                final int slot = descriptor.getSlot(key);
+                return slot >= 0 ? getValues(descriptor, locale)[slot] : null;
+            }
+        });
+    }
+
+    /**
+     * Returns a snapshot of statistics of the cache which stores loaded files.
+     * @return the statistics.
+     * @since 1.3.1
+     */
+    public BundleCacheStatistics getCacheStatistics() {
+        return bundles.getStatistics();
+    }
+
+    /**
+     * Sets the policy which decides what the bundles return when a translation is undefined. The policy should be set
+     * before the bundles are used. By default the bundles throw {@link UndefinedTranslationException}.
+     * @param policy the policy.
+     * @throws IllegalArgumentException if the policy is {@code null}.
+     * @since 1.3.1
+     * @see MissingTranslationPolicies
+     */
+    public void setMissingTranslationPolicy(final MissingTranslationPolicy policy) {
+        missingTranslations.setPolicy(policy);
+        precompiledFactory.setMissingTranslationPolicy(policy);
     }
 
     /**
@@ -177,63 +273,20 @@ public class MultiplePropertyResourceBundleFactory implements BundleFactory {
             throw new IllegalArgumentException("Locale cannot be null");
         }
 
-        return (Bundle) Proxy.newProxyInstance(interfaceClass.getClassLoader(), new Class<?>[] { interfaceClass, Bundle.class },
-                new MultiplePropertyResourceInvocationHandler(interfaceClass, locale));
-    }
-
-    private static final class MultiplePropertyResourceInvocationHandler implements InvocationHandler {
-
-        private final Object mutex = new Object();
-
-        private final Class<?> interfaceClass;
-        private Locale locale;
-        private ResourceBundle bundle;
-
-        private MultiplePropertyResourceInvocationHandler(final Class<?> interfaceClass, final Locale locale) {
-            this.interfaceClass = interfaceClass;
-            this.locale = locale;
-        }
-
-        @Override
-        public Object invoke(final Object proxy, final Method method, final Object[] args) {
-            synchronized (mutex) {
-                if (BundleValidator.isMethodCorrect(method)) {
-                    return getValue(method.getName());
-
-                } else if (Bundle.CHANGE_LANGUAGE_METHOD_NAME.equals(method.getName())) {
-                    locale = (Locale) args[0];
-                    bundle = null;
-                    return null;
-                }
-            }
-
-            throw new InvalidInterfaceException(
-                    String.format("Definition of the bundle interface \"%s\" is invalid (unsupported method: \"%s\")",
-                            interfaceClass.getName(), method.getName()));
+        final InterfaceDescriptor descriptor = InterfaceDescriptor.get(interfaceClass);
+        if (descriptor.getPrecompiledClass() != null) {
+            return precompiledFactory.create(interfaceClass, locale);
         }
+        return new BundleInvocationHandler(descriptor, missingTranslations, locale) {
 
-        private String getValue(final String methodName) {
-            initBundle();
-
-            String key = methodName.substring(BundleValidator.METHOD_NAME_PREFIX.length());
-            key = key.substring(0, 1).toLowerCase(locale) + key.substring(1);
-            if (bundle.containsKey(key)) {
-                return bundle.getString(key);
-            } else {
-                throw new UndefinedTranslationException(
-                        String.format("Cannot find the message associated with the key \"%s\" for locale \"%s\"", key, locale));
+            @Override
+            protected String[] loadValues(final Locale locale) {
+                return getValues(descriptor, locale);
             }
-        }
+        }.createBundle();
+    }
 
-        private void initBundle() {
-            if (bundle == null) {
-                try {
-                    bundle = ResourceBundle.getBundle(interfaceClass.getName(), locale, interfaceClass.getClassLoader(),
-                            Control.getNoFallbackControl(Control.FORMAT_PROPERTIES));
-                } catch (final MissingResourceException e) {
-                    throw new ReloadBundleException(e);
-                }
-            }
-        }
+    private String[] getValues(final InterfaceDescriptor descriptor, final Locale locale) {
+        return bundles.getValues(descriptor.getInterfaceClass(), locale, descriptor, false);
     }
 }
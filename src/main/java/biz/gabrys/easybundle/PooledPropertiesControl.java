@@ -0,0 +1,132 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.Properties;
+import java.util.ResourceBundle;
+
+/**
+ * {@link ResourceBundle.Control} which loads properties files without a fallback locale (as
+ * {@link ResourceBundle.Control#getNoFallbackControl(List) the no fallback control} for
+ * {@link ResourceBundle.Control#FORMAT_PROPERTIES}) and stores the values in the {@link BundleValuePool}.
+ * @since 1.3.1
+ */
+final class PooledPropertiesControl extends ResourceBundle.Control {
+
+    /**
+     * The shared instance.
+     * @since 1.3.1
+     */
+    static final PooledPropertiesControl INSTANCE = new PooledPropertiesControl();
+
+    private PooledPropertiesControl() {
+        // the control is stateless, use the shared instance
+    }
+
+    /**
+     * Loads the bundle by the shared control. The JDK bundle cache does not take the control into account, so it may
+     * return a bundle (or a parent bundle) loaded earlier by another control, e.g. a
+     * {@link java.util.PropertyResourceBundle} loaded by {@link ResourceBundle#getBundle(String)}. In that case the bundle
+     * chain is loaded again by this control (bypassing the JDK cache), so the returned bundles always store the pooled
+     * values.
+     * @param baseName the base name of the bundle.
+     * @param locale the locale.
+     * @param loader the class loader from which to load the bundle.
+     * @return the bundle whose parents are also created by the control.
+     * @throws ReloadBundleException if the bundle cannot be loaded.
+     * @since 1.3.1
+     */
+    static MapResourceBundle getBundle(final String baseName, final Locale locale, final ClassLoader loader) {
+        final ResourceBundle bundle;
+        try {
+            bundle = ResourceBundle.getBundle(baseName, locale, loader, INSTANCE);
+        } catch (final MissingResourceException e) {
+            throw new ReloadBundleException(e);
+        }
+        if (MapResourceBundle.isChain(bundle)) {
+            return (MapResourceBundle) bundle;
+        }
+        return loadChain(baseName, locale, loader);
+    }
+
+    private static MapResourceBundle loadChain(final String baseName, final Locale locale, final ClassLoader loader) {
+        final List<Locale> candidates = INSTANCE.getCandidateLocales(baseName, locale);
+        MapResourceBundle bundle = null;
+        for (int i = candidates.size() - 1; i >= 0; --i) {
+            final MapResourceBundle loaded;
+            try {
+                loaded = INSTANCE.newBundle(baseName, candidates.get(i), FORMAT_PROPERTIES.get(0), loader, false);
+            } catch (final IOException e) {
+                throw new ReloadBundleException(e);
+            }
+            if (loaded != null) {
+                loaded.setParentBundle(bundle);
+                bundle = loaded;
+            }
+        }
+        if (bundle == null) {
+            throw new ReloadBundleException(String.format("Cannot find bundle for base name %s, locale %s", baseName, locale));
+        }
+        return bundle;
+    }
+
+    @Override
+    public List<String> getFormats(final String baseName) {
+        if (baseName == null) {
+            throw new NullPointerException();
+        }
+        return FORMAT_PROPERTIES;
+    }
+
+    @Override
+    public Locale getFallbackLocale(final String baseName, final Locale locale) {
+        if (baseName == null || locale == null) {
+            throw new NullPointerException();
+        }
+        return null;
+    }
+
+    @Override
+    public MapResourceBundle newBundle(final String baseName, final Locale locale, final String format, final ClassLoader loader,
+            final boolean reload) throws IOException {
+        final URL url = loader.getResource(toResourceName(toBundleName(baseName, locale), "properties"));
+        if (url == null) {
+            return null;
+        }
+        final URLConnection connection = url.openConnection();
+        if (reload) {
+            connection.setUseCaches(false);
+        }
+        final Properties properties = new Properties();
+        final InputStream stream = connection.getInputStream();
+        try {
+            properties.load(stream);
+        } finally {
+            stream.close();
+        }
+        final Map<String, String> values = new HashMap<String, String>();
+        for (final String key : properties.stringPropertyNames()) {
+            values.put(key, BundleValuePool.intern(properties.getProperty(key)));
+        }
+        return new MapResourceBundle(values);
+    }
+}
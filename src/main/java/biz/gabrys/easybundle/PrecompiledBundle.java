@@ -0,0 +1,57 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ * Marks a bundle interface whose implementation should be generated at compile time by
+ * {@link biz.gabrys.easybundle.processor.BundleProcessor}. The processor validates the interface with the same rules
+ * as {@link BundleValidator} and generates a class which extends {@link GeneratedBundle}. Factories provided by the
+ * library use the generated class (when it exists) instead of creating a {@link java.lang.reflect.Proxy proxy} or
+ * generating a class at runtime.
+ * </p>
+ * <p>
+ * The processor is registered as a service ({@code META-INF/services/javax.annotation.processing.Processor}), so the
+ * compiler runs it automatically when the library is on the class path. If the processors are listed explicitly, the
+ * processor must be added to the list, e.g.:
+ * </p>
+ *
+ * <pre>
+ * javac -processor biz.gabrys.easybundle.processor.BundleProcessor ...
+ * </pre>
+ * <p>
+ * Example:
+ * </p>
+ *
+ * <pre>
+ * &#64;PrecompiledBundle
+ * public interface Messages {
+ *
+ *     String getTitle();
+ * }
+ * </pre>
+ * @since 1.3.1
+ * @see GeneratedBundleFactory
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface PrecompiledBundle {
+
+}
@@ -0,0 +1,53 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.util.Locale;
+
+/**
+ * The interface implemented by bundles which can load translations for a locale before switching to it. The
+ * {@link BundleManagerImpl manager} prepares all bundles first and changes their locale only when all translations have
+ * been loaded successfully, so the subsequent {@link #setLocale(Locale)} does not read any files.
+ * @since 1.3.1
+ * @see BundleManagerImpl#setLocale(Locale)
+ */
+public interface PreparableBundle extends Bundle {
+
+    /**
+     * Name of the method which is responsible for preparing bundle locale.
+     * @since 1.3.1
+     */
+    String PREPARE_LANGUAGE_METHOD_NAME = "prepareLocale";
+
+    /**
+     * Name of the method which is responsible for discarding prepared translations.
+     * @since 1.3.1
+     */
+    String DISCARD_PREPARED_LANGUAGE_METHOD_NAME = "discardPreparedLocale";
+
+    /**
+     * Loads translations for the locale without changing the bundle locale. The translations are used by the next call
+     * of {@link #setLocale(Locale)} if it is called with the same locale, otherwise they are discarded.
+     * @param locale the locale which will be set.
+     * @throws ReloadBundleException if error occurred while loading translations.
+     * @since 1.3.1
+     */
+    void prepareLocale(Locale locale);
+
+    /**
+     * Discards translations loaded by {@link #prepareLocale(Locale)}, so they are not used by the next call of
+     * {@link #setLocale(Locale)}.
+     * @since 1.3.1
+     */
+    void discardPreparedLocale();
+}
@@ -12,15 +12,8 @@
  */
 package biz.gabrys.easybundle;
 
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
 import java.util.Locale;
-import java.util.Map;
-import java.util.MissingResourceException;
 import java.util.ResourceBundle;
-import java.util.ResourceBundle.Control;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * <p>
@@ -155,14 +148,40 @@ import java.util.concurrent.ConcurrentHashMap;
  * default
  * </pre>
  * 
+ * <p>
+ * If the interface is marked with {@link PrecompiledBundle} and its class was generated at compile time, then the
+ * factory creates an instance of the generated class instead of a proxy.
+ * </p>
+ * <p>
+ * The factory caches loaded locales. The cache evicts the least recently used locales when its size exceeds the limit
+ * passed to {@link #PropertyResourceBundleFactory(String, int)} (by default {@link #DEFAULT_MAX_CACHED_LOCALES}). The
+ * limit is the only bound of the cache (it is neither limited by bytes nor by idle time). The factory does not keep the
+ * evicted locales: a locale used again is requested from {@link ResourceBundle#getBundle(String, Locale,
+ * ResourceBundle.Control)}, which returns the files from the JDK cache if they are still there, otherwise it parses
+ * them again. The estimated footprints of the locales are available by {@link #getFootprint(Locale)} and
+ * {@link #getCacheStatistics()}.
+ * </p>
+ * <p>
+ * By default a missing translation is searched in the less specific files by walking the parent bundles. The factory
+ * created by {@link #PropertyResourceBundleFactory(String, int, int)} merges the files into one flat table per locale
+ * when they are loaded, and it limits the number of merged files.
+ * </p>
  * @since 1.0
  * @see BundleValidator
  * @see MultiplePropertyResourceBundleFactory
  */
 public class PropertyResourceBundleFactory implements BundleFactory {
 
-    private final Map<Locale, ResourceBundle> bundles;
+    /**
+     * The default maximum number of cached locales.
+     * @since 1.3.1
+     */
+    public static final int DEFAULT_MAX_CACHED_LOCALES = 64;
+
+    private final ResourceBundleCache<String> bundles;
+    private final GeneratedBundleFactory precompiledFactory;
     private final String filePathPrefix;
+    private final MissingTranslationCache missingTranslations;
 
     /**
      * Constructs a new instance of {@link PropertyResourceBundleFactory} and sets file path prefix.
@@ -171,12 +190,104 @@ public class PropertyResourceBundleFactory implements BundleFactory {
      * @since 1.0
      */
     public PropertyResourceBundleFactory(final String filePathPrefix) {
+        this(filePathPrefix, DEFAULT_MAX_CACHED_LOCALES);
+    }
+
+    /**
+     * Constructs a new instance of {@link PropertyResourceBundleFactory} and sets file path prefix.
+     * @param filePathPrefix the file path prefix.
+     * @param maxCachedLocales the maximum number of cached locales.
+     * @throws IllegalArgumentException if the file path prefix is {@code null}.
+     * @throws IllegalArgumentException if the maximum number of cached locales is less than 1.
+     * @since 1.3.1
+     */
+    public PropertyResourceBundleFactory(final String filePathPrefix, final int maxCachedLocales) {
+        this(filePathPrefix, maxCachedLocales, ResourceBundleCache.CHAINED, false);
+    }
+
+    /**
+     * Constructs a new instance of {@link PropertyResourceBundleFactory} which merges translations of the less specific
+     * files into one flat table per locale when the files are loaded, so a translation is found by one lookup instead
+     * of walking the parent files.
+     * @param filePathPrefix the file path prefix.
+     * @param maxCachedLocales the maximum number of cached locales.
+     * @param fallbackDepth the maximum number of less specific existing files merged into the table (e.g. {@code 2}
+     *            for {@code de_AT}: {@code de} and the base file, {@code 0} disables the fallback).
+     * @throws IllegalArgumentException if the file path prefix is {@code null}.
+     * @throws IllegalArgumentException if the maximum number of cached locales is less than 1.
+     * @throws IllegalArgumentException if the fallback depth is less than 0.
+     * @since 1.3.1
+     */
+    public PropertyResourceBundleFactory(final String filePathPrefix, final int maxCachedLocales, final int fallbackDepth) {
+        this(filePathPrefix, maxCachedLocales, fallbackDepth, true);
+    }
+
+    private PropertyResourceBundleFactory(final String filePathPrefix, final int maxCachedLocales, final int fallbackDepth,
+            final boolean flat) {
         if (filePathPrefix == null) {
             throw new IllegalArgumentException("File path prefix cannot be null");
         }
+        if (maxCachedLocales < 1) {
+            throw new IllegalArgumentException("Maximum number of cached locales cannot be less than 1");
+        }
+        if (flat && fallbackDepth < 0) {
+            throw new IllegalArgumentException("Fallback depth cannot be less than 0");
+        }
 
         this.filePathPrefix = filePathPrefix;
-        bundles = new ConcurrentHashMap<Locale, ResourceBundle>();
+        bundles = new ResourceBundleCache<String>(maxCachedLocales, fallbackDepth) {
+
+            @Override
+            protected MapResourceBundle loadBundle(final String baseName, final Locale locale) {
+                return PooledPropertiesControl.getBundle(baseName, locale, PropertyResourceBundleFactory.class.getClassLoader());
+            }
+        };
+        precompiledFactory = new GeneratedBundleFactory(filePathPrefix, GeneratedBundleFactory.DEFAULT_MAX_CACHED_BUNDLES, fallbackDepth);
+        missingTranslations = new MissingTranslationCache(new MissingTranslationCache.Lookup() {
+
+            public String find(final Class<?> interfaceClass, final String key, final Locale locale) {
+                final InterfaceDescriptor descriptor = InterfaceDescriptor.get(interfaceClass);
+                final int slot = descriptor.getSlot(key);
+                return slot >= 0 ? getValues(descriptor, locale)[slot] : null;
+            }
+        });
+    }
+
+    /**
+     * Returns a snapshot of statistics of the cache which stores loaded locales.
+     * @return the statistics.
+     * @since 1.3.1
+     */
+    public BundleCacheStatistics getCacheStatistics() {
+        return bundles.getStatistics();
+    }
+
+    /**
+     * Returns the estimated number of bytes occupied by the translations of the locale (including the translations
+     * inherited from the parent locales). The estimation can be used to choose the maximum number of cached locales.
+     * @param locale the locale.
+     * @return the estimated number of bytes or {@code 0} if the locale is not cached.
+     * @throws IllegalArgumentException if the locale is {@code null}.
+     * @since 1.3.1
+     */
+    public long getFootprint(final Locale locale) {
+        if (locale == null) {
+            throw new IllegalArgumentException("Locale cannot be null");
+        }
+        return bundles.getFootprint(filePathPrefix, locale);
+    }
+
+    /**
+     * Sets the policy which decides what the bundles return when a translation is undefined. The policy should be set
+     * before the bundles are used. By default the bundles throw {@link UndefinedTranslationException}.
+     * @param policy the policy.
+     * @throws IllegalArgumentException if the policy is {@code null}.
+     * @since 1.3.1
+     * @see MissingTranslationPolicies
+     */
+    public void setMissingTranslationPolicy(final MissingTranslationPolicy policy) {
+        missingTranslations.setPolicy(policy);
+        precompiledFactory.setMissingTranslationPolicy(policy);
     }
 
     /**
@@ -195,70 +306,20 @@ public class PropertyResourceBundleFactory implements BundleFactory {
             throw new IllegalArgumentException("Locale cannot be null");
         }
 
-        return (Bundle) Proxy.newProxyInstance(interfaceClass.getClassLoader(), new Class<?>[] { interfaceClass, Bundle.class },
-                new PropertyResourceInvocationHandler(interfaceClass, locale));
-    }
-
-    private final class PropertyResourceInvocationHandler implements InvocationHandler {
-
-        private final Object mutex = new Object();
-
-        private final Class<?> interfaceClass;
-        private Locale locale;
-
-        private PropertyResourceInvocationHandler(final Class<?> interfaceClass, final Locale locale) {
-            this.interfaceClass = interfaceClass;
-            this.locale = locale;
+        final InterfaceDescriptor descriptor = InterfaceDescriptor.get(interfaceClass);
+        if (descriptor.getPrecompiledClass() != null) {
+            return precompiledFactory.create(interfaceClass, locale);
         }
+        return new BundleInvocationHandler(descriptor, missingTranslations, locale) {
 
-        @Override
-        public Object invoke(final Object proxy, final Method method, final Object[] args) {
-            synchronized (mutex) {
-                if (BundleValidator.isMethodCorrect(method)) {
-                    return getValue(method.getName());
-
-                } else if (Bundle.CHANGE_LANGUAGE_METHOD_NAME.equals(method.getName())) {
-                    locale = (Locale) args[0];
-                    return null;
-                }
+            @Override
+            protected String[] loadValues(final Locale locale) {
+                return getValues(descriptor, locale);
             }
+        }.createBundle();
+    }
 
-            throw new InvalidInterfaceException(
-                    String.format("Definition of the bundle interface \"%s\" is invalid (unsupported method: \"%s\")",
-                            interfaceClass.getName(), method.getName()));
-        }
-
-        private String getValue(final String methodName) {
-            final ResourceBundle bundle = getBundle();
-
-            String key = methodName.substring(BundleValidator.METHOD_NAME_PREFIX.length());
-            key = key.substring(0, 1).toLowerCase(locale) + key.substring(1);
-            key = interfaceClass.getName() + '.' + key;
-            if (bundle.containsKey(key)) {
-                return bundle.getString(key);
-            } else {
-                throw new UndefinedTranslationException(
-                        String.format("Cannot find the message associated with the key \"%s\" for locale \"%s\"", key, locale));
-            }
-        }
-
-        private ResourceBundle getBundle() {
-            ResourceBundle bundle = bundles.get(locale);
-            if (bundle == null) {
-                synchronized (PropertyResourceBundleFactory.this) {
-                    bundle = bundles.get(locale);
-                    if (bundle == null) {
-                        try {
-                            bundle = ResourceBundle.getBundle(filePathPrefix, locale,
-                                    Control.getNoFallbackControl(Control.FORMAT_PROPERTIES));
-                            bundles.put(locale, bundle);
-                        } catch (final MissingResourceException e) {
-                            throw new ReloadBundleException(e);
-                        }
-                    }
-                }
-            }
-            return bundle;
-        }
+    private String[] getValues(final InterfaceDescriptor descriptor, final Locale locale) {
+        return bundles.getValues(filePathPrefix, locale, descriptor, true);
     }
 }
@@ -0,0 +1,304 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.io.File;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Implementation of {@link BundleFactory} which reads translations from properties files stored in an external
+ * directory and reloads them when the files change, so translation fixes can be deployed without restarting the
+ * application. The files are named as by {@link MultiplePropertyResourceBundleFactory}, but their paths are relative
+ * to the directory (e.g. {@code directory/org/example/Messages_pl.properties}).
+ * </p>
+ * <p>
+ * The factory does not reload anything by itself. {@link #reload()} checks the modification times of the files used by
+ * the loaded (interface, locale) pairs, re-parses only the pairs whose files changed and swaps their translations
+ * atomically - all bundles see the new translations immediately. The unchanged pairs stay loaded. After the swap the
+ * factory notifies the listeners {@link #register(Class, BundleReloadListener) registered} for the changed interfaces.
+ * </p>
+ * <p>
+ * How to use the factory:
+ * </p>
+ *
+ * <pre>
+ * final {@link ReloadingPropertyResourceBundleFactory} factory = new {@link ReloadingPropertyResourceBundleFactory}(new File("/etc/app/translations"));
+ * final {@link BundleManager} manager = new {@link BundleManagerImpl}(factory);
+ * factory.{@link #register(Class, BundleReloadListener) register}(Messages.class, listener);
+ * factory.{@link #watch(ScheduledExecutorService, long, TimeUnit) watch}(scheduler, 10, TimeUnit.SECONDS);
+ * </pre>
+ * <p>
+ * The factory caches the translations of the loaded (interface, locale) pairs. The cache evicts the least recently used
+ * pairs when its size exceeds the limit passed to {@link #ReloadingPropertyResourceBundleFactory(File, int)} (by
+ * default {@link #DEFAULT_MAX_CACHED_BUNDLES}). The evicted pairs are not checked by {@link #reload()}, their files are
+ * read again when they are used next time. Concurrent reloads are serialised, so each change is swapped and notified
+ * once.
+ * </p>
+ * @since 1.3.1
+ * @see MultiplePropertyResourceBundleFactory
+ */
+public class ReloadingPropertyResourceBundleFactory implements BundleFactory {
+
+    /**
+     * The default maximum number of cached (interface, locale) translations.
+     * @since 1.3.1
+     */
+    public static final int DEFAULT_MAX_CACHED_BUNDLES = 256;
+
+    private final Object reloadMutex = new Object();
+    private final File directory;
+    private final LocaleCache<Class<?>, TableHolder> tables;
+    private final ConcurrentMap<Class<?>, BundleReloadListeners> listeners;
+    private final MissingTranslationCache missingTranslations;
+    private final AtomicInteger generation;
+
+    /**
+     * Constructs a new instance of {@link ReloadingPropertyResourceBundleFactory}.
+     * @param directory the directory which contains the properties files.
+     * @throws IllegalArgumentException if the directory is {@code null}.
+     * @since 1.3.1
+     */
+    public ReloadingPropertyResourceBundleFactory(final File directory) {
+        this(directory, DEFAULT_MAX_CACHED_BUNDLES);
+    }
+
+    /**
+     * Constructs a new instance of {@link ReloadingPropertyResourceBundleFactory}.
+     * @param directory the directory which contains the properties files.
+     * @param maxCachedBundles the maximum number of cached (interface, locale) translations.
+     * @throws IllegalArgumentException if the directory is {@code null}.
+     * @throws IllegalArgumentException if the maximum number of cached translations is less than 1.
+     * @since 1.3.1
+     */
+    public ReloadingPropertyResourceBundleFactory(final File directory, final int maxCachedBundles) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory cannot be null");
+        }
+        if (maxCachedBundles < 1) {
+            throw new IllegalArgumentException("Maximum number of cached bundles cannot be less than 1");
+        }
+
+        this.directory = directory;
+        generation = new AtomicInteger();
+        tables = new LocaleCache<Class<?>, TableHolder>(maxCachedBundles, false) {
+
+            @Override
+            protected TableHolder load(final Class<?> interfaceClass, final Locale locale) {
+                return new TableHolder(interfaceClass, locale, TranslationTable.load(directory, interfaceClass.getName(), locale));
+            }
+
+            @Override
+            protected void evicted(final Class<?> interfaceClass, final Locale locale, final TableHolder holder) {
+                // the bundles which use the evicted translations load them again, so they do not miss later changes
+                generation.incrementAndGet();
+            }
+        };
+        listeners = new ConcurrentHashMap<Class<?>, BundleReloadListeners>();
+        missingTranslations = new MissingTranslationCache(new MissingTranslationCache.Lookup() {
+
+            public String find(final Class<?> interfaceClass, final String key, final Locale locale) {
+                return tables.get(interfaceClass, locale).values.table.get(key);
+            }
+        });
+    }
+
+    /**
+     * Sets the policy which decides what the bundles return when a translation is undefined. The policy should be set
+     * before the bundles are used. By default the bundles throw {@link UndefinedTranslationException}.
+     * @param policy the policy.
+     * @throws IllegalArgumentException if the policy is {@code null}.
+     * @since 1.3.1
+     * @see MissingTranslationPolicies
+     */
+    public void setMissingTranslationPolicy(final MissingTranslationPolicy policy) {
+        missingTranslations.setPolicy(policy);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws IllegalArgumentException if the interface class is {@code null}.
+     * @throws IllegalArgumentException if the locale is {@code null}.
+     * @since 1.3.1
+     * @see BundleValidator#validateInterface(Class)
+     */
+    @Override
+    public Bundle create(final Class<?> interfaceClass, final Locale locale) {
+        if (interfaceClass == null) {
+            throw new IllegalArgumentException("Interface class cannot be null");
+        }
+        if (locale == null) {
+            throw new IllegalArgumentException("Locale cannot be null");
+        }
+
+        return new BundleInvocationHandler(InterfaceDescriptor.get(interfaceClass), missingTranslations, locale) {
+
+            @Override
+            protected String[] loadValues(final Locale locale) {
+                return tables.get(interfaceClass, locale).values.values;
+            }
+
+            @Override
+            protected int getGeneration() {
+                return generation.get();
+            }
+        }.createBundle();
+    }
+
+    /**
+     * Reloads the translations whose files were created, modified or deleted since they were loaded and notifies the
+     * listeners registered for the changed interfaces. If the files cannot be loaded (e.g. all of them were deleted),
+     * then the previous translations are kept.
+     * @return the changed interfaces.
+     * @throws UndefinedTranslationException if a bundle cannot find a translation for specified key while reloading the
+     *             listener.
+     * @since 1.3.1
+     */
+    public Set<Class<?>> reload() {
+        final Set<Class<?>> changed = new LinkedHashSet<Class<?>>();
+        // concurrent reloads would swap and notify the same changes twice
+        synchronized (reloadMutex) {
+            for (final TableHolder holder : tables.getValues()) {
+                if (holder.reload(directory)) {
+                    changed.add(holder.interfaceClass);
+                }
+            }
+            if (!changed.isEmpty()) {
+                // the bundles load the swapped values on their next call
+                generation.incrementAndGet();
+            }
+        }
+        for (final Class<?> interfaceClass : changed) {
+            missingTranslations.clear(interfaceClass);
+            final BundleReloadListeners interfaceListeners = listeners.get(interfaceClass);
+            if (interfaceListeners != null) {
+                interfaceListeners.notifyListeners();
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Schedules periodic {@link #reload() reloads}.
+     * @param executor the executor which runs the reloads.
+     * @param period the period between the reloads.
+     * @param unit the time unit of the period.
+     * @return the future which can be used to stop the reloads.
+     * @throws IllegalArgumentException if the executor is {@code null}.
+     * @throws IllegalArgumentException if the unit is {@code null}.
+     * @since 1.3.1
+     */
+    public ScheduledFuture<?> watch(final ScheduledExecutorService executor, final long period, final TimeUnit unit) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("Unit cannot be null");
+        }
+
+        return executor.scheduleWithFixedDelay(new Runnable() {
+
+            public void run() {
+                reload();
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Adds a listener which will be notified when the translations of the interface are reloaded.
+     * @param interfaceClass the bundle interface class.
+     * @param listener the listener.
+     * @throws IllegalArgumentException if the interface class is {@code null}.
+     * @throws IllegalArgumentException if the listener is {@code null}.
+     * @since 1.3.1
+     */
+    public void register(final Class<?> interfaceClass, final BundleReloadListener listener) {
+        if (interfaceClass == null) {
+            throw new IllegalArgumentException("Interface class cannot be null");
+        }
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+
+        BundleReloadListeners interfaceListeners = listeners.get(interfaceClass);
+        if (interfaceListeners == null) {
+            interfaceListeners = new BundleReloadListeners();
+            final BundleReloadListeners previous = listeners.putIfAbsent(interfaceClass, interfaceListeners);
+            if (previous != null) {
+                interfaceListeners = previous;
+            }
+        }
+        interfaceListeners.register(listener, null);
+    }
+
+    /**
+     * Removes the listener registered for all interfaces.
+     * @param listener the listener.
+     * @since 1.3.1
+     */
+    public void unregister(final BundleReloadListener listener) {
+        for (final BundleReloadListeners interfaceListeners : listeners.values()) {
+            interfaceListeners.unregister(listener);
+        }
+    }
+
+    private static final class TableHolder {
+
+        private final Class<?> interfaceClass;
+        private final Locale locale;
+        private volatile TableValues values;
+
+        private TableHolder(final Class<?> interfaceClass, final Locale locale, final TranslationTable table) {
+            this.interfaceClass = interfaceClass;
+            this.locale = locale;
+            values = new TableValues(table, InterfaceDescriptor.get(interfaceClass));
+        }
+
+        private boolean reload(final File directory) {
+            if (!values.table.isModified()) {
+                return false;
+            }
+            try {
+                final TranslationTable table = TranslationTable.load(directory, interfaceClass.getName(), locale);
+                // the table and its values are replaced at once, so the getters never mix the old and new translations
+                values = new TableValues(table, InterfaceDescriptor.get(interfaceClass));
+                return true;
+            } catch (final ReloadBundleException e) {
+                // keeps the previous translations
+                return false;
+            }
+        }
+    }
+
+    private static final class TableValues {
+
+        private final TranslationTable table;
+        private final String[] values;
+
+        private TableValues(final TranslationTable table, final InterfaceDescriptor descriptor) {
+            this.table = table;
+            values = new String[descriptor.getSlotCount()];
+            for (int slot = 0; slot < values.length; ++slot) {
+                values[slot] = table.get(descriptor.getKey(slot));
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link LocaleCache} of {@link ResourceBundle resource bundles} which estimates their footprints. The cache can
+ * {@link MapResourceBundle#flatten(MapResourceBundle, int) flatten} the loaded bundles, so their translations are found
+ * without walking the parent chains. Each cached bundle also keeps the translations of the interfaces which use it
+ * resolved into arrays indexed by slots, so the arrays are evicted together with the bundle.
+ * @param <K> the type of the keys.
+ * @since 1.3.1
+ */
+abstract class ResourceBundleCache<K> extends LocaleCache<K, ResourceBundleCache.CachedBundle> {
+
+    /**
+     * The fallback depth which keeps the parent chains of the loaded bundles.
+     * @since 1.3.1
+     */
+    static final int CHAINED = -1;
+
+    // the approximate size of a hash table entry plus headers of the key and value strings
+    private static final int ENTRY_OVERHEAD = 112;
+
+    private final int fallbackDepth;
+
+    /**
+     * Constructs a new instance of {@link ResourceBundleCache} which keeps the parent chains of the loaded bundles.
+     * @param maxSize the maximum number of cached bundles.
+     * @since 1.3.1
+     */
+    ResourceBundleCache(final int maxSize) {
+        this(maxSize, CHAINED);
+    }
+
+    /**
+     * Constructs a new instance of {@link ResourceBundleCache}.
+     * @param maxSize the maximum number of cached bundles.
+     * @param fallbackDepth the maximum number of parents merged into the loaded bundles or {@link #CHAINED} if the
+     *            bundles should keep their parent chains.
+     * @since 1.3.1
+     */
+    ResourceBundleCache(final int maxSize, final int fallbackDepth) {
+        super(maxSize, true);
+        this.fallbackDepth = fallbackDepth;
+    }
+
+    @Override
+    protected final CachedBundle load(final K key, final Locale locale) {
+        final MapResourceBundle bundle = loadBundle(key, locale);
+        return new CachedBundle(fallbackDepth == CHAINED ? bundle : MapResourceBundle.flatten(bundle, fallbackDepth));
+    }
+
+    /**
+     * Returns the bundle for the key and locale. Loads the bundle if it is not cached.
+     * @param key the key.
+     * @param locale the locale.
+     * @return the bundle.
+     * @throws ReloadBundleException if the bundle cannot be loaded.
+     * @since 1.3.1
+     */
+    ResourceBundle getBundle(final K key, final Locale locale) {
+        return get(key, locale).bundle;
+    }
+
+    /**
+     * Returns the translations of the interface read from the bundle for the key and locale. Loads the bundle if it is
+     * not cached and resolves the translations on the first call for the interface.
+     * @param key the key.
+     * @param locale the locale.
+     * @param descriptor the descriptor of the bundle interface.
+     * @param qualified whether the keys in the bundle are prefixed with the interface name and a dot.
+     * @return the translations indexed by slots ({@code null} elements mean undefined translations). The array must
+     *         not be modified.
+     * @throws ReloadBundleException if the bundle cannot be loaded.
+     * @since 1.3.1
+     */
+    String[] getValues(final K key, final Locale locale, final InterfaceDescriptor descriptor, final boolean qualified) {
+        final CachedBundle cached = get(key, locale);
+        String[] values = cached.values.get(descriptor.getInterfaceClass());
+        if (values == null) {
+            values = getValues(cached.bundle, descriptor.getKeys(qualified));
+            final String[] previous = cached.values.putIfAbsent(descriptor.getInterfaceClass(), values);
+            if (previous != null) {
+                values = previous;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Resolves the translations of the keys once, so they can be read by index instead of hashing the keys on each
+     * call.
+     * @param bundle the bundle.
+     * @param keys the keys.
+     * @return the translations indexed as the keys ({@code null} elements mean undefined translations).
+     * @since 1.3.1
+     */
+    static String[] getValues(final ResourceBundle bundle, final String[] keys) {
+        final String[] values = new String[keys.length];
+        for (int i = 0; i < keys.length; ++i) {
+            if (bundle.containsKey(keys[i])) {
+                values[i] = bundle.getString(keys[i]);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Loads the bundle by {@link PooledPropertiesControl#getBundle(String, Locale, ClassLoader)}.
+     * @param key the key.
+     * @param locale the locale.
+     * @return the bundle.
+     * @throws ReloadBundleException if the bundle cannot be loaded.
+     * @since 1.3.1
+     */
+    protected abstract MapResourceBundle loadBundle(K key, Locale locale);
+
+    /**
+     * {@inheritDoc} The estimation includes all keys available in the bundle (also the keys inherited from the parent
+     * bundles) and assumes that each character occupies two bytes.
+     * @since 1.3.1
+     */
+    @Override
+    protected long estimateFootprint(final CachedBundle cached) {
+        final ResourceBundle bundle = cached.bundle;
+        long footprint = 0;
+        final Enumeration<String> keys = bundle.getKeys();
+        while (keys.hasMoreElements()) {
+            final String key = keys.nextElement();
+            footprint += ENTRY_OVERHEAD + 2L * (key.length() + String.valueOf(bundle.getObject(key)).length());
+        }
+        return footprint;
+    }
+
+    /**
+     * The cached bundle with the translations resolved for the interfaces.
+     * @since 1.3.1
+     */
+    static final class CachedBundle {
+
+        private final ResourceBundle bundle;
+        private final ConcurrentMap<Class<?>, String[]> values;
+
+        private CachedBundle(final ResourceBundle bundle) {
+            this.bundle = bundle;
+            values = new ConcurrentHashMap<Class<?>, String[]>();
+        }
+    }
+}
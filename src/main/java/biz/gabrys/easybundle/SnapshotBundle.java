@@ -0,0 +1,43 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.util.Map;
+
+/**
+ * The interface implemented by bundles which can return all their translations at once (e.g. to send a dictionary to
+ * a client). The translations are read in one pass from the values loaded for the bundle locale, without calling the
+ * getters.
+ * @since 1.3.1
+ * @see ExtendedBundleManager#getValues(Class, java.util.Locale)
+ */
+public interface SnapshotBundle extends Bundle {
+
+    /**
+     * Name of the method which is responsible for returning all translations.
+     * @since 1.3.1
+     */
+    String SNAPSHOT_METHOD_NAME = "snapshot";
+
+    /**
+     * Returns all translations of the bundle for the current locale. The map contains the keys of the getters mapped to
+     * the translations (the getters with parameters are mapped to the message patterns). The translations undefined for
+     * the locale are mapped to the values returned by the {@link MissingTranslationPolicy} or omitted if the policy
+     * throws an exception. The map is created once per locale and cached until the locale is changed or the
+     * translations are reloaded.
+     * @return the immutable map sorted by the names of the getters.
+     * @throws ReloadBundleException if error occurred while loading translations.
+     * @since 1.3.1
+     */
+    Map<String, String> snapshot();
+}
@@ -0,0 +1,483 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+/**
+ * <p>
+ * Implementation of {@link BundleManager} dedicated for server applications in which each thread (e.g. each request)
+ * uses its own locale. The locale is bound to the current thread by {@link #setLocale(Locale)}, threads without the
+ * bound locale use the default locale of the manager.
+ * </p>
+ * <p>
+ * {@link #getBundle(Class)} returns one shared bundle per interface. The bundle does not store any locale - each call
+ * of a getter is delegated to the bundle created by the factory for the locale of the current thread. The bundles are
+ * created once per interface and locale and their locale is never changed, so no locking is required and no objects
+ * are allocated per request. The getters of bundles created by the built-in factories are dispatched directly to the
+ * translations indexed by slots, without reflection.
+ * </p>
+ * <p>
+ * How to use the manager:
+ * </p>
+ *
+ * <pre>
+ * final {@link ThreadLocaleBundleManager} manager = new {@link ThreadLocaleBundleManager}(new {@link MultiplePropertyResourceBundleFactory}(), {@link Locale#ENGLISH});
+ * final Messages bundle = manager.{@link #getBundle(Class) getBundle}(Messages.class);
+ *
+ * // in the request thread
+ * manager.{@link #setLocale(Locale) setLocale}(request.getLocale());
+ * try {
+ *     response.write(bundle.getTitle());
+ * } finally {
+ *     manager.{@link #clearLocale() clearLocale}();
+ * }
+ * </pre>
+ * <p>
+ * Calling {@link Bundle#setLocale(Locale)} on a bundle returned by {@link #getBundle(Class)} binds the locale to the
+ * current thread (it does not notify the listeners). The bundles returned by {@link #getBundle(Class, Locale)} are
+ * shared by all threads, so they reject changing their locale.
+ * </p>
+ * <p>
+ * Both kinds of bundles implement {@link SnapshotBundle} and {@link EncodedBundle}. The calls are delegated to the
+ * bundle created for the locale of the current thread (or the fixed locale), so they throw
+ * {@link UnsupportedOperationException} if that bundle does not implement the interface.
+ * </p>
+ * @since 1.3.1
+ * @see BundleManagerImpl
+ */
+public class ThreadLocaleBundleManager implements ExtendedBundleManager {
+
+    /**
+     * The default maximum number of cached (interface, locale) bundles.
+     * @since 1.3.1
+     */
+    public static final int DEFAULT_MAX_CACHED_BUNDLES = 256;
+
+    // the interfaces implemented by the bundles created by the built-in factories (both extend Bundle)
+    private static final Class<?>[] CAPABILITIES = new Class<?>[] { SnapshotBundle.class, EncodedBundle.class };
+
+    private final LocaleCache<Class<?>, FixedLocaleBundle> cache;
+    private final Executor executor;
+    private volatile Locale defaultLocale;
+    private final ThreadLocal<Locale> locales;
+    private final ConcurrentMap<Class<?>, Object> bundles;
+    private final BundleReloadListeners listeners;
+
+    /**
+     * Constructs a new instance of {@link ThreadLocaleBundleManager} and sets default locale with value of default
+     * locale for this instance of the Java Virtual Machine.
+     * @param factory bundle factory.
+     * @throws IllegalArgumentException if the factory is {@code null}.
+     * @since 1.3.1
+     */
+    public ThreadLocaleBundleManager(final BundleFactory factory) {
+        this(factory, Locale.getDefault());
+    }
+
+    /**
+     * Constructs a new instance of {@link ThreadLocaleBundleManager} and sets default locale.
+     * @param factory bundle factory.
+     * @param defaultLocale the locale used by threads without the bound locale.
+     * @throws IllegalArgumentException if the factory is {@code null}.
+     * @throws IllegalArgumentException if the default locale is {@code null}.
+     * @since 1.3.1
+     */
+    public ThreadLocaleBundleManager(final BundleFactory factory, final Locale defaultLocale) {
+        this(factory, defaultLocale, DEFAULT_MAX_CACHED_BUNDLES);
+    }
+
+    /**
+     * Constructs a new instance of {@link ThreadLocaleBundleManager} and sets default locale.
+     * @param factory bundle factory.
+     * @param defaultLocale the locale used by threads without the bound locale.
+     * @param maxCachedBundles the maximum number of cached (interface, locale) bundles.
+     * @throws IllegalArgumentException if the factory is {@code null}.
+     * @throws IllegalArgumentException if the default locale is {@code null}.
+     * @throws IllegalArgumentException if the maximum number of cached bundles is less than 1.
+     * @since 1.3.1
+     */
+    public ThreadLocaleBundleManager(final BundleFactory factory, final Locale defaultLocale, final int maxCachedBundles) {
+        this(factory, defaultLocale, maxCachedBundles, new CallerThreadExecutor());
+    }
+
+    /**
+     * Constructs a new instance of {@link ThreadLocaleBundleManager} and sets default locale.
+     * @param factory bundle factory.
+     * @param defaultLocale the locale used by threads without the bound locale.
+     * @param maxCachedBundles the maximum number of cached (interface, locale) bundles.
+     * @param executor the executor used to {@link #preload(Collection, Collection) preload} locales in parallel.
+     * @throws IllegalArgumentException if the factory is {@code null}.
+     * @throws IllegalArgumentException if the default locale is {@code null}.
+     * @throws IllegalArgumentException if the maximum number of cached bundles is less than 1.
+     * @throws IllegalArgumentException if the executor is {@code null}.
+     * @since 1.3.1
+     */
+    public ThreadLocaleBundleManager(final BundleFactory factory, final Locale defaultLocale, final int maxCachedBundles,
+            final Executor executor) {
+        if (factory == null) {
+            throw new IllegalArgumentException("Factory cannot be null");
+        }
+        if (defaultLocale == null) {
+            throw new IllegalArgumentException("Default locale cannot be null");
+        }
+        if (maxCachedBundles < 1) {
+            throw new IllegalArgumentException("Maximum number of cached bundles cannot be less than 1");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+
+        cache = new LocaleCache<Class<?>, FixedLocaleBundle>(maxCachedBundles, false) {
+
+            @Override
+            protected FixedLocaleBundle load(final Class<?> interfaceClass, final Locale locale) {
+                return new FixedLocaleBundle(interfaceClass, factory.create(interfaceClass, locale));
+            }
+        };
+        this.executor = executor;
+        this.defaultLocale = defaultLocale;
+        locales = new ThreadLocal<Locale>();
+        bundles = new ConcurrentHashMap<Class<?>, Object>();
+        listeners = new BundleReloadListeners();
+    }
+
+    /**
+     * Binds the locale to the current thread. The bundles used by other threads are not changed, so the listeners are
+     * not notified.
+     * @param locale the new locale.
+     * @throws IllegalArgumentException if the locale is {@code null}.
+     * @since 1.3.1
+     * @see #getLocale()
+     * @see #clearLocale()
+     * @see #setDefaultLocale(Locale)
+     */
+    @Override
+    public void setLocale(final Locale locale) {
+        if (locale == null) {
+            throw new IllegalArgumentException("Locale cannot be null");
+        }
+
+        locales.set(locale);
+    }
+
+    /**
+     * Changes the locale used by threads without the bound locale and notifies all listeners if the locale is changed.
+     * @param locale the new default locale.
+     * @throws IllegalArgumentException if the locale is {@code null}.
+     * @throws UndefinedTranslationException if a bundle cannot find a translation for specified key while reloading the
+     *             listener.
+     * @since 1.3.1
+     * @see #getDefaultLocale()
+     */
+    public void setDefaultLocale(final Locale locale) {
+        if (locale == null) {
+            throw new IllegalArgumentException("Locale cannot be null");
+        }
+
+        final Locale previous;
+        synchronized (listeners) {
+            previous = defaultLocale;
+            defaultLocale = locale;
+        }
+        if (!locale.equals(previous)) {
+            listeners.notifyListeners();
+        }
+    }
+
+    /**
+     * Returns the locale used by threads without the bound locale.
+     * @return the default locale.
+     * @since 1.3.1
+     * @see #setDefaultLocale(Locale)
+     */
+    public Locale getDefaultLocale() {
+        return defaultLocale;
+    }
+
+    /**
+     * Removes the locale bound to the current thread, so the thread uses the default locale again. Threads reused by
+     * pools should call this method after each request.
+     * @since 1.3.1
+     * @see #setLocale(Locale)
+     */
+    public void clearLocale() {
+        locales.remove();
+    }
+
+    /**
+     * Returns the locale bound to the current thread or the default locale if there is no bound locale.
+     * @return the locale of the current thread.
+     * @since 1.3.1
+     * @see #setLocale(Locale)
+     */
+    @Override
+    public Locale getLocale() {
+        final Locale locale = locales.get();
+        return locale != null ? locale : defaultLocale;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws IllegalArgumentException if the interface class in {@code null}.
+     * @since 1.3.1
+     * @see BundleValidator#validateInterface(Class)
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public <E> E getBundle(final Class<E> interfaceClass) {
+        if (interfaceClass == null) {
+            throw new IllegalArgumentException("Interface class cannot be null");
+        }
+
+        Object bundle = bundles.get(interfaceClass);
+        if (bundle == null) {
+            final ThreadLocaleInvocationHandler handler = new ThreadLocaleInvocationHandler(interfaceClass);
+            // creates the bundle for the current locale to report an invalid interface immediately
+            cache.get(interfaceClass, getLocale());
+            bundle = Proxy.newProxyInstance(interfaceClass.getClassLoader(), getProxyInterfaces(interfaceClass), handler);
+            final Object previous = bundles.putIfAbsent(interfaceClass, bundle);
+            if (previous != null) {
+                bundle = previous;
+            }
+        }
+        return (E) bundle;
+    }
+
+    /**
+     * Returns a bundle fixed to the locale. The bundle is shared by all threads which use the locale, so its
+     * {@link Bundle#setLocale(Locale)} throws {@link UnsupportedOperationException}. The manager does not check whether
+     * passed parameter is {@link BundleValidator correct interface}.
+     * @param interfaceClass the bundle interface class which defines getters methods.
+     * @param locale the locale of the bundle.
+     * @param <E> the bundle interface which defines getters methods.
+     * @return the bundle for specified interface and locale.
+     * @throws IllegalArgumentException if the interface class in {@code null}.
+     * @throws IllegalArgumentException if the locale in {@code null}.
+     * @since 1.3.1
+     * @see BundleValidator#validateInterface(Class)
+     */
+    @SuppressWarnings("unchecked")
+    public <E> E getBundle(final Class<E> interfaceClass, final Locale locale) {
+        if (interfaceClass == null) {
+            throw new IllegalArgumentException("Interface class cannot be null");
+        }
+        if (locale == null) {
+            throw new IllegalArgumentException("Locale cannot be null");
+        }
+
+        return (E) cache.get(interfaceClass, locale).view;
+    }
+
+    /**
+     * {@inheritDoc} The translations are returned by the bundle fixed to the locale.
+     * @since 1.3.1
+     * @see #getBundle(Class, Locale)
+     */
+    @Override
+    public Map<String, String> getValues(final Class<?> interfaceClass, final Locale locale) {
+        if (interfaceClass == null) {
+            throw new IllegalArgumentException("Interface class cannot be null");
+        }
+        if (locale == null) {
+            throw new IllegalArgumentException("Locale cannot be null");
+        }
+
+        final FixedLocaleBundle fixed = cache.get(interfaceClass, locale);
+        return BundleValuesMap.snapshot(fixed.descriptor, fixed.bundle);
+    }
+
+    /**
+     * {@inheritDoc} The locales are resolved by the executor passed to the constructor (by the calling thread when the
+     * manager was created without an executor).
+     * @since 1.3.1
+     */
+    @Override
+    public Map<Locale, Map<String, String>> getValues(final Class<?> interfaceClass, final Collection<String> keys,
+            final Collection<Locale> locales) {
+        return BundleValuesBatch.getValues(this, interfaceClass, keys, locales, executor);
+    }
+
+    /**
+     * {@inheritDoc} The locales are loaded by the executor passed to the constructor (by the calling thread when the
+     * manager was created without an executor). The loaded bundles are stored in the (interface, locale) cache.
+     * @since 1.3.1
+     */
+    @Override
+    public Future<BundlePreloadReport> preload(final Collection<Class<?>> interfaceClasses, final Collection<Locale> locales) {
+        return BundlePreloader.preload(interfaceClasses, locales, executor, new BundlePreloader.BundleLoader() {
+
+            public void load(final Class<?> interfaceClass, final Locale locale) {
+                getBundle(interfaceClass);
+                final Bundle bundle = cache.get(interfaceClass, locale).bundle;
+                if (bundle instanceof SnapshotBundle) {
+                    // loads the translations for the locale of the bundle, so the shared bundle is not changed
+                    ((SnapshotBundle) bundle).snapshot();
+                }
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws IllegalArgumentException if the listener is {@code null}.
+     * @since 1.3.1
+     */
+    @Override
+    public void register(final BundleReloadListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+
+        listeners.register(listener, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws IllegalArgumentException if the listener is {@code null}.
+     * @throws IllegalArgumentException if the executor is {@code null}.
+     * @since 1.3.1
+     */
+    @Override
+    public void register(final BundleReloadListener listener, final Executor executor) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+
+        listeners.register(listener, executor);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 1.3.1
+     */
+    @Override
+    public void unregister(final BundleReloadListener listener) {
+        listeners.unregister(listener);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 1.3.1
+     */
+    @Override
+    public void unregisterAll() {
+        listeners.unregisterAll();
+    }
+
+    private final class ThreadLocaleInvocationHandler implements InvocationHandler {
+
+        private final Class<?> interfaceClass;
+
+        private ThreadLocaleInvocationHandler(final Class<?> interfaceClass) {
+            this.interfaceClass = interfaceClass;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            if (Bundle.CHANGE_LANGUAGE_METHOD_NAME.equals(method.getName())) {
+                final Locale locale = (Locale) args[0];
+                if (locale == null) {
+                    throw new IllegalArgumentException("Locale cannot be null");
+                }
+                locales.set(locale);
+                return null;
+            }
+
+            return cache.get(interfaceClass, getLocale()).invokeGetter(method, args);
+        }
+    }
+
+    private static Class<?>[] getProxyInterfaces(final Class<?> interfaceClass) {
+        final List<Class<?>> interfaces = new ArrayList<Class<?>>();
+        interfaces.add(interfaceClass);
+        for (final Class<?> capability : CAPABILITIES) {
+            if (!capability.isAssignableFrom(interfaceClass)) {
+                interfaces.add(capability);
+            }
+        }
+        return interfaces.toArray(new Class<?>[interfaces.size()]);
+    }
+
+    /**
+     * The bundle created by the factory for a locale and its view which rejects changing the locale.
+     * @since 1.3.1
+     */
+    private static final class FixedLocaleBundle implements InvocationHandler {
+
+        private final Bundle bundle;
+        private final InterfaceDescriptor descriptor;
+        // the direct access to the slots of bundles created by the built-in factories (null for other bundles)
+        private final BundleInvocationHandler handler;
+        private final GeneratedBundle generated;
+        private final Object view;
+
+        private FixedLocaleBundle(final Class<?> interfaceClass, final Bundle bundle) {
+            this.bundle = bundle;
+            descriptor = InterfaceDescriptor.get(interfaceClass);
+            final InvocationHandler bundleHandler = Proxy.isProxyClass(bundle.getClass()) ? Proxy.getInvocationHandler(bundle) : null;
+            handler = bundleHandler instanceof BundleInvocationHandler ? (BundleInvocationHandler) bundleHandler : null;
+            generated = bundle instanceof GeneratedBundle ? (GeneratedBundle) bundle : null;
+            view = Proxy.newProxyInstance(interfaceClass.getClassLoader(), getProxyInterfaces(interfaceClass), this);
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            if (Bundle.CHANGE_LANGUAGE_METHOD_NAME.equals(method.getName())) {
+                throw new UnsupportedOperationException("The locale of the bundle fixed to the locale cannot be changed");
+            }
+            return invokeGetter(method, args);
+        }
+
+        private Object invokeGetter(final Method method, final Object[] args) throws Throwable {
+            final int slot = descriptor.getSlot(method);
+            if (slot >= 0) {
+                if (handler != null) {
+                    return handler.getValue(slot, args);
+                }
+                if (generated != null) {
+                    return generated.resolveSlotValue(slot, args);
+                }
+            }
+
+            if (!method.getDeclaringClass().isInstance(bundle)) {
+                throw new UnsupportedOperationException(
+                        String.format("The bundle created by the factory does not implement %s", method.getDeclaringClass().getName()));
+            }
+            if (!method.isAccessible()) {
+                // allows to call methods of not public interfaces
+                method.setAccessible(true);
+            }
+            try {
+                return method.invoke(bundle, args);
+            } catch (final InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
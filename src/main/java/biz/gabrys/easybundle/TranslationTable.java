@@ -0,0 +1,120 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.ResourceBundle.Control;
+
+/**
+ * Immutable translations of a bundle interface for one locale loaded from a directory. The table contains the values
+ * of the locale file merged with the values of its parent files ({@code _pl_PL}, {@code _pl}, base) and remembers the
+ * modification times of the files, so it can detect whether it is out of date.
+ * @since 1.3.1
+ */
+final class TranslationTable {
+
+    private static final Control CONTROL = Control.getNoFallbackControl(Control.FORMAT_PROPERTIES);
+
+    private final Map<String, String> values;
+    private final File[] files;
+    private final long[] modificationTimes;
+
+    private TranslationTable(final Map<String, String> values, final File[] files, final long[] modificationTimes) {
+        this.values = values;
+        this.files = files;
+        this.modificationTimes = modificationTimes;
+    }
+
+    /**
+     * Loads the translations from the properties files stored in the directory. The files are resolved as by
+     * {@link MultiplePropertyResourceBundleFactory} (e.g. {@code org/example/Messages_pl.properties}).
+     * @param directory the directory.
+     * @param baseName the base name of the files (the interface name).
+     * @param locale the locale.
+     * @return the table.
+     * @throws ReloadBundleException if none of the files exists or a file cannot be read.
+     * @since 1.3.1
+     */
+    static TranslationTable load(final File directory, final String baseName, final Locale locale) {
+        final List<Locale> candidates = CONTROL.getCandidateLocales(baseName, locale);
+        final File[] files = new File[candidates.size()];
+        final long[] modificationTimes = new long[files.length];
+        final Map<String, String> values = new HashMap<String, String>();
+        boolean found = false;
+        // parents first, so the more specific files override their values
+        for (int i = files.length - 1; i >= 0; --i) {
+            files[i] = new File(directory, CONTROL.toResourceName(CONTROL.toBundleName(baseName, candidates.get(i)), "properties"));
+            modificationTimes[i] = files[i].lastModified();
+            if (files[i].isFile()) {
+                found = true;
+                readFile(files[i], values);
+            }
+        }
+        if (!found) {
+            throw new ReloadBundleException(String.format(
+                    "Cannot find properties files for the bundle \"%s\" and locale \"%s\" in the directory \"%s\"", baseName, locale,
+                    directory));
+        }
+        return new TranslationTable(Collections.unmodifiableMap(values), files, modificationTimes);
+    }
+
+    private static void readFile(final File file, final Map<String, String> values) {
+        final Properties properties = new Properties();
+        try {
+            final InputStream stream = new FileInputStream(file);
+            try {
+                properties.load(stream);
+            } finally {
+                stream.close();
+            }
+        } catch (final IOException e) {
+            throw new ReloadBundleException(String.format("Cannot read the file \"%s\"", file), e);
+        }
+        for (final String key : properties.stringPropertyNames()) {
+            values.put(key, BundleValuePool.intern(properties.getProperty(key)));
+        }
+    }
+
+    /**
+     * Returns the value associated with the key.
+     * @param key the key.
+     * @return the value or {@code null} if the key is undefined.
+     * @since 1.3.1
+     */
+    String get(final String key) {
+        return values.get(key);
+    }
+
+    /**
+     * Checks whether any of the files was created, modified or deleted since the table was loaded.
+     * @return {@code true} whether the table is out of date, otherwise {@code false}.
+     * @since 1.3.1
+     */
+    boolean isModified() {
+        for (int i = 0; i < files.length; ++i) {
+            if (files[i].lastModified() != modificationTimes[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+package biz.gabrys.easybundle.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic.Kind;
+
+import biz.gabrys.easybundle.BundleValidator;
+import biz.gabrys.easybundle.GeneratedBundle;
+import biz.gabrys.easybundle.PrecompiledBundle;
+
+/**
+ * <p>
+ * Annotation processor which generates implementations of the bundle interfaces marked with
+ * {@link PrecompiledBundle}. The processor reports a compilation error when an interface does not meet the rules
+ * described in {@link BundleValidator}.
+ * </p>
+ * <p>
+ * For interface {@code org.example.Messages} the processor generates class
+ * {@code org.example.Messages}{@value GeneratedBundle#CLASS_NAME_SUFFIX} which extends {@link GeneratedBundle}. The
+ * generated class creates its own instances and provides the keys of the translations in the order of slots, so the
+ * library does not inspect the interface by reflection.
+ * </p>
+ * <p>
+ * The processor is registered in {@code META-INF/services/javax.annotation.processing.Processor}, so the compiler runs it
+ * when the library is on the class path.
+ * </p>
+ * @since 1.3.1
+ * @see PrecompiledBundle
+ */
+public class BundleProcessor extends AbstractProcessor {
+
+    private static final String STRING_CLASS_NAME = String.class.getName();
+    private static final String OBJECT_CLASS_NAME = Object.class.getName();
+
+    /**
+     * Constructs a new instance.
+     * @since 1.3.1
+     */
+    public BundleProcessor() {
+        // do nothing
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 1.3.1
+     */
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(PrecompiledBundle.class.getName());
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 1.3.1
+     */
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 1.3.1
+     */
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        for (final Element element : roundEnv.getElementsAnnotatedWith(PrecompiledBundle.class)) {
+            final TypeElement type = (TypeElement) element;
+            final List<String> keys = new ArrayList<String>();
+            final List<Getter> getters = getGetters(type, keys);
+            if (getters != null) {
+                generate(type, getters, keys);
+            }
+        }
+        return true;
+    }
+
+    private List<Getter> getGetters(final TypeElement type, final List<String> keys) {
+        final String interfaceName = type.getQualifiedName().toString();
+        if (type.getKind() != ElementKind.INTERFACE) {
+            error(type, String.format("Given class \"%s\" is not an interface", interfaceName));
+            return null;
+        }
+        if (!type.getModifiers().contains(Modifier.PUBLIC)) {
+            error(type, String.format("Given interface \"%s\" must be public", interfaceName));
+            return null;
+        }
+
+        final Elements elements = processingEnv.getElementUtils();
+        final TypeMirror stringType = elements.getTypeElement(STRING_CLASS_NAME).asType();
+        // getters sorted by signatures (without duplicates inherited from many interfaces)
+        final Map<String, Getter> getters = new TreeMap<String, Getter>();
+        for (final ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+            if (OBJECT_CLASS_NAME.equals(((TypeElement) method.getEnclosingElement()).getQualifiedName().toString())) {
+                continue;
+            }
+            final String name = method.getSimpleName().toString();
+            if (!name.startsWith(BundleValidator.METHOD_NAME_PREFIX) || name.length() <= BundleValidator.METHOD_NAME_PREFIX.length()
+                    || !processingEnv.getTypeUtils().isSameType(stringType, method.getReturnType())) {
+                error(method, String.format("Given interface \"%s\" must contain only public getters method that return simple string value",
+                        interfaceName));
+                return null;
+            }
+            final List<String> parameterTypes = new ArrayList<String>();
+            for (final VariableElement parameter : method.getParameters()) {
+                parameterTypes.add(processingEnv.getTypeUtils().erasure(parameter.asType()).toString());
+            }
+            getters.put(name + parameterTypes, new Getter(name, parameterTypes));
+        }
+        if (getters.isEmpty()) {
+            error(type, String.format("Given interface \"%s\" has not specify any methods", interfaceName));
+            return null;
+        }
+
+        // slots are assigned to the keys in the order of the getters names - the same order of slots is used by classes
+        // generated at runtime
+        final Map<String, Integer> slots = new TreeMap<String, Integer>();
+        for (final Getter getter : getters.values()) {
+            slots.put(getter.name, null);
+        }
+        for (final Map.Entry<String, Integer> entry : slots.entrySet()) {
+            final String key = createKey(entry.getKey());
+            if (!keys.contains(key)) {
+                keys.add(key);
+            }
+            entry.setValue(keys.indexOf(key));
+        }
+        for (final Getter getter : getters.values()) {
+            getter.slot = slots.get(getter.name);
+        }
+        return new ArrayList<Getter>(getters.values());
+    }
+
+    private static String createKey(final String methodName) {
+        final String key = methodName.substring(BundleValidator.METHOD_NAME_PREFIX.length());
+        return key.substring(0, 1).toLowerCase(Locale.ENGLISH) + key.substring(1);
+    }
+
+    private void generate(final TypeElement type, final List<Getter> getters, final List<String> keys) {
+        final Elements elements = processingEnv.getElementUtils();
+        final PackageElement packageElement = elements.getPackageOf(type);
+        final String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+        final String binaryName = elements.getBinaryName(type).toString();
+        final String className = (packageName.length() == 0 ? binaryName : binaryName.substring(packageName.length() + 1))
+                + GeneratedBundle.CLASS_NAME_SUFFIX;
+
+        final StringBuilder source = new StringBuilder();
+        source.append("// Generated by ").append(BundleProcessor.class.getName()).append(" - do not edit\n");
+        if (packageName.length() != 0) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("public final class ").append(className).append(" extends ").append(GeneratedBundle.class.getName());
+        source.append(" implements ").append(type.getQualifiedName()).append(" {\n");
+        source.append("\n    @Override\n");
+        source.append("    protected ").append(GeneratedBundle.class.getName()).append(" newBundle() {\n");
+        source.append("        return new ").append(className).append("();\n");
+        source.append("    }\n");
+        // the keys in the order of slots, so the library does not inspect the interface methods by reflection
+        source.append("\n    @Override\n");
+        source.append("    protected String[] keyTable() {\n");
+        source.append("        return new String[] { ");
+        for (int i = 0; i < keys.size(); ++i) {
+            source.append(i == 0 ? "\"" : ", \"").append(keys.get(i)).append('"');
+        }
+        source.append(" };\n");
+        source.append("    }\n");
+        for (final Getter getter : getters) {
+            source.append("\n    public String ").append(getter.name).append('(');
+            for (int i = 0; i < getter.parameterTypes.size(); ++i) {
+                source.append(i == 0 ? "" : ", ").append("final ").append(getter.parameterTypes.get(i)).append(" p").append(i);
+            }
+            source.append(") {\n");
+            source.append("        return ").append(getter.parameterTypes.isEmpty() ? "slotValue(" : "formatSlotValue(").append(getter.slot);
+            if (!getter.parameterTypes.isEmpty()) {
+                source.append(", new Object[] { ");
+                for (int i = 0; i < getter.parameterTypes.size(); ++i) {
+                    source.append(i == 0 ? "p" : ", p").append(i);
+                }
+                source.append(" }");
+            }
+            source.append(");\n");
+            source.append("    }\n");
+        }
+        source.append("}\n");
+
+        final String sourceName = packageName.length() == 0 ? className : packageName + '.' + className;
+        try {
+            final Writer writer = processingEnv.getFiler().createSourceFile(sourceName, type).openWriter();
+            try {
+                writer.write(source.toString());
+            } finally {
+                writer.close();
+            }
+        } catch (final IOException e) {
+            error(type, String.format("Cannot generate bundle class \"%s\": %s", sourceName, e.getMessage()));
+        }
+    }
+
+    private void error(final Element element, final String message) {
+        processingEnv.getMessager().printMessage(Kind.ERROR, message, element);
+    }
+
+    private static final class Getter {
+
+        private final String name;
+        private final List<String> parameterTypes;
+        private int slot;
+
+        private Getter(final String name, final List<String> parameterTypes) {
+            this.name = name;
+            this.parameterTypes = parameterTypes;
+        }
+    }
+}
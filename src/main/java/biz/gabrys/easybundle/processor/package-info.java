@@ -0,0 +1,17 @@
+/*
+ * EasyBundle
+ * http://easy-bundle.projects.gabrys.biz/
+ *
+ * Copyright (c) 2013 Adam Gabrys
+ *
+ * This file is licensed under the BSD 3-Clause (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain:
+ * - a copy of the License at project page
+ * - a template of the License at https://opensource.org/licenses/BSD-3-Clause
+ */
+/**
+ * Contains the annotation processor which generates bundle classes at compile time. You can read more information in
+ * {@link biz.gabrys.easybundle.PrecompiledBundle} documentation.
+ */
+package biz.gabrys.easybundle.processor;
@@ -2,7 +2,19 @@ package biz.gabrys.easybundle;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 
@@ -32,6 +44,37 @@ public abstract class AbstractBundleFactoryTest {
         assertThat(bundleMessages.getName()).isEqualTo(NAME_PL);
     }
 
+    @Test
+    public final void prepareLocale_prepareAndChangeFromEnglishToPolish_bundleReturnsCorrectValues() {
+        final PreparableBundle bundle = (PreparableBundle) createFactory().create(CorrectBundleInterface.class, Locale.ENGLISH);
+        final CorrectBundleInterface bundleMessages = (CorrectBundleInterface) bundle;
+
+        bundle.prepareLocale(POLISH_LOCALE);
+        assertThat(bundleMessages.getName()).isEqualTo(NAME_ENG);
+        bundle.setLocale(POLISH_LOCALE);
+        assertThat(bundleMessages.getName()).isEqualTo(NAME_PL);
+    }
+
+    @Test
+    public final void prepareLocale_prepareOtherLocaleThanSet_bundleReturnsValueForSetLocale() {
+        final PreparableBundle bundle = (PreparableBundle) createFactory().create(CorrectBundleInterface.class, Locale.ENGLISH);
+
+        bundle.prepareLocale(Locale.ENGLISH);
+        bundle.setLocale(POLISH_LOCALE);
+        assertThat(((CorrectBundleInterface) bundle).getName()).isEqualTo(NAME_PL);
+    }
+
+    @Test
+    public final void discardPreparedLocale_prepareAndDiscardPolish_bundleReturnsValueForSetLocale() {
+        final PreparableBundle bundle = (PreparableBundle) createFactory().create(CorrectBundleInterface.class, Locale.ENGLISH);
+
+        bundle.prepareLocale(POLISH_LOCALE);
+        bundle.discardPreparedLocale();
+        assertThat(((CorrectBundleInterface) bundle).getName()).isEqualTo(NAME_ENG);
+        bundle.setLocale(POLISH_LOCALE);
+        assertThat(((CorrectBundleInterface) bundle).getName()).isEqualTo(NAME_PL);
+    }
+
     @Test
     public final void checkValueInheritance_englishLocale_bundleReturnsCorrectValue() {
         final Bundle bundle = createFactory().create(CorrectBundleInterface.class, Locale.ENGLISH);
@@ -80,6 +123,39 @@ public abstract class AbstractBundleFactoryTest {
         assertThat(bundle2.getName()).isEqualTo(NAME_PL);
     }
 
+    @Test
+    public final void getValue_localeIsChangedConcurrently_bundleReturnsValuesForOneOfLocales() throws Exception {
+        final Bundle bundle = createFactory().create(CorrectBundleInterface.class, Locale.ENGLISH);
+        final CorrectBundleInterface bundleMessages = (CorrectBundleInterface) bundle;
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < 4; ++i) {
+                results.add(executor.submit(new Callable<Boolean>() {
+
+                    public Boolean call() {
+                        for (int j = 0; j < 1000; ++j) {
+                            final String name = bundleMessages.getName();
+                            if (!NAME_ENG.equals(name) && !NAME_PL.equals(name)) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (int i = 0; i < 100; ++i) {
+                bundle.setLocale(i % 2 == 0 ? POLISH_LOCALE : Locale.ENGLISH);
+            }
+            for (final Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Test(expected = UndefinedTranslationException.class)
     public final void getUndefinedMessage_correctInterfaceAndLocale_throwUndefinedTranslationException() {
         final CorrectBundleInterface bundle = (CorrectBundleInterface) createFactory().create(CorrectBundleInterface.class, Locale.ENGLISH);
@@ -93,11 +169,80 @@ public abstract class AbstractBundleFactoryTest {
         bundle.getData();
     }
 
-    @Test(expected = InvalidInterfaceException.class)
-    public final void checkInvalidGetMethodWithParams_incorrectInterface_throwInvalidInterfaceException() {
-        final IncorrectBundleInterface bundle = (IncorrectBundleInterface) createFactory().create(IncorrectBundleInterface.class,
-                Locale.ENGLISH);
-        bundle.getData(0);
+    @Test
+    public final void getMessageWithArguments_correctInterfaceAndLocale_bundleReturnsFormattedValue() {
+        final Bundle bundle = createFactory().create(CorrectBundleInterface.class, Locale.ENGLISH);
+        final CorrectBundleInterface bundleMessages = (CorrectBundleInterface) bundle;
+        assertThat(bundleMessages.getWelcome("Adam", 3)).isEqualTo("Welcome Adam, you have 3 new messages");
+
+        bundle.setLocale(POLISH_LOCALE);
+        assertThat(bundleMessages.getWelcome("Adam", 3)).isEqualTo("Witaj Adam, liczba nowych wiadomosci: 3");
+    }
+
+    @Test
+    public final void snapshot_correctInterface_returnsAllDefinedTranslations() {
+        final SnapshotBundle bundle = (SnapshotBundle) createFactory().create(CorrectBundleInterface.class, Locale.ENGLISH);
+        final Map<String, String> values = bundle.snapshot();
+        assertThat(new ArrayList<String>(values.keySet())).containsExactly("a", "default", "name", "welcome");
+        assertThat(values.get("name")).isEqualTo(NAME_ENG);
+        assertThat(values.get("welcome")).isEqualTo("Welcome {0}, you have {1} new messages");
+        assertThat(bundle.snapshot()).isSameAs(values);
+
+        bundle.setLocale(POLISH_LOCALE);
+        assertThat(bundle.snapshot().get("name")).isEqualTo(NAME_PL);
+    }
+
+    @Test
+    public final void writeValue_correctKey_writesTranslationEncodedInUtf8() throws IOException {
+        final EncodedBundle bundle = (EncodedBundle) createFactory().create(CorrectBundleInterface.class, Locale.ENGLISH);
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        bundle.writeValue("name", output);
+        assertThat(output.toString("UTF-8")).isEqualTo(NAME_ENG);
+
+        bundle.setLocale(POLISH_LOCALE);
+        final ByteBuffer buffer = ByteBuffer.allocate(16);
+        bundle.writeValue("name", buffer);
+        assertThat(new String(buffer.array(), 0, buffer.position(), "UTF-8")).isEqualTo(NAME_PL);
+
+        final StringBuilder builder = new StringBuilder();
+        bundle.appendValue("welcome", builder);
+        assertThat(builder.toString()).isEqualTo("Witaj {0}, liczba nowych wiadomosci: {1}");
+    }
+
+    @Test
+    public final void writeValue_twoCalls_streamReceivesCachedArray() throws IOException {
+        final EncodedBundle bundle = (EncodedBundle) createFactory().create(CorrectBundleInterface.class, Locale.ENGLISH);
+        final List<byte[]> arrays = new ArrayList<byte[]>();
+        final OutputStream output = new OutputStream() {
+
+            @Override
+            public void write(final int b) {
+                throw new AssertionError("The array should be written at once");
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) {
+                assertThat(new String(b, off, len, Charset.forName("UTF-8"))).isEqualTo(NAME_ENG);
+                arrays.add(b);
+            }
+        };
+
+        bundle.writeValue("name", output);
+        bundle.writeValue("name", output);
+        assertThat(arrays).hasSize(2);
+        assertThat(arrays.get(1)).isSameAs(arrays.get(0));
+    }
+
+    @Test(expected = UndefinedTranslationException.class)
+    public final void writeValue_undefinedTranslation_throwUndefinedTranslationException() throws IOException {
+        final EncodedBundle bundle = (EncodedBundle) createFactory().create(CorrectBundleInterface.class, Locale.ENGLISH);
+        bundle.writeValue("undefined", new ByteArrayOutputStream());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void writeValue_unknownKey_throwIllegalArgumentException() throws IOException {
+        final EncodedBundle bundle = (EncodedBundle) createFactory().create(CorrectBundleInterface.class, Locale.ENGLISH);
+        bundle.writeValue("unknown", new ByteArrayOutputStream());
     }
 
     @Test(expected = InvalidInterfaceException.class)
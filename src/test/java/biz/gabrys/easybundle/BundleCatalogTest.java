@@ -0,0 +1,162 @@
+package biz.gabrys.easybundle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public final class BundleCatalogTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void get_writtenTranslations_returnsValues() throws IOException {
+        final Map<String, String> translations = new HashMap<String, String>();
+        translations.put("name", "Nazwa");
+        translations.put("a", "krótki");
+        translations.put("zażółć", "gęślą jaźń");
+        translations.put("empty", "");
+
+        final BundleCatalog catalog = BundleCatalog.read(write(translations));
+
+        for (final Map.Entry<String, String> translation : translations.entrySet()) {
+            assertThat(catalog.get(translation.getKey())).isEqualTo(translation.getValue());
+        }
+        assertThat(catalog.get("undefined")).isNull();
+        assertThat(catalog.get("nam")).isNull();
+        assertThat(catalog.get("names")).isNull();
+    }
+
+    @Test
+    public void get_emptyCatalog_returnsNull() throws IOException {
+        final BundleCatalog catalog = BundleCatalog.read(write(new HashMap<String, String>()));
+        assertThat(catalog.get("name")).isNull();
+    }
+
+    @Test
+    public void get_manyTranslations_returnsValues() throws IOException {
+        final Map<String, String> translations = new HashMap<String, String>();
+        for (int i = 0; i < 5000; ++i) {
+            translations.put("key" + i, "value" + i);
+        }
+
+        final BundleCatalog catalog = BundleCatalog.read(write(translations));
+
+        for (int i = 0; i < 5000; ++i) {
+            assertThat(catalog.get("key" + i)).isEqualTo("value" + i);
+        }
+        assertThat(catalog.get("key5000")).isNull();
+    }
+
+    @Test
+    public void load_mappedFile_returnsValues() throws IOException {
+        final File file = folder.newFile("Messages_pl.catalog");
+        final Map<String, String> translations = new HashMap<String, String>();
+        translations.put("name", "Nazwa");
+        final OutputStream stream = new FileOutputStream(file);
+        try {
+            BundleCatalog.write(translations, stream);
+        } finally {
+            stream.close();
+        }
+
+        final BundleCatalog catalog = BundleCatalog.load(file.toURI().toURL(), true);
+
+        assertThat(catalog.get("name")).isEqualTo("Nazwa");
+    }
+
+    @Test(expected = ReloadBundleException.class)
+    public void read_incorrectMagicNumber_throwReloadBundleException() {
+        BundleCatalog.read(ByteBuffer.wrap(new byte[] { 'n', 'a', 'm', 'e', '=', 'N' }));
+    }
+
+    @Test(expected = ReloadBundleException.class)
+    public void read_truncatedCatalog_throwReloadBundleException() throws IOException {
+        final Map<String, String> translations = new HashMap<String, String>();
+        translations.put("name", "Name");
+        final ByteBuffer buffer = write(translations);
+        buffer.limit(12);
+        BundleCatalog.read(buffer);
+    }
+
+    @Test
+    public void compile_directoryWithPropertiesFiles_compilesPropertiesFiles() throws IOException {
+        final File source = folder.newFolder("source");
+        final File output = folder.newFolder("output");
+        writeFile(new File(source, "org/example/Messages.properties"), "name=Name\n#comment\ndefault=default");
+        writeFile(new File(source, "org/example/Messages_pl_PL.properties"), "name=Nazwa");
+        writeFile(new File(source, "org/example/readme.txt"), "name=Name");
+
+        assertThat(BundleCatalogCompiler.compile(source, output)).isEqualTo(2);
+
+        final BundleCatalog base = BundleCatalog.read(readFile(new File(output, "org/example/Messages.catalog")));
+        assertThat(base.get("default")).isEqualTo("default");
+        final BundleCatalog polish = BundleCatalog.read(readFile(new File(output, "org/example/Messages_pl_PL.catalog")));
+        assertThat(polish.get("name")).isEqualTo("Nazwa");
+        assertThat(new File(output, "org/example/readme.catalog")).doesNotExist();
+    }
+
+    @Test
+    public void compile_baseNameWithUnderscores_catalogsKeepFileNames() throws IOException {
+        final File source = folder.newFolder("source");
+        final File output = folder.newFolder("output");
+        writeFile(new File(source, "my_messages.properties"), "name=Name");
+        writeFile(new File(source, "my_messages_en_US_WIN.properties"), "name=Windows");
+
+        assertThat(BundleCatalogCompiler.compile(source, output)).isEqualTo(2);
+
+        assertThat(BundleCatalog.read(readFile(new File(output, "my_messages.catalog"))).get("name")).isEqualTo("Name");
+        assertThat(BundleCatalog.read(readFile(new File(output, "my_messages_en_US_WIN.catalog"))).get("name")).isEqualTo("Windows");
+    }
+
+    @Test
+    public void compile_unicodeEscapes_catalogContainsDecodedValue() throws IOException {
+        final File source = folder.newFolder("source");
+        final File output = folder.newFolder("output");
+        writeFile(new File(source, "Messages_ru.properties"), "name=\\u0418\\u043c\\u044f");
+
+        assertThat(BundleCatalogCompiler.compile(source, output)).isEqualTo(1);
+
+        final BundleCatalog catalog = BundleCatalog.read(readFile(new File(output, "Messages_ru.catalog")));
+        assertThat(catalog.get("name")).isEqualTo("\u0418\u043c\u044f");
+    }
+
+    private static ByteBuffer write(final Map<String, String> translations) throws IOException {
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        BundleCatalog.write(translations, stream);
+        return ByteBuffer.wrap(stream.toByteArray());
+    }
+
+    private static void writeFile(final File file, final String content) throws IOException {
+        file.getParentFile().mkdirs();
+        final OutputStream stream = new FileOutputStream(file);
+        try {
+            stream.write(content.getBytes("ISO-8859-1"));
+        } finally {
+            stream.close();
+        }
+    }
+
+    private static ByteBuffer readFile(final File file) throws IOException {
+        final RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            final byte[] bytes = new byte[(int) input.length()];
+            input.readFully(bytes);
+            return ByteBuffer.wrap(bytes);
+        } finally {
+            input.close();
+        }
+    }
+}
@@ -1,15 +1,35 @@
 package biz.gabrys.easybundle;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
+import org.mockito.InOrder;
 
 public final class BundleManagerImplTest {
 
@@ -23,6 +43,11 @@ public final class BundleManagerImplTest {
         new BundleManagerImpl(mock(BundleFactory.class), null);
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void constructs_executorIsNull_throwIllegalAgrumentException() {
+        new BundleManagerImpl(mock(BundleFactory.class), Locale.ENGLISH, null);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void setLocale_localeIsNull_throwIllegalArgumentException() {
         final BundleManager manager = new BundleManagerImpl(mock(BundleFactory.class));
@@ -55,6 +80,73 @@ public final class BundleManagerImplTest {
         verify(listener, times(3)).onBundleReload();
     }
 
+    @Test
+    public void setLocale_preparableBundle_prepareBundleBeforeChangeLocale() {
+        final PreparableBundle bundle = mock(PreparableBundle.class);
+        final BundleFactory factory = mock(BundleFactory.class);
+        when(factory.create(Bundle.class, Locale.ENGLISH)).thenReturn(bundle);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final BundleManager manager = new BundleManagerImpl(factory, Locale.ENGLISH, executor);
+            manager.getBundle(Bundle.class);
+            manager.setLocale(Locale.CANADA);
+
+            final InOrder order = inOrder(bundle);
+            order.verify(bundle).prepareLocale(Locale.CANADA);
+            order.verify(bundle).setLocale(Locale.CANADA);
+            assertThat(manager.getLocale()).isEqualTo(Locale.CANADA);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void setLocale_executorRejectsPreparation_prepareBundleByCallingThread() {
+        final PreparableBundle bundle = mock(PreparableBundle.class);
+        final BundleFactory factory = mock(BundleFactory.class);
+        when(factory.create(Bundle.class, Locale.ENGLISH)).thenReturn(bundle);
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        final BundleManager manager = new BundleManagerImpl(factory, Locale.ENGLISH, executor);
+        manager.getBundle(Bundle.class);
+        manager.setLocale(Locale.CANADA);
+
+        final InOrder order = inOrder(bundle);
+        order.verify(bundle).prepareLocale(Locale.CANADA);
+        order.verify(bundle).setLocale(Locale.CANADA);
+        assertThat(manager.getLocale()).isEqualTo(Locale.CANADA);
+    }
+
+    @Test
+    public void setLocale_preparationFailed_keepPreviousLocale() {
+        final PreparableBundle failingBundle = mock(PreparableBundle.class);
+        doThrow(new ReloadBundleException("error")).when(failingBundle).prepareLocale(Locale.CANADA);
+        final PreparableBundle correctBundle = mock(PreparableBundle.class);
+        final BundleFactory factory = mock(BundleFactory.class);
+        when(factory.create(Bundle.class, Locale.ENGLISH)).thenReturn(failingBundle);
+        when(factory.create(PreparableBundle.class, Locale.ENGLISH)).thenReturn(correctBundle);
+
+        final BundleManager manager = new BundleManagerImpl(factory, Locale.ENGLISH);
+        manager.getBundle(Bundle.class);
+        manager.getBundle(PreparableBundle.class);
+        final BundleReloadListener listener = mock(BundleReloadListener.class);
+        manager.register(listener);
+
+        try {
+            manager.setLocale(Locale.CANADA);
+            throw new AssertionError("ReloadBundleException was not thrown");
+        } catch (final ReloadBundleException e) {
+            // expected
+        }
+        verify(failingBundle, never()).setLocale(Locale.CANADA);
+        verify(correctBundle, never()).setLocale(Locale.CANADA);
+        verify(correctBundle).discardPreparedLocale();
+        verify(listener, never()).onBundleReload();
+        assertThat(manager.getLocale()).isEqualTo(Locale.ENGLISH);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void getBundle_interfaceClassIsNull_throwIllegalArgumentException() {
         new BundleManagerImpl(mock(BundleFactory.class), Locale.ENGLISH).getBundle(null);
@@ -114,6 +206,143 @@ public final class BundleManagerImplTest {
         verify(factory).create(Bundle.class, Locale.ENGLISH);
     }
 
+    @Test
+    public void getBundle_manyThreadsGetTheSameInterface_createOneBundle() throws Exception {
+        final AtomicInteger creations = new AtomicInteger();
+        final Bundle bundle = mock(Bundle.class);
+        final BundleFactory factory = new BundleFactory() {
+
+            public Bundle create(final Class<?> interfaceClass, final Locale locale) {
+                creations.incrementAndGet();
+                return bundle;
+            }
+        };
+
+        final BundleManager manager = new BundleManagerImpl(factory, Locale.ENGLISH);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Bundle>> results = new ArrayList<Future<Bundle>>();
+            for (int i = 0; i < 8; ++i) {
+                results.add(executor.submit(new Callable<Bundle>() {
+
+                    public Bundle call() {
+                        return manager.getBundle(Bundle.class);
+                    }
+                }));
+            }
+            for (final Future<Bundle> result : results) {
+                assertThat(result.get()).isSameAs(bundle);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(creations.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void getBundle_otherBundleIsBeingCreated_returnsCachedBundleWithoutWaiting() throws Exception {
+        final CountDownLatch creationStarted = new CountDownLatch(1);
+        final CountDownLatch creationAllowed = new CountDownLatch(1);
+        final Bundle cachedBundle = mock(Bundle.class);
+        final BundleFactory factory = new BundleFactory() {
+
+            public Bundle create(final Class<?> interfaceClass, final Locale locale) {
+                if (CorrectBundleInterface.class.equals(interfaceClass)) {
+                    creationStarted.countDown();
+                    try {
+                        creationAllowed.await();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return cachedBundle;
+            }
+        };
+
+        final BundleManager manager = new BundleManagerImpl(factory, Locale.ENGLISH);
+        manager.getBundle(Bundle.class);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(new Callable<Object>() {
+
+                public Object call() {
+                    return manager.getBundle(CorrectBundleInterface.class);
+                }
+            });
+            assertThat(creationStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(manager.getBundle(Bundle.class)).isSameAs(cachedBundle);
+            assertThat(manager.getLocale()).isEqualTo(Locale.ENGLISH);
+        } finally {
+            creationAllowed.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void register_listenerWithExecutor_listenerNotifiedByExecutor() {
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        final Executor executor = new Executor() {
+
+            public void execute(final Runnable command) {
+                tasks.add(command);
+            }
+        };
+        final ExtendedBundleManager manager = new BundleManagerImpl(mock(BundleFactory.class), Locale.ENGLISH);
+        final BundleReloadListener listener = mock(BundleReloadListener.class);
+        manager.register(listener, executor);
+
+        manager.setLocale(Locale.CANADA);
+        verify(listener, never()).onBundleReload();
+        assertThat(tasks).hasSize(1);
+        tasks.get(0).run();
+        verify(listener).onBundleReload();
+    }
+
+    @Test
+    public void register_listenerRegisteredTwice_listenerNotifiedOnce() {
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        final Executor executor = new Executor() {
+
+            public void execute(final Runnable command) {
+                tasks.add(command);
+            }
+        };
+        final ExtendedBundleManager manager = new BundleManagerImpl(mock(BundleFactory.class), Locale.ENGLISH);
+        final BundleReloadListener listener = mock(BundleReloadListener.class);
+        manager.register(listener);
+        manager.register(listener, executor);
+
+        manager.setLocale(Locale.CANADA);
+        verify(listener, never()).onBundleReload();
+        assertThat(tasks).hasSize(1);
+    }
+
+    @Test
+    public void unregister_registeredListeners_listenersNotNotified() {
+        final ExtendedBundleManager manager = new BundleManagerImpl(mock(BundleFactory.class), Locale.ENGLISH);
+        final BundleReloadListener listener1 = mock(BundleReloadListener.class);
+        final BundleReloadListener listener2 = mock(BundleReloadListener.class);
+        final BundleReloadListener listener3 = mock(BundleReloadListener.class);
+        manager.register(listener1);
+        manager.register(listener2, mock(Executor.class));
+        manager.register(listener3);
+
+        manager.unregister(listener1);
+        manager.unregister(listener2);
+        manager.setLocale(Locale.CANADA);
+        verify(listener1, never()).onBundleReload();
+        verify(listener3).onBundleReload();
+
+        manager.unregisterAll();
+        manager.setLocale(Locale.ENGLISH);
+        verify(listener3).onBundleReload();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void register_executorIsNull_throwIllegalArgumentException() {
+        new BundleManagerImpl(mock(BundleFactory.class), Locale.ENGLISH).register(mock(BundleReloadListener.class), null);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void register_interfaceClassIsNull_throwIllegalArgumentException() {
         new BundleManagerImpl(mock(BundleFactory.class), Locale.ENGLISH).register(null);
@@ -123,4 +352,142 @@ public final class BundleManagerImplTest {
     public void unregister_interfaceClassIsNull_success() {
         new BundleManagerImpl(mock(BundleFactory.class), Locale.ENGLISH).unregister(null);
     }
+
+    @Test
+    public void preload_correctInterfaces_returnReportWithLoadTimes() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final ExtendedBundleManager manager = new BundleManagerImpl(new MultiplePropertyResourceBundleFactory(), Locale.ENGLISH, executor);
+            final Future<BundlePreloadReport> future = manager.preload(Arrays.<Class<?>> asList(CorrectBundleInterface.class),
+                    Arrays.asList(Locale.ENGLISH, new Locale("pl")));
+
+            final BundlePreloadReport report = future.get(10, TimeUnit.SECONDS);
+            assertThat(report.getInterfaceClasses()).containsExactly(CorrectBundleInterface.class);
+            assertThat(report.getLocales()).containsExactly(Locale.ENGLISH, new Locale("pl"));
+            assertThat(report.getLoadTime(Locale.ENGLISH, TimeUnit.NANOSECONDS)).isGreaterThan(0);
+            assertThat(manager.getBundle(CorrectBundleInterface.class).getName()).isEqualTo("Name");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void preload_noLocales_returnCompletedFuture() throws Exception {
+        final ExtendedBundleManager manager = new BundleManagerImpl(mock(BundleFactory.class), Locale.ENGLISH);
+        final Future<BundlePreloadReport> future = manager.preload(Arrays.<Class<?>> asList(CorrectBundleInterface.class),
+                Collections.<Locale> emptyList());
+        assertThat(future.isDone()).isTrue();
+        assertThat(future.get().getLocales()).isEmpty();
+    }
+
+    @Test
+    public void preload_missingFile_futureFailsWithReloadBundleException() throws InterruptedException {
+        final ExtendedBundleManager manager = new BundleManagerImpl(new PropertyResourceBundleFactory("not-exist"), Locale.ENGLISH);
+        final Future<BundlePreloadReport> future = manager.preload(Arrays.<Class<?>> asList(CorrectBundleInterface.class),
+                Arrays.asList(Locale.ENGLISH));
+        try {
+            future.get();
+            fail("ExecutionException expected");
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(ReloadBundleException.class);
+        }
+    }
+
+    @Test
+    public void preload_executorRejectsTasks_futureFailsWithRejectedExecutionException() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        final ExtendedBundleManager manager = new BundleManagerImpl(new MultiplePropertyResourceBundleFactory(), Locale.ENGLISH, executor);
+        final Future<BundlePreloadReport> future = manager.preload(Arrays.<Class<?>> asList(CorrectBundleInterface.class),
+                Arrays.asList(Locale.ENGLISH, new Locale("pl")));
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("ExecutionException expected");
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(RejectedExecutionException.class);
+        }
+    }
+
+    @Test(expected = InvalidInterfaceException.class)
+    public void preload_invalidInterface_throwInvalidInterfaceException() {
+        new BundleManagerImpl(mock(BundleFactory.class), Locale.ENGLISH).preload(Arrays.<Class<?>> asList(IncorrectBundleInterface.class),
+                Arrays.asList(Locale.ENGLISH));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void preload_localesAreNull_throwIllegalArgumentException() {
+        new BundleManagerImpl(mock(BundleFactory.class), Locale.ENGLISH).preload(Arrays.<Class<?>> asList(CorrectBundleInterface.class),
+                null);
+    }
+
+    @Test
+    public void getValues_snapshotBundle_returnsCachedTranslations() {
+        final ExtendedBundleManager manager = new BundleManagerImpl(new MultiplePropertyResourceBundleFactory(), Locale.ENGLISH);
+        final Map<String, String> values = manager.getValues(CorrectBundleInterface.class, new Locale("pl"));
+        assertThat(values.get("name")).isEqualTo("Nazwa");
+        assertThat(values.get("default")).isEqualTo("default");
+        assertThat(manager.getValues(CorrectBundleInterface.class, new Locale("pl"))).isSameAs(values);
+        assertThat(manager.getLocale()).isEqualTo(Locale.ENGLISH);
+    }
+
+    @Test
+    public void getValues_customBundle_callsGettersWithoutParameters() {
+        final CorrectBundleInterface bundle = mock(CorrectBundleInterface.class, withSettings().extraInterfaces(Bundle.class));
+        when(bundle.getName()).thenReturn("Name");
+        when(bundle.getA()).thenReturn("short");
+        when(bundle.getUndefined()).thenThrow(new UndefinedTranslationException("undefined"));
+        final BundleFactory factory = mock(BundleFactory.class);
+        when(factory.create(CorrectBundleInterface.class, Locale.ENGLISH)).thenReturn((Bundle) bundle);
+
+        final Map<String, String> values = new BundleManagerImpl(factory, Locale.ENGLISH).getValues(CorrectBundleInterface.class,
+                Locale.ENGLISH);
+        assertThat(new ArrayList<String>(values.keySet())).containsExactly("a", "name");
+        assertThat(values.get("name")).isEqualTo("Name");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getValues_localeIsNull_throwIllegalArgumentException() {
+        new BundleManagerImpl(mock(BundleFactory.class), Locale.ENGLISH).getValues(CorrectBundleInterface.class, null);
+    }
+
+    @Test
+    public void getValuesForLocales_executorResolvesLocales_returnsTranslationsWithoutChangingLocale() {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final ExtendedBundleManager manager = new BundleManagerImpl(new MultiplePropertyResourceBundleFactory(), Locale.ENGLISH, executor);
+            final BundleReloadListener listener = mock(BundleReloadListener.class);
+            manager.register(listener);
+
+            final Map<Locale, Map<String, String>> values = manager.getValues(CorrectBundleInterface.class,
+                    Arrays.asList("name", "undefined", "default"), Arrays.asList(new Locale("pl"), Locale.ENGLISH));
+            assertThat(new ArrayList<Locale>(values.keySet())).containsExactly(new Locale("pl"), Locale.ENGLISH);
+            assertThat(new ArrayList<String>(values.get(new Locale("pl")).keySet())).containsExactly("name", "default");
+            assertThat(values.get(new Locale("pl")).get("name")).isEqualTo("Nazwa");
+            assertThat(values.get(Locale.ENGLISH).get("name")).isEqualTo("Name");
+            assertThat(values.get(Locale.ENGLISH).get("default")).isEqualTo("default");
+
+            assertThat(manager.getLocale()).isEqualTo(Locale.ENGLISH);
+            verify(listener, never()).onBundleReload();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void getValuesForLocales_executorRejectsLocales_returnsTranslationsResolvedByCallingThread() {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        final ExtendedBundleManager manager = new BundleManagerImpl(new MultiplePropertyResourceBundleFactory(), Locale.ENGLISH, executor);
+
+        final Map<Locale, Map<String, String>> values = manager.getValues(CorrectBundleInterface.class, Arrays.asList("name"),
+                Arrays.asList(new Locale("pl"), Locale.ENGLISH));
+        assertThat(values.get(new Locale("pl")).get("name")).isEqualTo("Nazwa");
+        assertThat(values.get(Locale.ENGLISH).get("name")).isEqualTo("Name");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getValuesForLocales_unknownKey_throwIllegalArgumentException() {
+        new BundleManagerImpl(mock(BundleFactory.class), Locale.ENGLISH).getValues(CorrectBundleInterface.class, Arrays.asList("unknown"),
+                Arrays.asList(Locale.ENGLISH));
+    }
 }
@@ -34,9 +34,9 @@ public final class BundleValidatorTest {
         BundleValidator.validateInterface(IncorrectBecauseMethodRetrunObject.class);
     }
 
-    @Test(expected = InvalidInterfaceException.class)
-    public void validate_incorrectInterfaceBecauseMethodHasParameters_throwInvalidInterfaceException() {
-        BundleValidator.validateInterface(IncorrectBecauseMethodHasParameters.class);
+    @Test
+    public void validate_correctInterfaceWithMethodWithParameters_success() {
+        BundleValidator.validateInterface(CorrectWithMethodWithParameters.class);
     }
 
     @Test(expected = InvalidInterfaceException.class)
@@ -78,7 +78,7 @@ public final class BundleValidatorTest {
         Object getName();
     }
 
-    public interface IncorrectBecauseMethodHasParameters {
+    public interface CorrectWithMethodWithParameters {
 
         String getName(Object param);
     }
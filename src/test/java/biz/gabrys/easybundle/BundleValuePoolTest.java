@@ -0,0 +1,88 @@
+package biz.gabrys.easybundle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public final class BundleValuePoolTest {
+
+    @Test
+    public void intern_equalValues_returnsFirstValueAndCountsSavedBytes() {
+        final String value = new String("pooled value " + System.nanoTime());
+        final String copy = new String(value);
+        final long deduplicatedCount = BundleValuePool.getDeduplicatedCount();
+        final long savedBytes = BundleValuePool.getSavedBytes();
+
+        assertThat(BundleValuePool.intern(value)).isSameAs(value);
+        assertThat(BundleValuePool.intern(copy)).isSameAs(value);
+        assertThat(BundleValuePool.intern(value)).isSameAs(value);
+
+        assertThat(BundleValuePool.getDeduplicatedCount()).isEqualTo(deduplicatedCount + 1);
+        assertThat(BundleValuePool.getSavedBytes()).isGreaterThanOrEqualTo(savedBytes + 2 * value.length());
+    }
+
+    @Test
+    public void intern_equalValuesInterningConcurrently_returnsSameInstance() throws Exception {
+        final String value = "concurrent value " + System.nanoTime();
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < 64; ++i) {
+                results.add(executor.submit(new Callable<String>() {
+
+                    public String call() {
+                        return BundleValuePool.intern(new String(value));
+                    }
+                }));
+            }
+            final String pooled = results.get(0).get();
+            for (final Future<String> result : results) {
+                assertThat(result.get()).isSameAs(pooled);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void intern_null_returnsNull() {
+        assertThat(BundleValuePool.intern(null)).isNull();
+    }
+
+    @Test
+    public void create_equalValuesInFilesOfDifferentInterfaces_bundlesShareValueInstances() {
+        // "Name" is defined in CorrectBundleInterface_en and PrecompiledBundleInterface files
+        final CorrectBundleInterface correct = (CorrectBundleInterface) new MultiplePropertyResourceBundleFactory()
+                .create(CorrectBundleInterface.class, Locale.ENGLISH);
+        final PrecompiledBundleInterface precompiled = (PrecompiledBundleInterface) new GeneratedBundleFactory()
+                .create(PrecompiledBundleInterface.class, Locale.ENGLISH);
+        final CorrectBundleInterface catalog = (CorrectBundleInterface) new CatalogBundleFactory().create(CorrectBundleInterface.class,
+                Locale.ENGLISH);
+
+        assertThat(precompiled.getName()).isSameAs(correct.getName());
+        assertThat(catalog.getName()).isSameAs(correct.getName());
+        assertThat(catalog.getDefault()).isSameAs(precompiled.getDefault());
+    }
+
+    @Test
+    public void create_bundleCachedByDefaultControl_bundleSharesValueInstances() {
+        ResourceBundle.clearCache();
+        ResourceBundle.getBundle(CorrectBundleInterface.class.getName(), Locale.ENGLISH);
+
+        final CorrectBundleInterface correct = (CorrectBundleInterface) new MultiplePropertyResourceBundleFactory()
+                .create(CorrectBundleInterface.class, Locale.ENGLISH);
+        final PrecompiledBundleInterface precompiled = (PrecompiledBundleInterface) new GeneratedBundleFactory()
+                .create(PrecompiledBundleInterface.class, Locale.ENGLISH);
+
+        assertThat(correct.getName()).isSameAs(precompiled.getName());
+    }
+}
@@ -0,0 +1,61 @@
+package biz.gabrys.easybundle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Locale;
+
+import org.junit.Test;
+
+public final class CatalogBundleFactoryTest extends AbstractBundleFactoryTest {
+
+    // the catalogs are compiled from the test properties files by the build
+
+    @Override
+    protected BundleFactory createFactory() {
+        return new CatalogBundleFactory();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructs_maxCachedBundlesIsZero_throwIllegalArgumentException() {
+        new CatalogBundleFactory(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void create_interaceClassIsNull_throwIllegalArgumentException() {
+        createFactory().create(null, Locale.getDefault());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void create_localeIsNull_throwIllegalArgumentException() {
+        createFactory().create(CorrectBundleInterface.class, null);
+    }
+
+    @Test(expected = ReloadBundleException.class)
+    public void getValue_catalogsDoNotExist_throwReloadBundleException() {
+        final NotCompiledInterface bundle = (NotCompiledInterface) createFactory().create(NotCompiledInterface.class, Locale.ENGLISH);
+        bundle.getName();
+    }
+
+    @Test
+    public void setLocale_switchBackToRecentlyUsedLocale_valuesReadFromCache() {
+        final CatalogBundleFactory factory = new CatalogBundleFactory();
+        final Bundle bundle = factory.create(CorrectBundleInterface.class, Locale.ENGLISH);
+        final CorrectBundleInterface bundleMessages = (CorrectBundleInterface) bundle;
+
+        assertThat(bundleMessages.getName()).isEqualTo("Name");
+        bundle.setLocale(new Locale("pl"));
+        assertThat(bundleMessages.getName()).isEqualTo("Nazwa");
+        bundle.setLocale(Locale.ENGLISH);
+        assertThat(bundleMessages.getName()).isEqualTo("Name");
+
+        final BundleCacheStatistics statistics = factory.getCacheStatistics();
+        assertThat(statistics.getMissCount()).isEqualTo(2);
+        assertThat(statistics.getHitCount()).isEqualTo(1);
+        assertThat(statistics.getSize()).isEqualTo(2);
+    }
+
+    public interface NotCompiledInterface {
+
+        String getName();
+    }
+}
@@ -13,4 +13,7 @@ public interface CorrectBundleInterface {
 
     // short key
     String getA();
+
+    // message with arguments
+    String getWelcome(String name, int count);
 }
@@ -0,0 +1,125 @@
+package biz.gabrys.easybundle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.util.Locale;
+
+import org.junit.Test;
+
+public final class GeneratedBundleFactoryTest extends AbstractBundleFactoryTest {
+
+    private static final String FILE_NAME = GeneratedBundleFactoryTest.class.getPackage().getName().replace('.', File.separatorChar)
+            + File.separatorChar + "languages";
+
+    @Override
+    protected BundleFactory createFactory() {
+        return new GeneratedBundleFactory();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void contructs_filePathPrefixIsNull_throwIllegalArgumentException() {
+        new GeneratedBundleFactory(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void contructs_maxCachedBundlesIsZero_throwIllegalArgumentException() {
+        new GeneratedBundleFactory(0);
+    }
+
+    @Test
+    public void setLocale_oneCachedBundle_evictedValuesLoadedAgain() {
+        final Bundle bundle = new GeneratedBundleFactory(1).create(CorrectBundleInterface.class, Locale.ENGLISH);
+        final CorrectBundleInterface bundleMessages = (CorrectBundleInterface) bundle;
+        assertThat(bundleMessages.getName()).isEqualTo("Name");
+
+        bundle.setLocale(new Locale("pl"));
+        assertThat(bundleMessages.getName()).isEqualTo("Nazwa");
+        bundle.setLocale(Locale.ENGLISH);
+        assertThat(bundleMessages.getName()).isEqualTo("Name");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void create_interaceClassIsNull_throwIllegalArgumentException() {
+        createFactory().create(null, Locale.getDefault());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void create_localeIsNull_throwIllegalArgumentException() {
+        createFactory().create(CorrectBundleInterface.class, null);
+    }
+
+    @Test
+    public void create_correctInterface_bundleIsNotProxy() {
+        final Bundle bundle = createFactory().create(CorrectBundleInterface.class, Locale.ENGLISH);
+        assertThat(Proxy.isProxyClass(bundle.getClass())).isFalse();
+        assertThat(bundle).isInstanceOf(GeneratedBundle.class);
+    }
+
+    @Test
+    public void create_twoBundlesOfTheSameInterface_bundlesShareClass() {
+        final BundleFactory factory = createFactory();
+        final Bundle bundle1 = factory.create(CorrectBundleInterface.class, Locale.ENGLISH);
+        final Bundle bundle2 = factory.create(CorrectBundleInterface.class, Locale.ENGLISH);
+        assertThat(bundle1.getClass()).isSameAs(bundle2.getClass());
+    }
+
+    @Test
+    public void create_filePathPrefix_bundleReturnsValuesFromOneFile() {
+        final Bundle bundle = new GeneratedBundleFactory(FILE_NAME).create(CorrectBundleInterface.class, Locale.ENGLISH);
+        final CorrectBundleInterface bundleMessages = (CorrectBundleInterface) bundle;
+        assertThat(bundleMessages.getName()).isEqualTo("Name");
+        assertThat(bundleMessages.getDefault()).isEqualTo("default");
+
+        bundle.setLocale(new Locale("pl"));
+        assertThat(bundleMessages.getName()).isEqualTo("Nazwa");
+    }
+
+    @Test(expected = ReloadBundleException.class)
+    public void getValue_invalidFile_throwReloadBundleException() {
+        final BundleFactory factory = new GeneratedBundleFactory(FILE_NAME + "not-exist");
+        final CorrectBundleInterface bundle = (CorrectBundleInterface) factory.create(CorrectBundleInterface.class, Locale.ENGLISH);
+        bundle.getA();
+    }
+
+    @Test(expected = InvalidInterfaceException.class)
+    public void create_notPublicInterface_throwInvalidInterfaceException() {
+        createFactory().create(NotPublicInterface.class, Locale.ENGLISH);
+    }
+
+    @Test
+    public void create_precompiledInterface_bundleIsInstanceOfPrecompiledClass() {
+        final Bundle bundle = new GeneratedBundleFactory().create(PrecompiledBundleInterface.class, Locale.ENGLISH);
+        assertThat(bundle.getClass().getName()).isEqualTo(PrecompiledBundleInterface.class.getName() + GeneratedBundle.CLASS_NAME_SUFFIX);
+        // classes generated at runtime are defined by a child class loader
+        assertThat(bundle.getClass().getClassLoader()).isSameAs(PrecompiledBundleInterface.class.getClassLoader());
+        assertThat(((PrecompiledBundleInterface) bundle).getName()).isEqualTo("Name");
+        assertThat(((PrecompiledBundleInterface) bundle).getDefault()).isEqualTo("default");
+        assertThat(((PrecompiledBundleInterface) bundle).getWelcome("Adam", 3)).isEqualTo("Welcome Adam, you have 3 new messages");
+
+        bundle.setLocale(new Locale("pl"));
+        assertThat(((PrecompiledBundleInterface) bundle).getName()).isEqualTo("Nazwa");
+    }
+
+    @Test
+    public void create_gettersNamedLikeParentClassMethods_bundleReturnsValues() {
+        final GeneratedBundleFactory factory = new GeneratedBundleFactory(FILE_NAME);
+        factory.setMissingTranslationPolicy(MissingTranslationPolicies.returnKey());
+        final Bundle bundle = factory.create(ValueNamesInterface.class, Locale.ENGLISH);
+        assertThat(((ValueNamesInterface) bundle).getValue(1)).isEqualTo("value");
+        assertThat(((ValueNamesInterface) bundle).getSlotValue(1, null)).isEqualTo("slotValue");
+    }
+
+    public interface ValueNamesInterface {
+
+        String getValue(int slot);
+
+        String getSlotValue(int slot, Object[] arguments);
+    }
+
+    interface NotPublicInterface {
+
+        String getName();
+    }
+}
@@ -5,7 +5,7 @@ public interface IncorrectBundleInterface {
     // invalid get method
     Object getData();
 
-    // invalid get method
+    // correct get method with parameters
     String getData(int param);
 
     // invalid method
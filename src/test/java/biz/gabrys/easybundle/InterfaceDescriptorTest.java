@@ -0,0 +1,112 @@
+package biz.gabrys.easybundle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public final class InterfaceDescriptorTest {
+
+    @Test
+    public void get_twoCalls_returnTheSameDescriptor() {
+        assertThat(InterfaceDescriptor.get(CorrectBundleInterface.class)).isSameAs(InterfaceDescriptor.get(CorrectBundleInterface.class));
+    }
+
+    @Test
+    public void get_manyThreads_returnTheSameDescriptor() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<InterfaceDescriptor>> results = new ArrayList<Future<InterfaceDescriptor>>();
+            for (int i = 0; i < 16; ++i) {
+                results.add(executor.submit(new Callable<InterfaceDescriptor>() {
+
+                    public InterfaceDescriptor call() {
+                        return InterfaceDescriptor.get(ConcurrentInterface.class);
+                    }
+                }));
+            }
+            final InterfaceDescriptor descriptor = results.get(0).get();
+            for (final Future<InterfaceDescriptor> result : results) {
+                assertThat(result.get()).isSameAs(descriptor);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void isValid_interfaces_returnValidity() {
+        assertThat(InterfaceDescriptor.get(CorrectBundleInterface.class).isValid()).isTrue();
+        assertThat(InterfaceDescriptor.get(IncorrectBundleInterface.class).isValid()).isFalse();
+    }
+
+    @Test(expected = InvalidInterfaceException.class)
+    public void validate_incorrectInterface_throwInvalidInterfaceException() {
+        InterfaceDescriptor.get(IncorrectBundleInterface.class).validate();
+    }
+
+    @Test
+    public void getKey_correctGetter_returnsKey() throws NoSuchMethodException {
+        final InterfaceDescriptor descriptor = InterfaceDescriptor.get(CorrectBundleInterface.class);
+        assertThat(descriptor.getKey(CorrectBundleInterface.class.getMethod("getName"))).isEqualTo("name");
+        assertThat(descriptor.getKey(CorrectBundleInterface.class.getMethod("getA"))).isEqualTo("a");
+        assertThat(descriptor.getQualifiedKey(CorrectBundleInterface.class.getMethod("getName")))
+                .isEqualTo(CorrectBundleInterface.class.getName() + ".name");
+    }
+
+    @Test
+    public void getKeys_precompiledInterface_returnsKeyTableOfGeneratedClass() throws NoSuchMethodException {
+        final InterfaceDescriptor descriptor = InterfaceDescriptor.get(PrecompiledBundleInterface.class);
+        assertThat(descriptor.getPrecompiledClass().getName())
+                .isEqualTo(PrecompiledBundleInterface.class.getName() + GeneratedBundle.CLASS_NAME_SUFFIX);
+        assertThat(descriptor.getKeys(false)).containsExactly(descriptor.getPrecompiledBundle().keyTable());
+        assertThat(descriptor.getKeys(false)).containsExactly("default", "name", "welcome");
+        assertThat(descriptor.getSlot(PrecompiledBundleInterface.class.getMethod("getWelcome", String.class, int.class))).isEqualTo(2);
+        assertThat(descriptor.isValid()).isTrue();
+    }
+
+    @Test
+    public void getKey_incorrectMethods_returnsNull() throws NoSuchMethodException {
+        final InterfaceDescriptor descriptor = InterfaceDescriptor.get(IncorrectBundleInterface.class);
+        assertThat(descriptor.getKey(IncorrectBundleInterface.class.getMethod("getData"))).isNull();
+        assertThat(descriptor.getKey(IncorrectBundleInterface.class.getMethod("doSomething"))).isNull();
+        assertThat(descriptor.getKey(Bundle.class.getMethod(Bundle.CHANGE_LANGUAGE_METHOD_NAME, Locale.class))).isNull();
+        assertThat(descriptor.getSlot(IncorrectBundleInterface.class.getMethod("doSomething"))).isEqualTo(-1);
+    }
+
+    @Test
+    public void getSlot_correctGetters_slotsAssignedInNamesOrder() throws NoSuchMethodException {
+        final InterfaceDescriptor descriptor = InterfaceDescriptor.get(CorrectBundleInterface.class);
+        assertThat(descriptor.getKeys(false)).containsExactly("a", "default", "name", "undefined", "welcome");
+        assertThat(descriptor.getSlot(CorrectBundleInterface.class.getMethod("getName"))).isEqualTo(2);
+    }
+
+    @Test
+    public void getKey_defaultLocaleIsTurkish_keyDoesNotDependOnLocale() throws NoSuchMethodException {
+        final Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr"));
+        try {
+            final InterfaceDescriptor descriptor = InterfaceDescriptor.get(TurkishInterface.class);
+            assertThat(descriptor.getKey(TurkishInterface.class.getMethod("getInformation"))).isEqualTo("information");
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    public interface TurkishInterface {
+
+        String getInformation();
+    }
+
+    public interface ConcurrentInterface {
+
+        String getName();
+    }
+}
@@ -0,0 +1,123 @@
+package biz.gabrys.easybundle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public final class LocaleCacheTest {
+
+    @Test
+    public void get_twoCalls_valueLoadedOnce() {
+        final BundleFactory factory = mock(BundleFactory.class);
+        final Bundle bundle = mock(Bundle.class);
+        when(factory.create(Bundle.class, Locale.ENGLISH)).thenReturn(bundle);
+        final LocaleCache<Class<?>, Bundle> cache = new FactoryCache(factory, 10);
+
+        assertThat(cache.get(Bundle.class, Locale.ENGLISH)).isSameAs(bundle);
+        assertThat(cache.get(Bundle.class, Locale.ENGLISH)).isSameAs(bundle);
+        verify(factory, times(1)).create(Bundle.class, Locale.ENGLISH);
+        assertThat(cache.size()).isEqualTo(1);
+
+        final BundleCacheStatistics statistics = cache.getStatistics();
+        assertThat(statistics.getHitCount()).isEqualTo(1);
+        assertThat(statistics.getMissCount()).isEqualTo(1);
+        assertThat(statistics.getEvictionCount()).isEqualTo(0);
+        assertThat(statistics.getSize()).isEqualTo(1);
+        assertThat(statistics.getMaxSize()).isEqualTo(10);
+    }
+
+    @Test
+    public void get_maxSizeExceeded_leastRecentlyUsedValueEvicted() {
+        final BundleFactory factory = mock(BundleFactory.class);
+        when(factory.create(Bundle.class, Locale.ENGLISH)).thenReturn(mock(Bundle.class));
+        when(factory.create(Bundle.class, Locale.GERMAN)).thenReturn(mock(Bundle.class));
+        when(factory.create(Bundle.class, Locale.FRENCH)).thenReturn(mock(Bundle.class));
+        final LocaleCache<Class<?>, Bundle> cache = new FactoryCache(factory, 2);
+
+        cache.get(Bundle.class, Locale.ENGLISH);
+        cache.get(Bundle.class, Locale.GERMAN);
+        cache.get(Bundle.class, Locale.ENGLISH);
+        cache.get(Bundle.class, Locale.FRENCH);
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getStatistics().getEvictionCount()).isEqualTo(1);
+
+        cache.get(Bundle.class, Locale.ENGLISH);
+        verify(factory, times(1)).create(Bundle.class, Locale.ENGLISH);
+        cache.get(Bundle.class, Locale.GERMAN);
+        verify(factory, times(2)).create(Bundle.class, Locale.GERMAN);
+    }
+
+    @Test
+    public void get_concurrentCalls_sameLocaleLoadedOnceAndOtherLocalesNotBlocked() throws Exception {
+        final CountDownLatch loadStarted = new CountDownLatch(1);
+        final CountDownLatch loadReleased = new CountDownLatch(1);
+        final AtomicInteger englishLoads = new AtomicInteger();
+        final LocaleCache<Class<?>, String> cache = new LocaleCache<Class<?>, String>(10, true) {
+
+            @Override
+            protected String load(final Class<?> key, final Locale locale) {
+                if (Locale.ENGLISH.equals(locale)) {
+                    englishLoads.incrementAndGet();
+                    loadStarted.countDown();
+                    try {
+                        loadReleased.await();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return locale.toString();
+            }
+        };
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Callable<String> englishLoad = new Callable<String>() {
+
+                public String call() {
+                    return cache.get(Bundle.class, Locale.ENGLISH);
+                }
+            };
+            final Future<String> first = executor.submit(englishLoad);
+            assertThat(loadStarted.await(10, TimeUnit.SECONDS)).isTrue();
+            final Future<String> second = executor.submit(englishLoad);
+
+            // other locale is loaded while the english locale is loading
+            assertThat(cache.get(Bundle.class, Locale.GERMAN)).isEqualTo("de");
+
+            loadReleased.countDown();
+            assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo("en");
+            assertThat(second.get(10, TimeUnit.SECONDS)).isEqualTo("en");
+            assertThat(englishLoads.get()).isEqualTo(1);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static final class FactoryCache extends LocaleCache<Class<?>, Bundle> {
+
+        private final BundleFactory factory;
+
+        private FactoryCache(final BundleFactory factory, final int maxSize) {
+            super(maxSize, true);
+            this.factory = factory;
+        }
+
+        @Override
+        protected Bundle load(final Class<?> interfaceClass, final Locale locale) {
+            return factory.create(interfaceClass, locale);
+        }
+    }
+}
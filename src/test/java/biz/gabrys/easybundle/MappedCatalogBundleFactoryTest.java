@@ -0,0 +1,61 @@
+package biz.gabrys.easybundle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Locale;
+
+import org.junit.Test;
+
+public final class MappedCatalogBundleFactoryTest extends AbstractBundleFactoryTest {
+
+    // the catalogs are compiled from the test properties files by the build
+
+    @Override
+    protected BundleFactory createFactory() {
+        return new MappedCatalogBundleFactory();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructs_maxCachedBundlesIsZero_throwIllegalArgumentException() {
+        new MappedCatalogBundleFactory(0, true);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void create_interaceClassIsNull_throwIllegalArgumentException() {
+        createFactory().create(null, Locale.getDefault());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void create_localeIsNull_throwIllegalArgumentException() {
+        createFactory().create(CorrectBundleInterface.class, null);
+    }
+
+    @Test
+    public void getValue_decodedValuesAreNotKept_bundleReturnsCorrectValues() {
+        final Bundle bundle = new MappedCatalogBundleFactory(1, false).create(CorrectBundleInterface.class, Locale.ENGLISH);
+        final CorrectBundleInterface bundleMessages = (CorrectBundleInterface) bundle;
+
+        assertThat(bundleMessages.getName()).isEqualTo("Name");
+        assertThat(bundleMessages.getName()).isEqualTo("Name");
+        assertThat(bundleMessages.getDefault()).isEqualTo("default");
+        bundle.setLocale(new Locale("pl"));
+        assertThat(bundleMessages.getName()).isEqualTo("Nazwa");
+    }
+
+    @Test
+    public void setLocale_switchBackToRecentlyUsedLocale_catalogsReadFromCache() {
+        final MappedCatalogBundleFactory factory = new MappedCatalogBundleFactory();
+        final Bundle bundle = factory.create(CorrectBundleInterface.class, Locale.ENGLISH);
+        final CorrectBundleInterface bundleMessages = (CorrectBundleInterface) bundle;
+
+        assertThat(bundleMessages.getName()).isEqualTo("Name");
+        bundle.setLocale(new Locale("pl"));
+        assertThat(bundleMessages.getName()).isEqualTo("Nazwa");
+        bundle.setLocale(Locale.ENGLISH);
+        assertThat(bundleMessages.getName()).isEqualTo("Name");
+
+        final BundleCacheStatistics statistics = factory.getCacheStatistics();
+        assertThat(statistics.getMissCount()).isEqualTo(2);
+        assertThat(statistics.getHitCount()).isEqualTo(1);
+    }
+}
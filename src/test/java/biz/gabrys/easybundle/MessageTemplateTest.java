@@ -0,0 +1,101 @@
+package biz.gabrys.easybundle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.ref.WeakReference;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public final class MessageTemplateTest {
+
+    private static final Locale POLISH_LOCALE = new Locale("pl");
+
+    @Test
+    public void format_simpleArguments_returnsFormattedMessage() {
+        final String message = MessageTemplate.format("{1} and {0}", Locale.ENGLISH, new Object[] { "first", "second" });
+        assertThat(message).isEqualTo("second and first");
+    }
+
+    @Test
+    public void format_quotes_returnsTheSameMessageAsMessageFormat() {
+        final String pattern = "It''s '{0}' and {0}";
+        final Object[] arguments = new Object[] { "value" };
+        final String message = MessageTemplate.format(pattern, Locale.ENGLISH, arguments);
+        assertThat(message).isEqualTo("It's {0} and value");
+        assertThat(message).isEqualTo(new MessageFormat(pattern, Locale.ENGLISH).format(arguments));
+    }
+
+    @Test
+    public void format_numbersAndDates_returnsTheSameMessageAsMessageFormat() {
+        final String pattern = "{0} - {1} - {2} - {3}";
+        final Object[] arguments = new Object[] { 1234567, 1.5, new Date(0), null };
+        assertThat(MessageTemplate.format(pattern, POLISH_LOCALE, arguments))
+                .isEqualTo(new MessageFormat(pattern, POLISH_LOCALE).format(arguments));
+    }
+
+    @Test
+    public void format_argumentWithFormat_returnsTheSameMessageAsMessageFormat() {
+        final String pattern = "{0,number,#.##} {1,choice,0#no files|1#one file|1<{1} files}";
+        final Object[] arguments = new Object[] { 1.2345, 2 };
+        final String message = MessageTemplate.format(pattern, Locale.ENGLISH, arguments);
+        assertThat(message).isEqualTo("1.23 2 files");
+    }
+
+    @Test
+    public void format_manyThreads_returnsTheSameMessagesAsMessageFormat() throws Exception {
+        final String[] patterns = new String[] { "{0} - {1}", "{0,number,#.##} - {1,date,short}" };
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < 200; ++i) {
+                final String pattern = patterns[i % patterns.length];
+                final Object[] arguments = new Object[] { i + 0.125, new Date(i * 86400000L) };
+                results.add(executor.submit(new Callable<Boolean>() {
+
+                    public Boolean call() {
+                        final String expected = new MessageFormat(pattern, POLISH_LOCALE).format(arguments);
+                        return expected.equals(MessageTemplate.format(pattern, POLISH_LOCALE, arguments));
+                    }
+                }));
+            }
+            for (final Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void format_missingArgument_argumentIsNotReplaced() {
+        assertThat(MessageTemplate.format("{0} {1}", Locale.ENGLISH, new Object[] { "value" })).isEqualTo("value {1}");
+    }
+
+    @Test(expected = ReloadBundleException.class)
+    public void format_incorrectPattern_throwReloadBundleException() {
+        MessageTemplate.format("{0,unknown}", Locale.ENGLISH, new Object[] { "value" });
+    }
+
+    @Test
+    public void format_templateNotReferenced_templateIsCollected() throws InterruptedException {
+        MessageTemplate template = MessageTemplate.parse("{0,number,#.##} at {1}", Locale.ENGLISH);
+        assertThat(template.format(new Object[] { 1.5, new Date(0) })).startsWith("1.5 at ");
+        final WeakReference<MessageTemplate> reference = new WeakReference<MessageTemplate>(template);
+
+        template = null;
+        for (int i = 0; i < 50 && reference.get() != null; ++i) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertThat(reference.get()).isNull();
+    }
+}
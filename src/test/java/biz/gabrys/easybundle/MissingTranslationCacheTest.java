@@ -0,0 +1,77 @@
+package biz.gabrys.easybundle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Locale;
+
+import org.junit.Test;
+
+public final class MissingTranslationCacheTest {
+
+    @Test
+    public void get_defaultPolicy_throwUndefinedTranslationException() {
+        final MissingTranslationCache cache = new MissingTranslationCache(mock(MissingTranslationCache.Lookup.class));
+        try {
+            cache.get(CorrectBundleInterface.class, "name", Locale.ENGLISH);
+            throw new AssertionError("exception has not been thrown");
+        } catch (final UndefinedTranslationException e) {
+            assertThat(e.getMessage()).isEqualTo("Cannot find the message associated with the key \"name\" for locale \"en\"");
+        }
+    }
+
+    @Test
+    public void get_repeatedMiss_policyIsInvokedOnce() {
+        final MissingTranslationCache cache = new MissingTranslationCache(mock(MissingTranslationCache.Lookup.class));
+        final MissingTranslationPolicy policy = mock(MissingTranslationPolicy.class);
+        when(policy.getValue(any(MissingTranslation.class))).thenReturn("value");
+        cache.setPolicy(policy);
+
+        assertThat(cache.get(CorrectBundleInterface.class, "name", Locale.ENGLISH)).isEqualTo("value");
+        assertThat(cache.get(CorrectBundleInterface.class, "name", Locale.ENGLISH)).isEqualTo("value");
+        verify(policy).getValue(any(MissingTranslation.class));
+
+        assertThat(cache.get(CorrectBundleInterface.class, "name", Locale.GERMAN)).isEqualTo("value");
+        verify(policy, times(2)).getValue(any(MissingTranslation.class));
+    }
+
+    @Test
+    public void get_policyThrowsException_policyIsInvokedOnce() {
+        final MissingTranslationCache cache = new MissingTranslationCache(mock(MissingTranslationCache.Lookup.class));
+        final MissingTranslationPolicy policy = mock(MissingTranslationPolicy.class);
+        when(policy.getValue(any(MissingTranslation.class))).thenThrow(new UndefinedTranslationException("message"));
+        cache.setPolicy(policy);
+
+        for (int i = 0; i < 2; ++i) {
+            try {
+                cache.get(CorrectBundleInterface.class, "name", Locale.ENGLISH);
+                throw new AssertionError("exception has not been thrown");
+            } catch (final UndefinedTranslationException e) {
+                assertThat(e.getMessage()).isEqualTo("message");
+            }
+        }
+        verify(policy).getValue(any(MissingTranslation.class));
+    }
+
+    @Test
+    public void clear_interfaceClass_policyIsInvokedAgain() {
+        final MissingTranslationCache cache = new MissingTranslationCache(mock(MissingTranslationCache.Lookup.class));
+        final MissingTranslationPolicy policy = mock(MissingTranslationPolicy.class);
+        when(policy.getValue(any(MissingTranslation.class))).thenReturn("value");
+        cache.setPolicy(policy);
+
+        cache.get(CorrectBundleInterface.class, "name", Locale.ENGLISH);
+        cache.clear(CorrectBundleInterface.class);
+        cache.get(CorrectBundleInterface.class, "name", Locale.ENGLISH);
+        verify(policy, times(2)).getValue(any(MissingTranslation.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setPolicy_policyIsNull_throwIllegalArgumentException() {
+        new MissingTranslationCache(mock(MissingTranslationCache.Lookup.class)).setPolicy(null);
+    }
+}
@@ -0,0 +1,62 @@
+package biz.gabrys.easybundle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Locale;
+
+import org.junit.Test;
+
+public final class MissingTranslationPoliciesTest {
+
+    private final MissingTranslationCache.Lookup lookup = mock(MissingTranslationCache.Lookup.class);
+    private final MissingTranslation translation = new MissingTranslation(CorrectBundleInterface.class, "name", Locale.GERMAN, lookup);
+
+    @Test(expected = UndefinedTranslationException.class)
+    public void throwException_missingTranslation_throwUndefinedTranslationException() {
+        MissingTranslationPolicies.throwException().getValue(translation);
+    }
+
+    @Test
+    public void returnKey_missingTranslation_returnsKey() {
+        assertThat(MissingTranslationPolicies.returnKey().getValue(translation)).isEqualTo("name");
+    }
+
+    @Test
+    public void returnDefault_missingTranslation_returnsDefault() {
+        assertThat(MissingTranslationPolicies.returnDefault("???").getValue(translation)).isEqualTo("???");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void returnDefault_valueIsNull_throwIllegalArgumentException() {
+        MissingTranslationPolicies.returnDefault(null);
+    }
+
+    @Test
+    public void fallbackLocale_translationDefinedForFallbackLocale_returnsFallbackTranslation() {
+        when(lookup.find(CorrectBundleInterface.class, "name", Locale.ENGLISH)).thenReturn("Name");
+        final MissingTranslationPolicy policy = MissingTranslationPolicies.fallbackLocale(Locale.ENGLISH,
+                MissingTranslationPolicies.throwException());
+        assertThat(policy.getValue(translation)).isEqualTo("Name");
+    }
+
+    @Test
+    public void fallbackLocale_translationUndefinedForFallbackLocale_usesOtherPolicy() {
+        final MissingTranslationPolicy policy = MissingTranslationPolicies.fallbackLocale(Locale.ENGLISH,
+                MissingTranslationPolicies.returnKey());
+        assertThat(policy.getValue(translation)).isEqualTo("name");
+        verify(lookup).find(CorrectBundleInterface.class, "name", Locale.ENGLISH);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fallbackLocale_localeIsNull_throwIllegalArgumentException() {
+        MissingTranslationPolicies.fallbackLocale(null, MissingTranslationPolicies.returnKey());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fallbackLocale_otherPolicyIsNull_throwIllegalArgumentException() {
+        MissingTranslationPolicies.fallbackLocale(Locale.ENGLISH, null);
+    }
+}
@@ -1,5 +1,7 @@
 package biz.gabrys.easybundle;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 import java.util.Locale;
 
 import org.junit.Test;
@@ -25,4 +27,91 @@ public final class MultiplePropertyResourceBundleFactoryTest extends AbstractBun
     public void create_interfaceClassAndLocaleEqualNull_throwIllegalArgumentException() {
         createFactory().create(null, null);
     }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructs_maxCachedBundlesIsZero_throwIllegalArgumentException() {
+        new MultiplePropertyResourceBundleFactory(0);
+    }
+
+    @Test
+    public void setLocale_switchBackToRecentlyUsedLocale_filesReadFromCache() {
+        final MultiplePropertyResourceBundleFactory factory = new MultiplePropertyResourceBundleFactory();
+        final Bundle bundle = factory.create(CorrectBundleInterface.class, Locale.ENGLISH);
+        final CorrectBundleInterface bundleMessages = (CorrectBundleInterface) bundle;
+
+        assertThat(bundleMessages.getName()).isEqualTo("Name");
+        bundle.setLocale(new Locale("pl"));
+        assertThat(bundleMessages.getName()).isEqualTo("Nazwa");
+        bundle.setLocale(Locale.ENGLISH);
+        assertThat(bundleMessages.getName()).isEqualTo("Name");
+
+        final BundleCacheStatistics statistics = factory.getCacheStatistics();
+        assertThat(statistics.getMissCount()).isEqualTo(2);
+        assertThat(statistics.getHitCount()).isEqualTo(1);
+        assertThat(statistics.getSize()).isEqualTo(2);
+    }
+
+    @Test
+    public void create_precompiledInterface_bundleIsInstanceOfPrecompiledClass() {
+        final Bundle bundle = new MultiplePropertyResourceBundleFactory().create(PrecompiledBundleInterface.class, Locale.ENGLISH);
+        assertThat(bundle.getClass().getName()).isEqualTo(PrecompiledBundleInterface.class.getName() + GeneratedBundle.CLASS_NAME_SUFFIX);
+        assertThat(((PrecompiledBundleInterface) bundle).getName()).isEqualTo("Name");
+        assertThat(((PrecompiledBundleInterface) bundle).getDefault()).isEqualTo("default");
+
+        bundle.setLocale(new Locale("pl"));
+        assertThat(((PrecompiledBundleInterface) bundle).getName()).isEqualTo("Nazwa");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructs_fallbackDepthIsNegative_throwIllegalArgumentException() {
+        new MultiplePropertyResourceBundleFactory(1, -1);
+    }
+
+    @Test
+    public void getValue_fallbackDepthCoversBaseFile_bundleReturnsValuesFromFlatTable() {
+        // the pl_PL file does not exist, so the pl file is the first one
+        final BundleFactory factory = new MultiplePropertyResourceBundleFactory(8, 1);
+        final CorrectBundleInterface bundle = (CorrectBundleInterface) factory.create(CorrectBundleInterface.class, new Locale("pl", "PL"));
+        assertThat(bundle.getName()).isEqualTo("Nazwa");
+        assertThat(bundle.getDefault()).isEqualTo("default");
+    }
+
+    @Test(expected = UndefinedTranslationException.class)
+    public void getValue_fallbackDisabled_throwUndefinedTranslationException() {
+        final BundleFactory factory = new MultiplePropertyResourceBundleFactory(8, 0);
+        final CorrectBundleInterface bundle = (CorrectBundleInterface) factory.create(CorrectBundleInterface.class, new Locale("pl"));
+        assertThat(bundle.getName()).isEqualTo("Nazwa");
+        bundle.getDefault();
+    }
+
+    @Test(expected = UndefinedTranslationException.class)
+    public void getValue_precompiledInterfaceAndFallbackDisabled_throwUndefinedTranslationException() {
+        final BundleFactory factory = new MultiplePropertyResourceBundleFactory(8, 0);
+        final PrecompiledBundleInterface bundle = (PrecompiledBundleInterface) factory.create(PrecompiledBundleInterface.class,
+                new Locale("pl"));
+        assertThat(bundle.getName()).isEqualTo("Nazwa");
+        bundle.getDefault();
+    }
+
+    @Test
+    public void getValue_returnKeyPolicy_bundleReturnsKey() {
+        final MultiplePropertyResourceBundleFactory factory = new MultiplePropertyResourceBundleFactory();
+        factory.setMissingTranslationPolicy(MissingTranslationPolicies.returnKey());
+        final CorrectBundleInterface bundle = (CorrectBundleInterface) factory.create(CorrectBundleInterface.class, Locale.ENGLISH);
+        assertThat(bundle.getUndefined()).isEqualTo("undefined");
+    }
+
+    @Test
+    public void getValue_fallbackLocalePolicy_bundleReturnsFallbackTranslation() {
+        final MultiplePropertyResourceBundleFactory factory = new MultiplePropertyResourceBundleFactory(8, 0);
+        factory.setMissingTranslationPolicy(MissingTranslationPolicies.fallbackLocale(Locale.ROOT,
+                MissingTranslationPolicies.returnDefault("?")));
+        final CorrectBundleInterface bundle = (CorrectBundleInterface) factory.create(CorrectBundleInterface.class, new Locale("pl"));
+        assertThat(bundle.getDefault()).isEqualTo("default");
+        assertThat(bundle.getUndefined()).isEqualTo("?");
+
+        final PrecompiledBundleInterface precompiled = (PrecompiledBundleInterface) factory.create(PrecompiledBundleInterface.class,
+                new Locale("pl"));
+        assertThat(precompiled.getDefault()).isEqualTo("default");
+    }
 }
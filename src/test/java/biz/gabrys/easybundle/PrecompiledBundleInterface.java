@@ -0,0 +1,14 @@
+package biz.gabrys.easybundle;
+
+@PrecompiledBundle
+public interface PrecompiledBundleInterface {
+
+    // correct get method
+    String getName();
+
+    // correct get method
+    String getDefault();
+
+    // message with arguments
+    String getWelcome(String name, int count);
+}
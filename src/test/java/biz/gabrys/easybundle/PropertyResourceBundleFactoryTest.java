@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.File;
 import java.util.Locale;
+import java.util.ResourceBundle;
 
 import org.junit.Test;
 
@@ -26,6 +27,54 @@ public final class PropertyResourceBundleFactoryTest extends AbstractBundleFacto
         new PropertyResourceBundleFactory(null);
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void contructs_maxCachedLocalesIsZero_throwIllegalArgumentException() {
+        new PropertyResourceBundleFactory(FILE_NAME, 0);
+    }
+
+    @Test
+    public void getFootprint_loadedLocale_returnEstimatedBytes() {
+        final PropertyResourceBundleFactory factory = new PropertyResourceBundleFactory(FILE_NAME);
+        assertThat(factory.getFootprint(Locale.ENGLISH)).isEqualTo(0);
+
+        ((CorrectBundleInterface) factory.create(CorrectBundleInterface.class, Locale.ENGLISH)).getName();
+        assertThat(factory.getFootprint(Locale.ENGLISH)).isGreaterThan(0);
+        assertThat(factory.getCacheStatistics().getFootprint()).isEqualTo(factory.getFootprint(Locale.ENGLISH));
+    }
+
+    @Test
+    public void setLocale_maxCachedLocalesExceeded_leastRecentlyUsedLocaleEvicted() {
+        final PropertyResourceBundleFactory factory = new PropertyResourceBundleFactory(FILE_NAME, 1);
+        final Bundle bundle = factory.create(CorrectBundleInterface.class, Locale.ENGLISH);
+        final CorrectBundleInterface bundleMessages = (CorrectBundleInterface) bundle;
+        assertThat(bundleMessages.getName()).isEqualTo("Name");
+
+        bundle.setLocale(new Locale("pl"));
+        assertThat(bundleMessages.getName()).isEqualTo("Nazwa");
+        assertThat(factory.getFootprint(Locale.ENGLISH)).isEqualTo(0);
+        assertThat(factory.getCacheStatistics().getEvictionCount()).isEqualTo(1);
+        assertThat(factory.getCacheStatistics().getSize()).isEqualTo(1);
+
+        bundle.setLocale(Locale.ENGLISH);
+        assertThat(bundleMessages.getName()).isEqualTo("Name");
+    }
+
+    @Test
+    public void getValue_bundleCachedByDefaultControl_returnsValue() {
+        ResourceBundle.clearCache();
+        assertThat(ResourceBundle.getBundle(FILE_NAME, new Locale("pl")).getString("biz.gabrys.easybundle.CorrectBundleInterface.name"))
+                .isEqualTo("Nazwa");
+
+        final PropertyResourceBundleFactory factory = new PropertyResourceBundleFactory(FILE_NAME, 1, 1);
+        final CorrectBundleInterface bundle = (CorrectBundleInterface) factory.create(CorrectBundleInterface.class, new Locale("pl"));
+        assertThat(bundle.getName()).isEqualTo("Nazwa");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getFootprint_localeIsNull_throwIllegalArgumentException() {
+        new PropertyResourceBundleFactory(FILE_NAME).getFootprint(null);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void create_interaceClassIsNull_throwIllegalArgumentException() {
         createFactory().create(null, Locale.getDefault());
@@ -54,4 +103,51 @@ public final class PropertyResourceBundleFactoryTest extends AbstractBundleFacto
                 LOCALE_FOR_NOT_EXIST_FILE);
         bundle.getA();
     }
+
+    @Test
+    public void create_precompiledInterface_bundleIsInstanceOfPrecompiledClass() {
+        final Bundle bundle = new PropertyResourceBundleFactory(FILE_NAME).create(PrecompiledBundleInterface.class, Locale.ENGLISH);
+        assertThat(bundle.getClass().getName()).isEqualTo(PrecompiledBundleInterface.class.getName() + GeneratedBundle.CLASS_NAME_SUFFIX);
+        assertThat(((PrecompiledBundleInterface) bundle).getName()).isEqualTo("Name");
+        assertThat(((PrecompiledBundleInterface) bundle).getDefault()).isEqualTo("default");
+
+        bundle.setLocale(new Locale("pl"));
+        assertThat(((PrecompiledBundleInterface) bundle).getName()).isEqualTo("Nazwa");
+    }
+
+    @Test(expected = ReloadBundleException.class)
+    public void prepareLocale_invalidFile_throwReloadBundleException() {
+        final BundleFactory factory = new PropertyResourceBundleFactory(NOT_EXIST_FILE_NAME_PREFIX);
+        final PreparableBundle bundle = (PreparableBundle) factory.create(CorrectBundleInterface.class, LOCALE_FOR_NOT_EXIST_FILE);
+        bundle.prepareLocale(LOCALE_FOR_NOT_EXIST_FILE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void contructs_fallbackDepthIsNegative_throwIllegalArgumentException() {
+        new PropertyResourceBundleFactory(FILE_NAME, 1, -1);
+    }
+
+    @Test
+    public void getValue_fallbackDepthCoversBaseFile_bundleReturnsValuesFromFlatTable() {
+        final PropertyResourceBundleFactory factory = new PropertyResourceBundleFactory(FILE_NAME, 8, 1);
+        final CorrectBundleInterface bundle = (CorrectBundleInterface) factory.create(CorrectBundleInterface.class, new Locale("pl"));
+        assertThat(bundle.getName()).isEqualTo("Nazwa");
+        assertThat(bundle.getDefault()).isEqualTo("default");
+    }
+
+    @Test(expected = UndefinedTranslationException.class)
+    public void getValue_fallbackDisabled_throwUndefinedTranslationException() {
+        final PropertyResourceBundleFactory factory = new PropertyResourceBundleFactory(FILE_NAME, 8, 0);
+        final CorrectBundleInterface bundle = (CorrectBundleInterface) factory.create(CorrectBundleInterface.class, new Locale("pl"));
+        assertThat(bundle.getName()).isEqualTo("Nazwa");
+        bundle.getDefault();
+    }
+
+    @Test
+    public void getValue_returnKeyPolicy_bundleReturnsKey() {
+        final PropertyResourceBundleFactory factory = new PropertyResourceBundleFactory(FILE_NAME);
+        factory.setMissingTranslationPolicy(MissingTranslationPolicies.returnKey());
+        final CorrectBundleInterface bundle = (CorrectBundleInterface) factory.create(CorrectBundleInterface.class, Locale.ENGLISH);
+        assertThat(bundle.getUndefined()).isEqualTo("undefined");
+    }
 }
@@ -0,0 +1,254 @@
+package biz.gabrys.easybundle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public final class ReloadingPropertyResourceBundleFactoryTest extends AbstractBundleFactoryTest {
+
+    private static final Locale POLISH_LOCALE = new Locale("pl");
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Override
+    protected BundleFactory createFactory() {
+        try {
+            return new ReloadingPropertyResourceBundleFactory(new File(CorrectBundleInterface.class.getResource("/").toURI()));
+        } catch (final URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructs_directoryIsNull_throwIllegalArgumentException() {
+        new ReloadingPropertyResourceBundleFactory(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructs_maxCachedBundlesIsZero_throwIllegalArgumentException() {
+        new ReloadingPropertyResourceBundleFactory(folder.getRoot(), 0);
+    }
+
+    @Test
+    public void reload_translationsEvicted_bundleReturnsNewValue() throws IOException {
+        writeFile(CorrectBundleInterface.class, "", "name=Name", 1000);
+        writeFile(PrecompiledBundleInterface.class, "", "name=Other", 1000);
+        final ReloadingPropertyResourceBundleFactory factory = new ReloadingPropertyResourceBundleFactory(folder.getRoot(), 1);
+        final CorrectBundleInterface bundle = (CorrectBundleInterface) factory.create(CorrectBundleInterface.class, Locale.ENGLISH);
+        assertThat(bundle.getName()).isEqualTo("Name");
+        ((PrecompiledBundleInterface) factory.create(PrecompiledBundleInterface.class, Locale.ENGLISH)).getName();
+
+        writeFile(CorrectBundleInterface.class, "", "name=New name", 2000);
+        assertThat(factory.reload()).isEmpty();
+        assertThat(bundle.getName()).isEqualTo("New name");
+    }
+
+    @Test
+    public void reload_concurrentReloads_changeNotifiedOnce() throws Exception {
+        writeFile(CorrectBundleInterface.class, "", "name=Name", 1000);
+        final ReloadingPropertyResourceBundleFactory factory = new ReloadingPropertyResourceBundleFactory(folder.getRoot());
+        final BundleReloadListener listener = mock(BundleReloadListener.class);
+        factory.register(CorrectBundleInterface.class, listener);
+        ((CorrectBundleInterface) factory.create(CorrectBundleInterface.class, Locale.ENGLISH)).getName();
+        writeFile(CorrectBundleInterface.class, "", "name=New name", 2000);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Set<Class<?>>>> results = new ArrayList<Future<Set<Class<?>>>>();
+            for (int i = 0; i < 8; ++i) {
+                results.add(executor.submit(new Callable<Set<Class<?>>>() {
+
+                    public Set<Class<?>> call() {
+                        return factory.reload();
+                    }
+                }));
+            }
+            int changes = 0;
+            for (final Future<Set<Class<?>>> result : results) {
+                changes += result.get().size();
+            }
+            assertThat(changes).isEqualTo(1);
+        } finally {
+            executor.shutdown();
+        }
+        verify(listener).onBundleReload();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void create_interaceClassIsNull_throwIllegalArgumentException() {
+        createFactory().create(null, Locale.getDefault());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void create_localeIsNull_throwIllegalArgumentException() {
+        createFactory().create(CorrectBundleInterface.class, null);
+    }
+
+    @Test(expected = ReloadBundleException.class)
+    public void getValue_filesDoNotExist_throwReloadBundleException() {
+        final BundleFactory factory = new ReloadingPropertyResourceBundleFactory(folder.getRoot());
+        ((CorrectBundleInterface) factory.create(CorrectBundleInterface.class, Locale.ENGLISH)).getName();
+    }
+
+    @Test
+    public void reload_fileModified_bundleReturnsNewValueAndListenerIsNotified() throws IOException {
+        final File file = writeFile(CorrectBundleInterface.class, "_pl", "name=Nazwa", 1000);
+        writeFile(CorrectBundleInterface.class, "", "name=Name", 1000);
+        final ReloadingPropertyResourceBundleFactory factory = new ReloadingPropertyResourceBundleFactory(folder.getRoot());
+        final BundleReloadListener listener = mock(BundleReloadListener.class);
+        factory.register(CorrectBundleInterface.class, listener);
+        final CorrectBundleInterface bundle = (CorrectBundleInterface) factory.create(CorrectBundleInterface.class, POLISH_LOCALE);
+        assertThat(bundle.getName()).isEqualTo("Nazwa");
+
+        assertThat(factory.reload()).isEmpty();
+        verify(listener, never()).onBundleReload();
+
+        writeFile(CorrectBundleInterface.class, "_pl", "name=Nowa nazwa", 2000);
+        assertThat(file.lastModified()).isEqualTo(2000);
+        assertThat(factory.reload()).containsExactly(CorrectBundleInterface.class);
+        assertThat(bundle.getName()).isEqualTo("Nowa nazwa");
+        verify(listener).onBundleReload();
+    }
+
+    @Test
+    public void reload_fileOfOtherInterfaceModified_unchangedTranslationsStayLoadedAndListenerIsNotNotified() throws IOException {
+        writeFile(CorrectBundleInterface.class, "", "name=Name", 1000);
+        writeFile(PrecompiledBundleInterface.class, "", "name=Other", 1000);
+        final ReloadingPropertyResourceBundleFactory factory = new ReloadingPropertyResourceBundleFactory(folder.getRoot());
+        final BundleReloadListener correctListener = mock(BundleReloadListener.class);
+        final BundleReloadListener precompiledListener = mock(BundleReloadListener.class);
+        factory.register(CorrectBundleInterface.class, correctListener);
+        factory.register(PrecompiledBundleInterface.class, precompiledListener);
+        final CorrectBundleInterface correct = (CorrectBundleInterface) factory.create(CorrectBundleInterface.class, Locale.ENGLISH);
+        final PrecompiledBundleInterface precompiled = (PrecompiledBundleInterface) factory.create(PrecompiledBundleInterface.class,
+                Locale.ENGLISH);
+        assertThat(correct.getName()).isEqualTo("Name");
+        assertThat(precompiled.getName()).isEqualTo("Other");
+
+        writeFile(PrecompiledBundleInterface.class, "", "name=Changed", 2000);
+        assertThat(factory.reload()).containsExactly(PrecompiledBundleInterface.class);
+        assertThat(precompiled.getName()).isEqualTo("Changed");
+        verify(precompiledListener).onBundleReload();
+        verify(correctListener, never()).onBundleReload();
+    }
+
+    @Test
+    public void reload_localeFileCreated_bundleReturnsValueFromNewFile() throws IOException {
+        writeFile(CorrectBundleInterface.class, "", "name=Name", 1000);
+        final ReloadingPropertyResourceBundleFactory factory = new ReloadingPropertyResourceBundleFactory(folder.getRoot());
+        final CorrectBundleInterface bundle = (CorrectBundleInterface) factory.create(CorrectBundleInterface.class, POLISH_LOCALE);
+        assertThat(bundle.getName()).isEqualTo("Name");
+
+        writeFile(CorrectBundleInterface.class, "_pl", "name=Nazwa", 1000);
+        assertThat(factory.reload()).containsExactly(CorrectBundleInterface.class);
+        assertThat(bundle.getName()).isEqualTo("Nazwa");
+    }
+
+    @Test
+    public void reload_allFilesDeleted_bundleReturnsPreviousValue() throws IOException {
+        final File file = writeFile(CorrectBundleInterface.class, "", "name=Name", 1000);
+        final ReloadingPropertyResourceBundleFactory factory = new ReloadingPropertyResourceBundleFactory(folder.getRoot());
+        final CorrectBundleInterface bundle = (CorrectBundleInterface) factory.create(CorrectBundleInterface.class, Locale.ENGLISH);
+        assertThat(bundle.getName()).isEqualTo("Name");
+
+        assertThat(file.delete()).isTrue();
+        assertThat(factory.reload()).isEmpty();
+        assertThat(bundle.getName()).isEqualTo("Name");
+    }
+
+    @Test
+    public void reload_missingTranslationAdded_bundleReturnsNewValueInsteadOfPolicyValue() throws IOException {
+        writeFile(CorrectBundleInterface.class, "", "name=Name", 1000);
+        final ReloadingPropertyResourceBundleFactory factory = new ReloadingPropertyResourceBundleFactory(folder.getRoot());
+        factory.setMissingTranslationPolicy(MissingTranslationPolicies.returnKey());
+        final CorrectBundleInterface bundle = (CorrectBundleInterface) factory.create(CorrectBundleInterface.class, Locale.ENGLISH);
+        assertThat(bundle.getDefault()).isEqualTo("default");
+
+        writeFile(CorrectBundleInterface.class, "", "name=Name\ndefault=Default", 2000);
+        assertThat(factory.reload()).containsExactly(CorrectBundleInterface.class);
+        assertThat(bundle.getDefault()).isEqualTo("Default");
+    }
+
+    @Test
+    public void reload_fileModified_snapshotReturnsNewValues() throws IOException {
+        writeFile(CorrectBundleInterface.class, "", "name=Name", 1000);
+        final ReloadingPropertyResourceBundleFactory factory = new ReloadingPropertyResourceBundleFactory(folder.getRoot());
+        final SnapshotBundle bundle = (SnapshotBundle) factory.create(CorrectBundleInterface.class, Locale.ENGLISH);
+        final Map<String, String> values = bundle.snapshot();
+        assertThat(values.get("name")).isEqualTo("Name");
+        assertThat(bundle.snapshot()).isSameAs(values);
+
+        writeFile(CorrectBundleInterface.class, "", "name=Changed", 2000);
+        assertThat(factory.reload()).containsExactly(CorrectBundleInterface.class);
+        assertThat(bundle.snapshot().get("name")).isEqualTo("Changed");
+    }
+
+    @Test
+    public void unregister_listenerWasRegistered_listenerIsNotNotified() throws IOException {
+        writeFile(CorrectBundleInterface.class, "", "name=Name", 1000);
+        final ReloadingPropertyResourceBundleFactory factory = new ReloadingPropertyResourceBundleFactory(folder.getRoot());
+        final BundleReloadListener listener = mock(BundleReloadListener.class);
+        factory.register(CorrectBundleInterface.class, listener);
+        factory.unregister(listener);
+        ((CorrectBundleInterface) factory.create(CorrectBundleInterface.class, Locale.ENGLISH)).getName();
+
+        writeFile(CorrectBundleInterface.class, "", "name=Changed", 2000);
+        assertThat(factory.reload()).containsExactly(CorrectBundleInterface.class);
+        verify(listener, never()).onBundleReload();
+    }
+
+    @Test
+    public void getValue_unicodeEscapes_returnsDecodedValue() throws IOException {
+        writeFile(CorrectBundleInterface.class, "", "name=\\u0418\\u043c\\u044f \\u0142\\u00f3d\\u017a", 1000);
+        final BundleFactory factory = new ReloadingPropertyResourceBundleFactory(folder.getRoot());
+
+        final CorrectBundleInterface bundle = (CorrectBundleInterface) factory.create(CorrectBundleInterface.class, Locale.ENGLISH);
+
+        assertThat(bundle.getName()).isEqualTo("\u0418\u043c\u044f \u0142\u00f3d\u017a");
+    }
+
+    @Test
+    public void getValue_latin1File_returnsDecodedValue() throws IOException {
+        writeFile(CorrectBundleInterface.class, "", "name=Caf\u00e9", 1000);
+        final BundleFactory factory = new ReloadingPropertyResourceBundleFactory(folder.getRoot());
+
+        final CorrectBundleInterface bundle = (CorrectBundleInterface) factory.create(CorrectBundleInterface.class, Locale.ENGLISH);
+
+        assertThat(bundle.getName()).isEqualTo("Caf\u00e9");
+    }
+
+    private File writeFile(final Class<?> interfaceClass, final String suffix, final String content, final long modificationTime)
+            throws IOException {
+        final File file = new File(folder.getRoot(), interfaceClass.getName().replace('.', '/') + suffix + ".properties");
+        file.getParentFile().mkdirs();
+        final OutputStream stream = new FileOutputStream(file);
+        try {
+            stream.write(content.getBytes("ISO-8859-1"));
+        } finally {
+            stream.close();
+        }
+        assertThat(file.setLastModified(modificationTime)).isTrue();
+        return file;
+    }
+}
@@ -0,0 +1,298 @@
+package biz.gabrys.easybundle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+public final class ThreadLocaleBundleManagerTest {
+
+    private static final Locale POLISH = new Locale("pl");
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructs_factoryIsNull_throwIllegalAgrumentException() {
+        new ThreadLocaleBundleManager(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructs_defaultLocaleIsNull_throwIllegalAgrumentException() {
+        new ThreadLocaleBundleManager(mock(BundleFactory.class), null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructs_maxCachedBundlesIsZero_throwIllegalAgrumentException() {
+        new ThreadLocaleBundleManager(mock(BundleFactory.class), Locale.ENGLISH, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setLocale_localeIsNull_throwIllegalArgumentException() {
+        new ThreadLocaleBundleManager(mock(BundleFactory.class)).setLocale(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getBundle_interfaceClassIsNull_throwIllegalArgumentException() {
+        new ThreadLocaleBundleManager(mock(BundleFactory.class)).getBundle(null);
+    }
+
+    @Test
+    public void getLocale_localeIsNotBound_returnDefaultLocale() {
+        final ThreadLocaleBundleManager manager = new ThreadLocaleBundleManager(mock(BundleFactory.class), Locale.ENGLISH);
+        assertThat(manager.getLocale()).isEqualTo(Locale.ENGLISH);
+
+        manager.setLocale(POLISH);
+        assertThat(manager.getLocale()).isEqualTo(POLISH);
+
+        manager.clearLocale();
+        assertThat(manager.getLocale()).isEqualTo(Locale.ENGLISH);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getBundleForLocale_interfaceClassIsNull_throwIllegalArgumentException() {
+        new ThreadLocaleBundleManager(mock(BundleFactory.class)).getBundle(null, Locale.ENGLISH);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getBundleForLocale_localeIsNull_throwIllegalArgumentException() {
+        new ThreadLocaleBundleManager(mock(BundleFactory.class)).getBundle(CorrectBundleInterface.class, null);
+    }
+
+    @Test
+    public void getBundleForLocale_twoCalls_returnTheSameBundleFixedToLocale() {
+        final ThreadLocaleBundleManager manager = new ThreadLocaleBundleManager(new MultiplePropertyResourceBundleFactory(),
+                Locale.ENGLISH);
+        final CorrectBundleInterface bundle = manager.getBundle(CorrectBundleInterface.class, POLISH);
+        assertThat(manager.getBundle(CorrectBundleInterface.class, POLISH)).isSameAs(bundle);
+        assertThat(bundle.getName()).isEqualTo("Nazwa");
+        assertThat(manager.getBundle(CorrectBundleInterface.class, Locale.ENGLISH).getName()).isEqualTo("Name");
+    }
+
+    @Test
+    public void getBundleForLocale_setLocale_throwUnsupportedOperationException() {
+        final ThreadLocaleBundleManager manager = new ThreadLocaleBundleManager(new MultiplePropertyResourceBundleFactory(),
+                Locale.ENGLISH);
+        final CorrectBundleInterface bundle = manager.getBundle(CorrectBundleInterface.class, POLISH);
+
+        try {
+            ((Bundle) bundle).setLocale(Locale.ENGLISH);
+            throw new AssertionError("UnsupportedOperationException was not thrown");
+        } catch (final UnsupportedOperationException e) {
+            // expected
+        }
+        assertThat(bundle.getName()).isEqualTo("Nazwa");
+        assertThat(manager.getBundle(CorrectBundleInterface.class, POLISH).getName()).isEqualTo("Nazwa");
+    }
+
+    @Test
+    public void getBundle_twoCalls_returnTheSameBundle() {
+        final BundleManager manager = new ThreadLocaleBundleManager(new MultiplePropertyResourceBundleFactory(), Locale.ENGLISH);
+        assertThat(manager.getBundle(CorrectBundleInterface.class)).isSameAs(manager.getBundle(CorrectBundleInterface.class));
+    }
+
+    @Test
+    public void getBundle_localeBoundToThread_bundleReturnsValuesForThreadLocale() throws Exception {
+        final ThreadLocaleBundleManager manager = new ThreadLocaleBundleManager(new MultiplePropertyResourceBundleFactory(),
+                Locale.ENGLISH);
+        final CorrectBundleInterface bundle = manager.getBundle(CorrectBundleInterface.class);
+        manager.setLocale(POLISH);
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final String name = executor.submit(new Callable<String>() {
+
+                public String call() {
+                    return bundle.getName();
+                }
+            }).get();
+            assertThat(name).isEqualTo("Name");
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(bundle.getName()).isEqualTo("Nazwa");
+        assertThat(bundle.getDefault()).isEqualTo("default");
+    }
+
+    @Test
+    public void getBundle_bundleSetLocale_localeBoundToThread() {
+        final ThreadLocaleBundleManager manager = new ThreadLocaleBundleManager(new MultiplePropertyResourceBundleFactory(),
+                Locale.ENGLISH);
+        final CorrectBundleInterface bundle = manager.getBundle(CorrectBundleInterface.class);
+
+        ((Bundle) bundle).setLocale(POLISH);
+        assertThat(manager.getLocale()).isEqualTo(POLISH);
+        assertThat(bundle.getName()).isEqualTo("Nazwa");
+    }
+
+    @Test
+    public void getBundle_manyCalls_factoryCreatesOneBundlePerLocale() {
+        final List<Locale> locales = new ArrayList<Locale>();
+        final BundleFactory factory = new BundleFactory() {
+
+            public Bundle create(final Class<?> interfaceClass, final Locale locale) {
+                locales.add(locale);
+                return new MultiplePropertyResourceBundleFactory().create(interfaceClass, locale);
+            }
+        };
+        final ThreadLocaleBundleManager manager = new ThreadLocaleBundleManager(factory, Locale.ENGLISH);
+        final CorrectBundleInterface bundle = manager.getBundle(CorrectBundleInterface.class);
+        bundle.getName();
+        manager.setLocale(POLISH);
+        bundle.getName();
+        bundle.getDefault();
+        manager.clearLocale();
+        bundle.getName();
+
+        assertThat(locales).containsExactly(Locale.ENGLISH, POLISH);
+    }
+
+    @Test
+    public void getBundle_interfaceExtendsBundle_returnBundle() {
+        final BundleFactory factory = mock(BundleFactory.class);
+        when(factory.create(Bundle.class, Locale.ENGLISH)).thenReturn(mock(Bundle.class));
+
+        final Bundle bundle = new ThreadLocaleBundleManager(factory, Locale.ENGLISH).getBundle(Bundle.class);
+        bundle.setLocale(POLISH);
+        verify(factory).create(Bundle.class, Locale.ENGLISH);
+    }
+
+    @Test(expected = UndefinedTranslationException.class)
+    public void getBundle_undefinedTranslation_throwUndefinedTranslationException() {
+        final BundleManager manager = new ThreadLocaleBundleManager(new MultiplePropertyResourceBundleFactory(), Locale.ENGLISH);
+        manager.getBundle(CorrectBundleInterface.class).getUndefined();
+    }
+
+    @Test
+    public void setLocale_registeredListener_listenerNotNotified() {
+        final BundleManager manager = new ThreadLocaleBundleManager(mock(BundleFactory.class), Locale.ENGLISH);
+        final BundleReloadListener listener = mock(BundleReloadListener.class);
+        manager.register(listener);
+
+        manager.setLocale(POLISH);
+        verify(listener, never()).onBundleReload();
+    }
+
+    @Test
+    public void setDefaultLocale_registeredListener_listenerNotifiedWhenLocaleChanged() {
+        final ThreadLocaleBundleManager manager = new ThreadLocaleBundleManager(mock(BundleFactory.class), Locale.ENGLISH);
+        final BundleReloadListener listener = mock(BundleReloadListener.class);
+        manager.register(listener);
+
+        manager.setDefaultLocale(POLISH);
+        assertThat(manager.getDefaultLocale()).isEqualTo(POLISH);
+        assertThat(manager.getLocale()).isEqualTo(POLISH);
+        verify(listener).onBundleReload();
+
+        manager.setDefaultLocale(POLISH);
+        verify(listener).onBundleReload();
+
+        manager.unregister(listener);
+        manager.setDefaultLocale(Locale.ENGLISH);
+        verify(listener).onBundleReload();
+    }
+
+    @Test
+    public void getBundle_generatedBundles_returnValuesForThreadAndFixedLocales() {
+        final ThreadLocaleBundleManager manager = new ThreadLocaleBundleManager(new GeneratedBundleFactory(), Locale.ENGLISH);
+        final CorrectBundleInterface bundle = manager.getBundle(CorrectBundleInterface.class);
+        final CorrectBundleInterface fixed = manager.getBundle(CorrectBundleInterface.class, POLISH);
+
+        assertThat(bundle.getName()).isEqualTo("Name");
+        assertThat(fixed.getName()).isEqualTo("Nazwa");
+        manager.setLocale(POLISH);
+        assertThat(bundle.getName()).isEqualTo("Nazwa");
+    }
+
+    @Test
+    public void getBundle_snapshotAndEncodedBundle_delegatedToBundleOfThreadLocale() throws IOException {
+        final ThreadLocaleBundleManager manager = new ThreadLocaleBundleManager(new MultiplePropertyResourceBundleFactory(),
+                Locale.ENGLISH);
+        final CorrectBundleInterface bundle = manager.getBundle(CorrectBundleInterface.class);
+        assertThat(((SnapshotBundle) bundle).snapshot()).containsEntry("name", "Name");
+
+        manager.setLocale(POLISH);
+        assertThat(((SnapshotBundle) bundle).snapshot()).containsEntry("name", "Nazwa");
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ((EncodedBundle) bundle).writeValue("name", output);
+        assertThat(output.toString("UTF-8")).isEqualTo("Nazwa");
+    }
+
+    @Test
+    public void getBundleForLocale_snapshotAndEncodedBundle_delegatedToBundleOfLocale() throws IOException {
+        final ThreadLocaleBundleManager manager = new ThreadLocaleBundleManager(new GeneratedBundleFactory(), Locale.ENGLISH);
+        final CorrectBundleInterface bundle = manager.getBundle(CorrectBundleInterface.class, POLISH);
+
+        assertThat(((SnapshotBundle) bundle).snapshot()).containsEntry("name", "Nazwa");
+        final StringBuilder output = new StringBuilder();
+        ((EncodedBundle) bundle).appendValue("name", output);
+        assertThat(output.toString()).isEqualTo("Nazwa");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void getBundle_factoryBundleIsNotSnapshotBundle_throwUnsupportedOperationException() {
+        final BundleFactory factory = mock(BundleFactory.class);
+        when(factory.create(Bundle.class, Locale.ENGLISH)).thenReturn(mock(Bundle.class));
+
+        ((SnapshotBundle) new ThreadLocaleBundleManager(factory, Locale.ENGLISH).getBundle(Bundle.class)).snapshot();
+    }
+
+    @Test
+    public void preload_correctInterface_bundlesCached() throws Exception {
+        final List<Locale> locales = new ArrayList<Locale>();
+        final BundleFactory factory = new BundleFactory() {
+
+            public Bundle create(final Class<?> interfaceClass, final Locale locale) {
+                locales.add(locale);
+                return new MultiplePropertyResourceBundleFactory().create(interfaceClass, locale);
+            }
+        };
+        final ThreadLocaleBundleManager manager = new ThreadLocaleBundleManager(factory, Locale.ENGLISH);
+        final BundlePreloadReport report = manager
+                .preload(Arrays.<Class<?>> asList(CorrectBundleInterface.class), Arrays.asList(Locale.ENGLISH, POLISH)).get();
+
+        assertThat(report.getLocales()).containsExactly(Locale.ENGLISH, POLISH);
+        assertThat(manager.getBundle(CorrectBundleInterface.class, POLISH).getName()).isEqualTo("Nazwa");
+        assertThat(manager.getBundle(CorrectBundleInterface.class).getName()).isEqualTo("Name");
+        assertThat(locales).containsExactly(Locale.ENGLISH, POLISH);
+    }
+
+    @Test
+    public void getValues_correctInterface_returnsTranslationsForLocale() {
+        final ThreadLocaleBundleManager manager = new ThreadLocaleBundleManager(new GeneratedBundleFactory(), Locale.ENGLISH);
+        final Map<String, String> values = manager.getValues(CorrectBundleInterface.class, POLISH);
+        assertThat(values.get("name")).isEqualTo("Nazwa");
+        assertThat(manager.getValues(CorrectBundleInterface.class, POLISH)).isSameAs(values);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getValues_interfaceClassIsNull_throwIllegalArgumentException() {
+        new ThreadLocaleBundleManager(mock(BundleFactory.class)).getValues(null, POLISH);
+    }
+
+    @Test
+    public void getValuesForLocales_correctInterface_returnsTranslationsForEachLocale() {
+        final ThreadLocaleBundleManager manager = new ThreadLocaleBundleManager(new GeneratedBundleFactory(), Locale.ENGLISH);
+        final Map<Locale, Map<String, String>> values = manager.getValues(CorrectBundleInterface.class, Arrays.asList("name"),
+                Arrays.asList(Locale.ENGLISH, POLISH));
+        assertThat(values.get(Locale.ENGLISH).get("name")).isEqualTo("Name");
+        assertThat(values.get(POLISH).get("name")).isEqualTo("Nazwa");
+        assertThat(manager.getLocale()).isEqualTo(Locale.ENGLISH);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getValuesForLocales_keysAreNull_throwIllegalArgumentException() {
+        new ThreadLocaleBundleManager(mock(BundleFactory.class)).getValues(CorrectBundleInterface.class, null, Arrays.asList(POLISH));
+    }
+}
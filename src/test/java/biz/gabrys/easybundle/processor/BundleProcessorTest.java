@@ -0,0 +1,98 @@
+package biz.gabrys.easybundle.processor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import biz.gabrys.easybundle.GeneratedBundle;
+
+public final class BundleProcessorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void process_correctInterface_generatesClass() throws IOException {
+        final boolean success = compile("org.example.Messages",
+                "package org.example; @biz.gabrys.easybundle.PrecompiledBundle public interface Messages { String getTitle(); String getA(); }");
+        assertThat(success).isTrue();
+        assertThat(new File(folder.getRoot(), "org/example/Messages" + GeneratedBundle.CLASS_NAME_SUFFIX + ".class").exists()).isTrue();
+    }
+
+    @Test
+    public void process_nestedInterface_generatesClass() throws IOException {
+        final boolean success = compile("org.example.Outer",
+                "package org.example; public class Outer { @biz.gabrys.easybundle.PrecompiledBundle public interface Inner { String getTitle(); } }");
+        assertThat(success).isTrue();
+        assertThat(new File(folder.getRoot(), "org/example/Outer$Inner" + GeneratedBundle.CLASS_NAME_SUFFIX + ".class").exists()).isTrue();
+    }
+
+    @Test
+    public void process_methodHasParameters_generatesClass() throws IOException {
+        final boolean success = compile("org.example.Messages", "package org.example; @biz.gabrys.easybundle.PrecompiledBundle"
+                + " public interface Messages { String getTitle(); String getTitle(int i, long l, double d, String s); }");
+        assertThat(success).isTrue();
+        assertThat(new File(folder.getRoot(), "org/example/Messages" + GeneratedBundle.CLASS_NAME_SUFFIX + ".class").exists()).isTrue();
+    }
+
+    @Test
+    public void process_gettersNamedLikeParentClassMethods_generatesClass() throws IOException {
+        final boolean success = compile("org.example.Messages", "package org.example; @biz.gabrys.easybundle.PrecompiledBundle"
+                + " public interface Messages { String getValue(int slot); String getSlotValue(int slot, Object[] arguments); }");
+        assertThat(success).isTrue();
+        assertThat(new File(folder.getRoot(), "org/example/Messages" + GeneratedBundle.CLASS_NAME_SUFFIX + ".class").exists()).isTrue();
+    }
+
+    @Test
+    public void process_methodReturnsObject_reportsError() throws IOException {
+        final boolean success = compile("org.example.Messages",
+                "package org.example; @biz.gabrys.easybundle.PrecompiledBundle public interface Messages { Object getTitle(); }");
+        assertThat(success).isFalse();
+    }
+
+    @Test
+    public void process_emptyInterface_reportsError() throws IOException {
+        final boolean success = compile("org.example.Messages",
+                "package org.example; @biz.gabrys.easybundle.PrecompiledBundle public interface Messages { }");
+        assertThat(success).isFalse();
+    }
+
+    @Test
+    public void process_class_reportsError() throws IOException {
+        final boolean success = compile("org.example.Messages",
+                "package org.example; @biz.gabrys.easybundle.PrecompiledBundle public class Messages { }");
+        assertThat(success).isFalse();
+    }
+
+    private boolean compile(final String className, final String source) throws IOException {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final SimpleJavaFileObject file = new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension),
+                Kind.SOURCE) {
+
+            @Override
+            public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        final CompilationTask task = compiler.getTask(new StringWriter(), null, null,
+                Arrays.asList("-d", folder.getRoot().getAbsolutePath(), "-classpath", System.getProperty("java.class.path")), null,
+                Collections.singletonList(file));
+        task.setProcessors(Collections.singletonList(new BundleProcessor()));
+        return task.call();
+    }
+}